@@ -49,6 +49,11 @@ public abstract class AbstractClusterWatchdog implements ClusterWatchdog {
         return managers.addCommandHandler(name, handler);
     }
     
+    @Override
+    public ClusterView getClusterView() {
+        return managers.getClusterView();
+    }
+    
     @Override
     public ClusterNodeListener setClusterNodeListener(ClusterNodeListener clusterNodeListener) {
         return managers.setClusterNodeListener(clusterNodeListener);
@@ -68,4 +73,34 @@ public abstract class AbstractClusterWatchdog implements ClusterWatchdog {
     public ClusterConfigListener setClusterConfigListener(ClusterConfigListener clusterConfigListener) {
         return managers.setClusterConfigListener(clusterConfigListener);
     }
+    
+    @Override
+    public boolean addClusterNodeListener(ClusterNodeListener clusterNodeListener) {
+        return managers.addClusterNodeListener(clusterNodeListener);
+    }
+    
+    @Override
+    public boolean removeClusterNodeListener(ClusterNodeListener clusterNodeListener) {
+        return managers.removeClusterNodeListener(clusterNodeListener);
+    }
+    
+    @Override
+    public boolean addClusterStateListener(ClusterStateListener clusterStateListener) {
+        return managers.addClusterStateListener(clusterStateListener);
+    }
+    
+    @Override
+    public boolean removeClusterStateListener(ClusterStateListener clusterStateListener) {
+        return managers.removeClusterStateListener(clusterStateListener);
+    }
+    
+    @Override
+    public boolean addClusterConfigListener(ClusterConfigListener clusterConfigListener) {
+        return managers.addClusterConfigListener(clusterConfigListener);
+    }
+    
+    @Override
+    public boolean removeClusterConfigListener(ClusterConfigListener clusterConfigListener) {
+        return managers.removeClusterConfigListener(clusterConfigListener);
+    }
 }
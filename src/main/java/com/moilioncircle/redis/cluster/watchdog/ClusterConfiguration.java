@@ -20,6 +20,7 @@ import com.moilioncircle.redis.cluster.watchdog.util.net.NetworkConfiguration;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_PHI_MIN_SAMPLES;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_PORT_INCR;
 import static com.moilioncircle.redis.cluster.watchdog.Version.PROTOCOL_V0;
 
@@ -40,6 +41,11 @@ public class ClusterConfiguration {
     private volatile Version version = PROTOCOL_V0;
     private volatile int clusterMigrationBarrier = 1;
     private volatile long clusterNodeTimeout = 15000;
+    private long clusterCronInterval = 100;
+    private volatile boolean clusterPhiDetector = false;
+    private volatile double clusterPhiThreshold = 8.0d;
+    private volatile int clusterPhiWindow = 100;
+    private volatile long clusterPhiMinStdDeviation = 500;
     private volatile boolean clusterFullCoverage = true;
     private NetworkConfiguration networkConfiguration = NetworkConfiguration.defaultSetting();
     
@@ -92,6 +98,51 @@ public class ClusterConfiguration {
         return this;
     }
     
+    public long getClusterCronInterval() {
+        return clusterCronInterval;
+    }
+    
+    public ClusterConfiguration setClusterCronInterval(long clusterCronInterval) {
+        this.clusterCronInterval = clusterCronInterval;
+        return this;
+    }
+    
+    public boolean isClusterPhiDetector() {
+        return clusterPhiDetector;
+    }
+    
+    public ClusterConfiguration setClusterPhiDetector(boolean clusterPhiDetector) {
+        this.clusterPhiDetector = clusterPhiDetector;
+        return this;
+    }
+    
+    public double getClusterPhiThreshold() {
+        return clusterPhiThreshold;
+    }
+    
+    public ClusterConfiguration setClusterPhiThreshold(double clusterPhiThreshold) {
+        this.clusterPhiThreshold = clusterPhiThreshold;
+        return this;
+    }
+    
+    public int getClusterPhiWindow() {
+        return clusterPhiWindow;
+    }
+    
+    public ClusterConfiguration setClusterPhiWindow(int clusterPhiWindow) {
+        this.clusterPhiWindow = clusterPhiWindow;
+        return this;
+    }
+    
+    public long getClusterPhiMinStdDeviation() {
+        return clusterPhiMinStdDeviation;
+    }
+    
+    public ClusterConfiguration setClusterPhiMinStdDeviation(long clusterPhiMinStdDeviation) {
+        this.clusterPhiMinStdDeviation = clusterPhiMinStdDeviation;
+        return this;
+    }
+    
     public int getClusterAnnouncePort() {
         return clusterAnnouncePort;
     }
@@ -194,6 +245,22 @@ public class ClusterConfiguration {
             throw new ClusterConfigurationException("illegal clusterNodeTimeout: " + clusterNodeTimeout);
         }
         
+        if (clusterCronInterval <= 0 || clusterCronInterval > 1000) {
+            throw new ClusterConfigurationException("illegal clusterCronInterval: " + clusterCronInterval);
+        }
+        
+        if (clusterPhiThreshold <= 0) {
+            throw new ClusterConfigurationException("illegal clusterPhiThreshold: " + clusterPhiThreshold);
+        }
+        
+        if (clusterPhiWindow < CLUSTER_PHI_MIN_SAMPLES) {
+            throw new ClusterConfigurationException("illegal clusterPhiWindow: " + clusterPhiWindow);
+        }
+        
+        if (clusterPhiMinStdDeviation <= 0) {
+            throw new ClusterConfigurationException("illegal clusterPhiMinStdDeviation: " + clusterPhiMinStdDeviation);
+        }
+        
         return this;
     }
 }
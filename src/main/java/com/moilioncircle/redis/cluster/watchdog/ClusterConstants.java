@@ -101,6 +101,137 @@ public class ClusterConstants {
     
     public static final int CLUSTERMSG_FLAG0_FORCEACK = (1 << 1);
     
+    public static final String CLUSTER_SIGNATURE = "RCmb";
+    
+    /**
+     * inbound ring
+     */
+    public static final int CLUSTER_INBOUND_CAPACITY = 4096;
+    
+    public static final int CLUSTER_INBOUND_BATCH = 1024;
+    
+    public static final int CLUSTER_INBOUND_CRITICAL_CAPACITY = 1024;
+    
+    public static final int CLUSTER_INBOUND_CRITICAL_BURST = 64;
+    
+    /**
+     * timing wheel
+     */
+    public static final int CLUSTER_TIMER_WHEEL_SIZE = 512;
+    
+    /**
+     * phi accrual
+     */
+    public static final int CLUSTER_PHI_MIN_SAMPLES = 5;
+    
+    /**
+     * listener event bus
+     */
+    public static final int CLUSTER_EVENT_QUEUE_CAPACITY = 64;
+    
+    /**
+     * client protocol
+     */
+    public static final int PROTO_INLINE_MAX_SIZE = 64 * 1024;
+    
+    public static final int PROTO_MAX_MULTIBULK_LEN = 1024 * 1024;
+    
+    public static final int PROTO_MAX_BULK_LEN = 512 * 1024 * 1024;
+    
+    public static final int PROTO_MULTIBULK_PREALLOC = 1024;
+    
+    public static final int PROTO_BULK_PREALLOC = 32 * 1024;
+    
+    /**
+     * migrate
+     */
+    public static final int MIGRATE_SOCKET_CACHE_ITEMS = 64;
+    
+    public static final long MIGRATE_SOCKET_CACHE_TTL = 10 * 1000;
+    
+    public static final int MIGRATE_BATCH_MIN_KEYS = 16;
+    
+    public static final int MIGRATE_BATCH_MAX_KEYS = 4096;
+    
+    public static final int MIGRATE_BATCH_MAX_BYTES = 8 * 1024 * 1024;
+    
+    public static final long MIGRATE_BATCH_TARGET_TIME = 50;
+    
+    /**
+     * import
+     */
+    public static final int CLUSTER_IMPORT_BATCH_MAX = 4096;
+    
+    public static final int CLUSTER_IMPORT_CHUNK_MIN = 64;
+    
+    /**
+     * rdb
+     */
+    public static final int RDB_VERSION = 12;
+    
+    public static final int RDB_DUMP_VERSION = 6;
+    
+    public static final int RDB_TYPE_STRING = 0;
+    
+    public static final int RDB_TYPE_LIST = 1;
+    
+    public static final int RDB_TYPE_SET = 2;
+    
+    public static final int RDB_TYPE_ZSET = 3;
+    
+    public static final int RDB_TYPE_HASH = 4;
+    
+    public static final int RDB_TYPE_ZSET_2 = 5;
+    
+    public static final int RDB_TYPE_HASH_ZIPMAP = 9;
+    
+    public static final int RDB_TYPE_LIST_ZIPLIST = 10;
+    
+    public static final int RDB_TYPE_SET_INTSET = 11;
+    
+    public static final int RDB_TYPE_ZSET_ZIPLIST = 12;
+    
+    public static final int RDB_TYPE_HASH_ZIPLIST = 13;
+    
+    public static final int RDB_TYPE_LIST_QUICKLIST = 14;
+    
+    public static final int RDB_TYPE_HASH_LISTPACK = 16;
+    
+    public static final int RDB_TYPE_ZSET_LISTPACK = 17;
+    
+    public static final int RDB_TYPE_LIST_QUICKLIST_2 = 18;
+    
+    public static final int RDB_TYPE_SET_LISTPACK = 20;
+    
+    /**
+     * value encodings
+     */
+    public static final int LIST_MAX_LISTPACK_SIZE = 8 * 1024;
+    
+    public static final int SET_MAX_INTSET_ENTRIES = 512;
+    
+    public static final int SET_MAX_LISTPACK_ENTRIES = 128;
+    
+    public static final int SET_MAX_LISTPACK_VALUE = 64;
+    
+    public static final int HASH_MAX_LISTPACK_ENTRIES = 128;
+    
+    public static final int HASH_MAX_LISTPACK_VALUE = 64;
+    
+    public static final int ZSET_MAX_LISTPACK_ENTRIES = 128;
+    
+    public static final int ZSET_MAX_LISTPACK_VALUE = 64;
+    
+    /**
+     * key index
+     */
+    public static final int KEY_INDEX_SCAN_BATCH = 128;
+    
+    /**
+     * scan
+     */
+    public static final int SCAN_CURSOR_CACHE_ITEMS = 1024;
+    
     /**
      * ip name
      */
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog;
+
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterSlotManager.bitmapTestBit;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
+
+/**
+ * Immutable topology snapshot. Built on the cron thread whenever the topology version or the
+ * cluster state changes and published through a volatile reference, so it can be read from any thread.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class ClusterView {
+    public final long version;
+    public final long currentEpoch;
+    public final long myEpoch;
+    public final int size;
+    public final int assignedSlots;
+    public final int pFailSlots;
+    public final int failSlots;
+    public final Node myself;
+    public final List<Node> nodes;
+    public final com.moilioncircle.redis.cluster.watchdog.ClusterState state;
+    
+    private final Node[] slots;
+    private final Node[] migrating;
+    private final Node[] importing;
+    private final Map<String, Node> names;
+    private volatile byte[] slotsReply;
+    
+    private ClusterView(ClusterState cluster) {
+        this.version = cluster.version;
+        this.currentEpoch = cluster.currentEpoch;
+        this.size = cluster.size;
+        this.assignedSlots = cluster.assignedSlots;
+        this.pFailSlots = cluster.pFailSlots;
+        this.failSlots = cluster.failSlots;
+        this.state = cluster.state;
+        
+        List<Node> nodes = new ArrayList<>(cluster.nodes.size());
+        this.names = new HashMap<>(cluster.nodes.size() * 2);
+        for (ClusterNode node : cluster.nodes.values()) {
+            Node n = new Node(node);
+            nodes.add(n);
+            names.put(n.name, n);
+        }
+        for (ClusterNode node : cluster.nodes.values()) {
+            Node n = names.get(node.name);
+            for (ClusterNode slave : node.slaves) {
+                Node s = names.get(slave.name);
+                if (s != null) n.slaveList.add(s);
+            }
+        }
+        this.nodes = Collections.unmodifiableList(nodes);
+        
+        this.slots = new Node[CLUSTER_SLOTS];
+        for (int i = 0; i < CLUSTER_SLOTS; i++) {
+            if (cluster.slots[i] != null) slots[i] = names.get(cluster.slots[i].name);
+        }
+        this.migrating = slots(cluster.migrating, names);
+        this.importing = slots(cluster.importing, names);
+        
+        ClusterNode myself = cluster.myself;
+        this.myself = myself == null ? null : names.get(myself.name);
+        if (myself == null) this.myEpoch = 0;
+        else if (nodeIsSlave(myself) && myself.master != null) this.myEpoch = myself.master.configEpoch;
+        else this.myEpoch = myself.configEpoch;
+    }
+    
+    public static ClusterView valueOf(ClusterState cluster) {
+        return new ClusterView(cluster);
+    }
+    
+    private static Node[] slots(ClusterNode[] nodes, Map<String, Node> names) {
+        Node[] r = null;
+        for (int i = 0; i < CLUSTER_SLOTS; i++) {
+            if (nodes[i] == null) continue;
+            if (r == null) r = new Node[CLUSTER_SLOTS];
+            r[i] = names.get(nodes[i].name);
+        }
+        return r;
+    }
+    
+    public Node getNode(String name) {
+        return names.get(name);
+    }
+    
+    public Node getSlotOwner(int slot) {
+        return slots[slot];
+    }
+    
+    /**
+     * @return the node {@code slot} is being migrated to, or null
+     */
+    public Node getMigratingTarget(int slot) {
+        return migrating == null ? null : migrating[slot];
+    }
+    
+    /**
+     * @return the node {@code slot} is being imported from, or null
+     */
+    public Node getImportingSource(int slot) {
+        return importing == null ? null : importing[slot];
+    }
+    
+    /**
+     * @param encoder called at most a few times per view, the result is kept for later calls.
+     * @return the encoded {@code CLUSTER SLOTS} reply of this view
+     */
+    public byte[] getSlotsReply(Function<ClusterView, byte[]> encoder) {
+        byte[] r = this.slotsReply;
+        if (r == null) this.slotsReply = r = encoder.apply(this);
+        return r;
+    }
+    
+    @Override
+    public String toString() {
+        return "ClusterView:[" + "version=" + version + ", state=" + state + ", currentEpoch=" + currentEpoch + ", nodes=" + nodes.size() + ']';
+    }
+    
+    public static final class Node {
+        public final String name;
+        public final String ip;
+        public final int port;
+        public final int busPort;
+        public final int flags;
+        public final long configEpoch;
+        public final String master;
+        public final int assignedSlots;
+        public final List<Node> slaves;
+        
+        private final int[] ranges;
+        private final List<Node> slaveList = new ArrayList<>();
+        
+        private Node(ClusterNode node) {
+            this.name = node.name;
+            this.ip = node.ip;
+            this.port = node.port;
+            this.busPort = node.busPort;
+            this.flags = node.flags;
+            this.configEpoch = node.configEpoch;
+            this.master = node.master == null ? null : node.master.name;
+            this.assignedSlots = node.assignedSlots;
+            this.slaves = Collections.unmodifiableList(slaveList);
+            this.ranges = ranges(node.slots, node.assignedSlots);
+        }
+        
+        /**
+         * @return the number of contiguous slot ranges served by this node
+         */
+        public int getRanges() {
+            return ranges.length >> 1;
+        }
+        
+        public int getRangeStart(int index) {
+            return ranges[index << 1];
+        }
+        
+        public int getRangeEnd(int index) {
+            return ranges[(index << 1) + 1];
+        }
+        
+        private static int[] ranges(byte[] slots, int assigned) {
+            if (assigned == 0) return new int[0];
+            int n = 0;
+            int[] r = new int[16];
+            for (int i = 0, start = -1; i <= CLUSTER_SLOTS; i++) {
+                boolean bit = i < CLUSTER_SLOTS && bitmapTestBit(slots, i);
+                if (bit && start == -1) start = i;
+                if (!bit && start != -1) {
+                    if (n + 2 > r.length) r = Arrays.copyOf(r, r.length << 1);
+                    r[n++] = start;
+                    r[n++] = i - 1;
+                    start = -1;
+                }
+            }
+            return Arrays.copyOf(r, n);
+        }
+        
+        @Override
+        public String toString() {
+            return "Node:[" + "address='" + ip + ":" + port + "@" + busPort + '\'' + ", flags=" + flags + ", name='" + name + '\'' + ", master='" + master + '\'' + ", configEpoch=" + configEpoch + ']';
+        }
+    }
+}
@@ -31,6 +31,8 @@ public interface ClusterWatchdog extends Resourcable {
     
     CommandHandler addCommandHandler(String name, CommandHandler handler);
     
+    ClusterView getClusterView();
+    
     ClusterNodeListener setClusterNodeListener(ClusterNodeListener clusterNodeListener);
     
     ReplicationListener setReplicationListener(ReplicationListener replicationListener);
@@ -38,4 +40,16 @@ public interface ClusterWatchdog extends Resourcable {
     ClusterStateListener setClusterStateListener(ClusterStateListener clusterStateListener);
     
     ClusterConfigListener setClusterConfigListener(ClusterConfigListener clusterConfigListener);
+    
+    boolean addClusterNodeListener(ClusterNodeListener clusterNodeListener);
+    
+    boolean removeClusterNodeListener(ClusterNodeListener clusterNodeListener);
+    
+    boolean addClusterStateListener(ClusterStateListener clusterStateListener);
+    
+    boolean removeClusterStateListener(ClusterStateListener clusterStateListener);
+    
+    boolean addClusterConfigListener(ClusterConfigListener clusterConfigListener);
+    
+    boolean removeClusterConfigListener(ClusterConfigListener clusterConfigListener);
 }
@@ -19,7 +19,6 @@ package com.moilioncircle.redis.cluster.watchdog;
 import com.moilioncircle.redis.cluster.watchdog.codec.ClusterMessageDecoder;
 import com.moilioncircle.redis.cluster.watchdog.codec.ClusterMessageEncoder;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
-import com.moilioncircle.redis.cluster.watchdog.message.ClusterMessage;
 import com.moilioncircle.redis.cluster.watchdog.message.RCmbMessage;
 import com.moilioncircle.redis.cluster.watchdog.state.ClusterLink;
 import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
@@ -35,6 +34,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BinaryOperator;
@@ -75,6 +75,8 @@ public class ThinGossip implements Resourcable {
     private volatile NioBootstrapImpl<RCmbMessage> acceptor;
     private volatile NioBootstrapImpl<RCmbMessage> initiator;
     
+    private boolean update;
+    
     public ThinGossip(ClusterManagers managers) {
         this.managers = managers;
         this.configuration = managers.configuration;
@@ -85,10 +87,11 @@ public class ThinGossip implements Resourcable {
         this.clusterInit();
         managers.cron.scheduleAtFixedRate(() -> {
             ClusterConfigInfo previous = valueOf(managers.server.cluster);
+            managers.inbounds.clusterDrainCriticalMessages();
             clusterCron();
             ClusterConfigInfo next = valueOf(managers.server.cluster);
-            if (!previous.equals(next)) managers.config.submit(() -> managers.configs.clusterSaveConfig(next));
-        }, 0, 100, TimeUnit.MILLISECONDS);
+            managers.configs.clusterUpdateConfig(previous, next);
+        }, 0, configuration.getClusterCronInterval(), TimeUnit.MILLISECONDS);
     }
     
     @Override
@@ -123,6 +126,7 @@ public class ThinGossip implements Resourcable {
     
     public void clusterInit() {
         managers.server.cluster = new ClusterState();
+        managers.timers.clusterResetTimers();
         int port = configuration.getClusterAnnouncePort();
         String address = configuration.getClusterAnnounceIp();
         int busPort = configuration.getClusterAnnounceBusPort();
@@ -135,7 +139,7 @@ public class ThinGossip implements Resourcable {
             managers.server.cluster.myself = managers.server.myself;
             logger.info("No cluster configuration found, I'm " + name);
             managers.nodes.clusterAddNode(this.managers.server.myself);
-            managers.notifyNodeAdded(ClusterNodeInfo.valueOf(managers.server.myself));
+            managers.notifyNodeAdded(managers.server.myself);
             ClusterConfigInfo next = ClusterConfigInfo.valueOf(managers.server.cluster);
             managers.config.submit(() -> this.managers.configs.clusterSaveConfig(next));
         }
@@ -153,8 +157,9 @@ public class ThinGossip implements Resourcable {
             else throw new UnsupportedOperationException(e.getCause());
         }
         
-        managers.server.myself.port = port;
-        managers.server.myself.busPort = busPort;
+        ClusterNode myself = managers.server.myself;
+        managers.nodes.clusterSetNodeAddress(myself, myself.ip, port, busPort);
+        managers.views.clusterPublishView();
     }
     
     public void clusterCron() {
@@ -162,60 +167,21 @@ public class ThinGossip implements Resourcable {
             managers.server.iteration++;
             long now = System.currentTimeMillis();
             ClusterNode myself = managers.server.myself;
-            long nodeTimeout = configuration.getClusterNodeTimeout();
             
             String nextAddress = configuration.getClusterAnnounceIp();
             if (!Objects.equals(managers.server.previousAddress, nextAddress)) {
                 managers.server.previousAddress = nextAddress;
-                if (nextAddress != null) myself.ip = nextAddress;
-                else myself.ip = null;
+                managers.nodes.clusterSetNodeAddress(myself, nextAddress, myself.port, myself.busPort);
             }
             
-            managers.server.cluster.pFailNodes = 0;
-            long handshakeTimeout = max(nodeTimeout, 1000);
-            for (ClusterNode node : new ArrayList<>(managers.server.cluster.nodes.values())) {
-                if (nodeIsMyself(node.flags)) continue;
-                if (nodeWithoutAddr(node.flags)) continue;
-                if (nodePFailed(node.flags)) managers.server.cluster.pFailNodes++;
-                if (nodeInHandshake(node) && now - node.createTime > handshakeTimeout) {
-                    managers.nodes.clusterDelNode(node);
-                    continue;
-                }
-                if (node.link != null) continue;
-                
-                if (initiator == null) {
-                    initiator = new NioBootstrapImpl<>(false, configuration.getNetworkConfiguration());
-                    //
-                    initiator.setEncoder(ClusterMessageEncoder::new);
-                    initiator.setDecoder(ClusterMessageDecoder::new);
-                    initiator.setup();
-                }
-                
-                final ClusterLink link = managers.connections.createClusterLink(node);
-                TransportListener<RCmbMessage> r = new InitiatorTransportListener(link);
-                try {
-                    initiator.connect(node.ip, node.busPort).get();
-                    initiator.getTransport().setTransportListener(r);
-                    link.fd = new DefaultSession<>(initiator.getTransport());
-                } catch (InterruptedException | ExecutionException e) {
-                    if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-                    if (node.pingTime == 0) node.pingTime = System.currentTimeMillis();
-                    continue;
-                }
-                node.link = link;
-                link.createTime = System.currentTimeMillis();
-                long previousPingTime = node.pingTime;
-                boolean meet = nodeInMeet(node.flags);
-                managers.messages.clusterSendPing(link, meet ? CLUSTERMSG_TYPE_MEET : CLUSTERMSG_TYPE_PING);
-                if (previousPingTime != 0) node.pingTime = previousPingTime;
-                node.flags &= ~CLUSTER_NODE_MEET;
-            }
-            
-            long minPongTime = 0;
-            ClusterNode minPongNode = null;
-            List<ClusterNode> list = new ArrayList<>(managers.server.cluster.nodes.values());
+            this.update = false;
+            managers.timers.clusterExpireNodes(now, this::clusterCronNode);
             
-            if (managers.server.iteration % 10 == 0) {
+            long interval = configuration.getClusterCronInterval();
+            if (managers.server.iteration % max(1000 / interval, 1) == 0) {
+                long minPongTime = 0;
+                ClusterNode minPongNode = null;
+                List<ClusterNode> list = new ArrayList<>(managers.server.cluster.nodes.values());
                 for (int i = 0; i < 5; i++) {
                     ClusterNode t = list.get(current().nextInt(list.size()));
                     
@@ -230,45 +196,23 @@ public class ThinGossip implements Resourcable {
                 if (minPongNode != null) {
                     logger.debug("Pinging node " + minPongNode.name);
                     managers.messages.clusterSendPing(minPongNode.link, CLUSTERMSG_TYPE_PING);
+                    managers.timers.clusterScheduleNode(minPongNode);
                 }
+                managers.migrates.clusterMigrateCron();
             }
             
-            boolean update = false;
             int maxSlaves = 0, mySlaves = 0, isolated = 0;
-            for (ClusterNode node : managers.server.cluster.nodes.values()) {
-                now = System.currentTimeMillis();
-                
-                if (nodeIsMyself(node.flags)) continue;
-                if (nodeWithoutAddr(node.flags)) continue;
-                if (nodeInHandshake(node.flags)) continue;
-                if (nodeIsSlave(myself) && nodeIsMaster(node) && !nodeFailed(node)) {
+            if (nodeIsSlave(myself)) {
+                for (ClusterNode node : managers.server.cluster.nodes.values()) {
+                    if (nodeIsMyself(node.flags)) continue;
+                    if (nodeWithoutAddr(node.flags)) continue;
+                    if (nodeInHandshake(node.flags)) continue;
+                    if (!nodeIsMaster(node) || nodeFailed(node)) continue;
                     int slaves = managers.nodes.clusterCountNonFailingSlaves(node);
                     if (slaves == 0 && node.assignedSlots > 0 && nodeInMigrate(node.flags)) isolated++;
                     if (slaves > maxSlaves) maxSlaves = slaves;
                     if (Objects.equals(myself.master, node)) mySlaves = slaves;
                 }
-                
-                if (node.link != null
-                        && now - node.link.createTime > nodeTimeout
-                        && node.pingTime != 0 && node.pongTime < node.pingTime
-                        && now - node.pingTime > nodeTimeout / 2) {
-                    
-                    managers.connections.freeClusterLink(node.link);
-                }
-                
-                if (node.link != null && node.pingTime == 0 && (now - node.pongTime) > nodeTimeout / 2) {
-                    managers.messages.clusterSendPing(node.link, CLUSTERMSG_TYPE_PING);
-                    continue;
-                }
-                
-                if (node.pingTime == 0) continue;
-                
-                if (now - node.pingTime > nodeTimeout && !nodePFailed(node.flags) && !nodeFailed(node.flags)) {
-                    logger.debug("*** NODE " + node.name + " possibly failing");
-                    node.flags |= CLUSTER_NODE_PFAIL;
-                    update = true;
-                    managers.notifyNodePFailed(ClusterNodeInfo.valueOf(node, myself));
-                }
             }
             
             if (nodeIsSlave(myself)
@@ -290,6 +234,75 @@ public class ThinGossip implements Resourcable {
         }
     }
     
+    /**
+     * Called by the timing wheel when the earliest deadline of {@code node} expired.
+     */
+    protected void clusterCronNode(ClusterNode node) {
+        long now = System.currentTimeMillis();
+        ClusterNode myself = managers.server.myself;
+        long nodeTimeout = configuration.getClusterNodeTimeout();
+        
+        if (nodeIsMyself(node.flags)) return;
+        if (nodeWithoutAddr(node.flags)) return;
+        if (nodeInHandshake(node) && now - node.createTime > max(nodeTimeout, 1000)) {
+            managers.nodes.clusterDelNode(node);
+            return;
+        }
+        
+        if (node.link == null) clusterConnectNode(node);
+        
+        if (!nodeInHandshake(node.flags)) {
+            if (node.link != null
+                    && now - node.link.createTime > nodeTimeout
+                    && node.pingTime != 0 && node.pongTime < node.pingTime
+                    && now - node.pingTime > nodeTimeout / 2) {
+                
+                managers.connections.freeClusterLink(node.link);
+            }
+            
+            if (node.link != null && node.pingTime == 0 && (now - node.pongTime) > nodeTimeout / 2) {
+                managers.messages.clusterSendPing(node.link, CLUSTERMSG_TYPE_PING);
+            } else if (node.pingTime != 0 && !nodePFailed(node.flags) && !nodeFailed(node.flags)
+                    && (now - node.pingTime > nodeTimeout || managers.detectors.clusterNodeSuspected(node, now))) {
+                logger.debug("*** NODE " + node.name + " possibly failing");
+                node.flags |= CLUSTER_NODE_PFAIL;
+                managers.states.clusterAccountNode(node);
+                update = true;
+                managers.notifyNodePFailed(node);
+            }
+        }
+        managers.timers.clusterScheduleNode(node);
+    }
+    
+    protected void clusterConnectNode(ClusterNode node) {
+        if (initiator == null) {
+            initiator = new NioBootstrapImpl<>(false, configuration.getNetworkConfiguration());
+            //
+            initiator.setEncoder(ClusterMessageEncoder::new);
+            initiator.setDecoder(ClusterMessageDecoder::new);
+            initiator.setup();
+        }
+        
+        final ClusterLink link = managers.connections.createClusterLink(node);
+        TransportListener<RCmbMessage> r = new InitiatorTransportListener(link);
+        try {
+            initiator.connect(node.ip, node.busPort).get();
+            initiator.getTransport().setTransportListener(r);
+            link.fd = new DefaultSession<>(initiator.getTransport());
+        } catch (InterruptedException | ExecutionException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            if (node.pingTime == 0) node.pingTime = System.currentTimeMillis();
+            return;
+        }
+        node.link = link;
+        link.createTime = System.currentTimeMillis();
+        long previousPingTime = node.pingTime;
+        boolean meet = nodeInMeet(node.flags);
+        managers.messages.clusterSendPing(link, meet ? CLUSTERMSG_TYPE_MEET : CLUSTERMSG_TYPE_PING);
+        if (previousPingTime != 0) node.pingTime = previousPingTime;
+        node.flags &= ~CLUSTER_NODE_MEET;
+    }
+    
     public void clusterHandleSlaveMigration(int max) {
         ClusterNode myself = managers.server.myself;
         if (managers.server.myself.master == null) return;
@@ -342,19 +355,16 @@ public class ThinGossip implements Resourcable {
         
         @Override
         public void onMessage(Transport<RCmbMessage> t, RCmbMessage message) {
-            managers.cron.execute(() -> {
-                ClusterConfigInfo previous;
-                previous = valueOf(managers.server.cluster);
-                ClusterMessage hdr = (ClusterMessage) message;
-                managers.handlers.get(hdr.type).handle(link, hdr);
-                ClusterConfigInfo next = valueOf(managers.server.cluster);
-                if (!previous.equals(next)) managers.config.submit(() -> managers.configs.clusterSaveConfig(next));
-            });
+            managers.inbounds.clusterPublishMessage(link, t, message);
         }
         
         @Override
         public void onDisconnected(Transport<RCmbMessage> t, Throwable cause) {
             managers.connections.freeClusterLink(link);
+            try {
+                managers.cron.execute(() -> managers.timers.clusterScheduleNode(link.node));
+            } catch (RejectedExecutionException ignore) {
+            }
             if (configuration.isVerbose()) logger.info("[initiator] < " + t);
         }
     }
@@ -370,15 +380,7 @@ public class ThinGossip implements Resourcable {
         
         @Override
         public void onMessage(Transport<RCmbMessage> t, RCmbMessage message) {
-            managers.cron.execute(() -> {
-                ClusterConfigInfo previous;
-                previous = valueOf(managers.server.cluster);
-                ClusterMessage hdr = (ClusterMessage) message;
-                ClusterLink link = managers.server.cfd.get(t);
-                managers.handlers.get(hdr.type).handle(link, hdr);
-                ClusterConfigInfo next = valueOf(managers.server.cluster);
-                if (!previous.equals(next)) managers.config.submit(() -> managers.configs.clusterSaveConfig(next));
-            });
+            managers.inbounds.clusterPublishMessage(null, t, message);
         }
         
         @Override
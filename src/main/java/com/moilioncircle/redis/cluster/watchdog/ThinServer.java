@@ -19,6 +19,7 @@ package com.moilioncircle.redis.cluster.watchdog;
 import com.moilioncircle.redis.cluster.watchdog.codec.RedisDecoder;
 import com.moilioncircle.redis.cluster.watchdog.codec.RedisEncoder;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
 import com.moilioncircle.redis.cluster.watchdog.util.net.NioBootstrapImpl;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.TransportListener;
@@ -83,6 +84,7 @@ public class ThinServer implements Resourcable {
     private class RedisTransportListener extends TransportListener.Adaptor<byte[][]> {
         @Override
         public void onConnected(Transport<byte[][]> t) {
+            t.setAttachment(new ClientState());
             if (configuration.isVerbose()) logger.info("[acceptor] > " + t);
         }
         
@@ -17,17 +17,52 @@
 package com.moilioncircle.redis.cluster.watchdog.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ByteProcessor;
 
+import java.util.Arrays;
 import java.util.List;
 
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.PROTO_BULK_PREALLOC;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.PROTO_INLINE_MAX_SIZE;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.PROTO_MAX_BULK_LEN;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.PROTO_MAX_MULTIBULK_LEN;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.PROTO_MULTIBULK_PREALLOC;
+
 /**
+ * Resumable decoder of RESP requests. The progress of the current request is kept between
+ * reads, so a command is never parsed twice. Bulk arguments are copied into their final array
+ * as the bytes arrive and are not kept in the cumulation buffer until the request completes.
+ * <p>
+ * Lengths are announced by the client before any payload, so like redis-server at most
+ * {@code PROTO_MULTIBULK_PREALLOC} arguments and {@code PROTO_BULK_PREALLOC} bytes are allocated
+ * up front and the storage grows as the payload actually arrives.
+ * <p>
+ * Malformed input is answered with a protocol error and the connection is closed.
+ *
  * @author Leon Chen
  * @since 1.0.0
  */
 public class RedisDecoder extends ByteToMessageDecoder {
     
+    private static final int STATE_MULTIBULK = 0;
+    private static final int STATE_BULK_LENGTH = 1;
+    private static final int STATE_BULK = 2;
+    private static final int STATE_BULK_CRLF = 3;
+    private static final int STATE_DISCARD = 4;
+    
+    private int state = STATE_MULTIBULK;
+    
+    private int index;
+    private int argc;
+    private byte[][] args;
+    
+    private int offset;
+    private int length;
+    private byte[] bulk;
+    
     public static long parseLong(ByteBuf in) {
         long v = 0;
         int sign = 1;
@@ -46,70 +81,116 @@ public class RedisDecoder extends ByteToMessageDecoder {
         return v * sign;
     }
     
+    @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        in.markReaderIndex();
-        try {
-            Object request = decode(ctx, in);
-            if (request instanceof byte[][]) out.add(request);
-            else if (request instanceof byte[]) out.add(new byte[][]{(byte[]) request});
-        } catch (Exception e) {
-            in.resetReaderIndex();
+        while (in.isReadable()) {
+            switch (state) {
+                case STATE_MULTIBULK:
+                    long len = readLength(ctx, in, '*', PROTO_MAX_MULTIBULK_LEN, "invalid multibulk length");
+                    if (len == -2) return;
+                    if (len <= 0) continue;
+                    argc = (int) len;
+                    args = new byte[Math.min(argc, PROTO_MULTIBULK_PREALLOC)][];
+                    index = 0;
+                    state = STATE_BULK_LENGTH;
+                    break;
+                case STATE_BULK_LENGTH:
+                    len = readLength(ctx, in, '$', PROTO_MAX_BULK_LEN, "invalid bulk length");
+                    if (len == -2) return;
+                    if (len == -1) {
+                        if (next(out)) return;
+                        continue;
+                    }
+                    length = (int) len;
+                    bulk = new byte[Math.min(length, PROTO_BULK_PREALLOC)];
+                    offset = 0;
+                    state = length == 0 ? STATE_BULK_CRLF : STATE_BULK;
+                    break;
+                case STATE_BULK:
+                    int n = Math.min(in.readableBytes(), length - offset);
+                    if (offset + n > bulk.length) {
+                        int capacity = (int) Math.min(length, Math.max(offset + n, (long) bulk.length << 1));
+                        bulk = Arrays.copyOf(bulk, capacity);
+                    }
+                    in.readBytes(bulk, offset, n);
+                    offset += n;
+                    if (offset == length) state = STATE_BULK_CRLF;
+                    break;
+                case STATE_BULK_CRLF:
+                    if (in.readableBytes() < 2) return;
+                    if (in.readByte() != '\r' || in.readByte() != '\n') {
+                        error(ctx, in, "expected CRLF after bulk");
+                        return;
+                    }
+                    args[index] = bulk;
+                    bulk = null;
+                    if (next(out)) return;
+                    break;
+                case STATE_DISCARD:
+                default:
+                    in.skipBytes(in.readableBytes());
+                    return;
+            }
+        }
+    }
+    
+    private boolean next(List<Object> out) {
+        if (++index < argc) {
+            if (index == args.length) args = Arrays.copyOf(args, Math.min(argc, args.length << 1));
+            state = STATE_BULK_LENGTH;
+            return false;
         }
+        out.add(args);
+        args = null;
+        state = STATE_MULTIBULK;
+        return true;
     }
     
-    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) {
-        int c = in.readByte(), index, v;
-        byte[] rs;
-        switch (c) {
-            case '$':
-                //RESP Bulk Strings
-                v = (int) parseLong(in);
-                if (v == -1) return null;
-                rs = new byte[v];
-                in.readBytes(rs);
-                if (in.readByte() != '\r') ctx.close();
-                if (in.readByte() != '\n') ctx.close();
-                return rs;
-            case ':':
-                // RESP Integers
-                for (v = 0, index = in.readerIndex(); ; ) {
-                    while (in.readByte() != '\r') v++;
-                    if (in.readByte() != '\n') v++;
-                    else break;
-                }
-                rs = new byte[v];
-                in.getBytes(index, rs);
-                return rs;
-            case '*':
-                // RESP Arrays
-                v = (int) parseLong(in);
-                if (v == -1) return null;
-                byte[][] ary = new byte[v][];
-                for (int i = 0; i < v; i++) ary[i] = (byte[]) decode(ctx, in);
-                return ary;
-            case '+':
-                // RESP Simple Strings
-                for (v = 0, index = in.readerIndex(); ; ) {
-                    while (in.readByte() != '\r') v++;
-                    if (in.readByte() != '\n') v++;
-                    else break;
-                }
-                rs = new byte[v];
-                in.getBytes(index, rs);
-                return rs;
-            case '-':
-                // RESP Errors
-                for (v = 0, index = in.readerIndex(); ; ) {
-                    while (in.readByte() != '\r') v++;
-                    if (in.readByte() != '\n') v++;
-                    else break;
-                }
-                rs = new byte[v];
-                in.getBytes(index, rs);
-                return rs;
-            default:
-                ctx.close();
-                return null;
+    /**
+     * @return the length, -1 for a null length, -2 if the line is incomplete or invalid.
+     */
+    private long readLength(ChannelHandlerContext ctx, ByteBuf in, char prefix, long max, String message) {
+        int start = in.readerIndex();
+        if (in.getByte(start) != prefix) {
+            error(ctx, in, "expected '" + prefix + "', got '" + (char) in.getByte(start) + "'");
+            return -2;
+        }
+        int lf = in.forEachByte(start, Math.min(in.readableBytes(), PROTO_INLINE_MAX_SIZE), ByteProcessor.FIND_LF);
+        if (lf == -1) {
+            if (in.readableBytes() >= PROTO_INLINE_MAX_SIZE) error(ctx, in, "too big length line");
+            return -2;
+        }
+        long v = 0;
+        int i = start + 1, end = lf - 1;
+        boolean negative = i < end && in.getByte(i) == '-';
+        if (negative) i++;
+        if (i >= end || in.getByte(end) != '\r' || end - i > 18) {
+            error(ctx, in, message);
+            return -2;
         }
+        for (; i < end; i++) {
+            int d = in.getByte(i) - '0';
+            if (d < 0 || d > 9) {
+                error(ctx, in, message);
+                return -2;
+            }
+            v = v * 10 + d;
+        }
+        if (negative) v = -v;
+        if (v < -1 || v > max) {
+            error(ctx, in, message);
+            return -2;
+        }
+        in.readerIndex(lf + 1);
+        return v;
+    }
+    
+    private void error(ChannelHandlerContext ctx, ByteBuf in, String message) {
+        state = STATE_DISCARD;
+        args = null;
+        bulk = null;
+        in.skipBytes(in.readableBytes());
+        byte[] reply = ("-ERR Protocol error: " + message + "\r\n").getBytes();
+        ctx.writeAndFlush(reply).addListener(ChannelFutureListener.CLOSE);
     }
 }
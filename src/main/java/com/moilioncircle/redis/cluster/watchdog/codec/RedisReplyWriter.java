@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec;
+
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Encodes a whole RESP reply into one pooled {@link ByteBuf} so it is sent with a single
+ * {@link Transport#write(Object, boolean)}. Fragments are shared constants and integers are
+ * formatted in place.
+ * <p>
+ * The buffer is released by the transport once written. A writer that is not written must be
+ * released with {@link #release()}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RedisReplyWriter {
+    
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes();
+    private static final byte[] NULL_ARRAY = "*-1\r\n".getBytes();
+    private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE).getBytes();
+    
+    private final ByteBuf out;
+    
+    public RedisReplyWriter(ByteBuf out) {
+        this.out = out;
+    }
+    
+    public static RedisReplyWriter writer() {
+        return new RedisReplyWriter(PooledByteBufAllocator.DEFAULT.ioBuffer());
+    }
+    
+    public static RedisReplyWriter writer(int capacity) {
+        return new RedisReplyWriter(PooledByteBufAllocator.DEFAULT.ioBuffer(capacity));
+    }
+    
+    /**
+     * Writer over an unpooled heap buffer, for replies that are cached with {@link #toBytes()}.
+     */
+    public static RedisReplyWriter heapWriter(int capacity) {
+        return new RedisReplyWriter(Unpooled.buffer(capacity));
+    }
+    
+    public RedisReplyWriter status(CharSequence message) {
+        out.writeByte('+');
+        ByteBufUtil.writeUtf8(out, message);
+        out.writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter status(byte[] message) {
+        out.writeByte('+').writeBytes(message).writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter error(CharSequence message) {
+        out.writeByte('-');
+        ByteBufUtil.writeUtf8(out, message);
+        out.writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter error(byte[] message) {
+        out.writeByte('-').writeBytes(message).writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter integer(long value) {
+        out.writeByte(':');
+        writeLong(out, value);
+        out.writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter array(int size) {
+        out.writeByte('*');
+        writeLong(out, size);
+        out.writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter nullArray() {
+        out.writeBytes(NULL_ARRAY);
+        return this;
+    }
+    
+    public RedisReplyWriter bulk(byte[] value) {
+        if (value == null) return nullBulk();
+        out.writeByte('$');
+        writeLong(out, value.length);
+        out.writeBytes(CRLF).writeBytes(value).writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter bulk(CharSequence value) {
+        if (value == null) return nullBulk();
+        out.writeByte('$');
+        writeLong(out, utf8Length(value));
+        out.writeBytes(CRLF);
+        ByteBufUtil.writeUtf8(out, value);
+        out.writeBytes(CRLF);
+        return this;
+    }
+    
+    public RedisReplyWriter nullBulk() {
+        out.writeBytes(NULL_BULK);
+        return this;
+    }
+    
+    /**
+     * Appends already encoded RESP.
+     */
+    public RedisReplyWriter raw(byte[] value) {
+        out.writeBytes(value);
+        return this;
+    }
+    
+    public ByteBuf buffer() {
+        return out;
+    }
+    
+    public int size() {
+        return out.readableBytes();
+    }
+    
+    public void write(Transport<?> t, boolean flush) {
+        t.write(out, flush);
+    }
+    
+    public void release() {
+        out.release();
+    }
+    
+    /**
+     * Copies the reply out and releases the buffer.
+     */
+    public byte[] toBytes() {
+        try {
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+    
+    public static int utf8Length(CharSequence value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) length += 1;
+            else if (c < 0x800) length += 2;
+            else if (!Character.isSurrogate(c)) length += 3;
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else length += 1; // written as '?' by ByteBufUtil.writeUtf8
+        }
+        return length;
+    }
+    
+    public static void writeLong(ByteBuf out, long value) {
+        if (value == Long.MIN_VALUE) {
+            out.writeBytes(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            out.writeByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        out.ensureWritable(digits);
+        int index = out.writerIndex() + digits;
+        do {
+            out.setByte(--index, (int) ('0' + value % 10));
+            value /= 10;
+        } while (value != 0);
+        out.writerIndex(out.writerIndex() + digits);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import java.util.Arrays;
+
+/**
+ * Immutable byte string with value semantics, the element type of decoded sets and hash fields.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class Bytes implements Comparable<Bytes> {
+    
+    private final byte[] bytes;
+    private int hash;
+    
+    public Bytes(byte[] bytes) {
+        this.bytes = bytes;
+    }
+    
+    public byte[] getBytes() {
+        return bytes;
+    }
+    
+    public int length() {
+        return bytes.length;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(bytes, ((Bytes) o).bytes);
+    }
+    
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) hash = h = Arrays.hashCode(bytes);
+        return h;
+    }
+    
+    /**
+     * Unsigned lexicographic order, the order of {@code memcmp}.
+     */
+    @Override
+    public int compareTo(Bytes that) {
+        return compare(this.bytes, that.bytes);
+    }
+    
+    public static int compare(byte[] a, byte[] b) {
+        int len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return a.length - b.length;
+    }
+    
+    @Override
+    public String toString() {
+        return new String(bytes);
+    }
+}
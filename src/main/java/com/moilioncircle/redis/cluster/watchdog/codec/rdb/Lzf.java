@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import io.netty.buffer.ByteBuf;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.PROTO_MAX_BULK_LEN;
+
+/**
+ * LZF decompression of {@code RDB_ENC_LZF} strings, a port of {@code lzf_decompress}.
+ * <p>
+ * Both lengths come from the payload, so they are checked before anything is allocated: a back
+ * reference of 3 bytes expands to 264 bytes at most, which bounds {@code ulen} by {@code clen}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class Lzf {
+    
+    private static final int MAX_EXPANSION = 88;
+    
+    public static byte[] decompress(ByteBuf in, int clen, int ulen) {
+        if (clen > in.readableBytes() || ulen > (long) clen * MAX_EXPANSION || ulen > PROTO_MAX_BULK_LEN)
+            throw new IllegalArgumentException("Invalid LZF lengths: " + clen + ", " + ulen);
+        byte[] out = new byte[ulen];
+        int end = in.readerIndex() + clen, op = 0;
+        for (int ip = in.readerIndex(); ip < end; ) {
+            int ctrl = in.getUnsignedByte(ip++);
+            if (ctrl < 32) {
+                int len = ctrl + 1;
+                if (op + len > ulen || ip + len > end) throw new IllegalArgumentException("Invalid LZF data");
+                in.getBytes(ip, out, op, len);
+                ip += len;
+                op += len;
+            } else {
+                int len = ctrl >> 5;
+                int ref = op - ((ctrl & 0x1F) << 8) - 1;
+                if (len == 7) len += in.getUnsignedByte(ip++);
+                ref -= in.getUnsignedByte(ip++);
+                len += 2;
+                if (op + len > ulen || ref < 0) throw new IllegalArgumentException("Invalid LZF data");
+                // may overlap, copy forward
+                for (int i = 0; i < len; i++) out[op++] = out[ref++];
+            }
+        }
+        if (op != ulen) throw new IllegalArgumentException("Invalid LZF data");
+        in.skipBytes(clen);
+        return out;
+    }
+}
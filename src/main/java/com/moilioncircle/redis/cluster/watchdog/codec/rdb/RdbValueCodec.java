@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import com.moilioncircle.redis.cluster.watchdog.util.CRC64;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_DUMP_VERSION;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_VERSION;
+
+/**
+ * {@code DUMP} payloads: a RDB value followed by a 2 bytes RDB version and the 8 bytes CRC64 of
+ * everything before it, both little endian.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RdbValueCodec {
+    
+    private static final int TRAILER_LEN = 10;
+    
+    /**
+     * Same as {@code verifyDumpPayload}.
+     *
+     * @return false if the payload is truncated, of a newer RDB version or its checksum is wrong
+     */
+    public static boolean verify(byte[] payload) {
+        int len = payload.length;
+        if (len < TRAILER_LEN) return false;
+        int version = (payload[len - 10] & 0xFF) | (payload[len - 9] & 0xFF) << 8;
+        if (version > RDB_VERSION) return false;
+        long crc = 0;
+        for (int i = 1; i <= 8; i++) crc = crc << 8 | (payload[len - i] & 0xFF);
+        return crc == CRC64.crc64(payload, 0, len - 8);
+    }
+    
+    /**
+     * Decodes a payload already checked by {@link #verify(byte[])}.
+     *
+     * @throws IllegalArgumentException if the value is malformed or of an unsupported type
+     */
+    public static Object decode(byte[] payload) {
+        if (payload.length < TRAILER_LEN) throw new IllegalArgumentException("Truncated payload");
+        ByteBuf in = Unpooled.wrappedBuffer(payload, 0, payload.length - TRAILER_LEN);
+        try {
+            Object value = RdbValueDecoder.decode(in);
+            if (in.isReadable()) throw new IllegalArgumentException("Trailing bytes: " + in.readableBytes());
+            return value;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated value", e);
+        }
+    }
+    
+    public static byte[] encode(Object value) {
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            encode(value, out);
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+    
+    /**
+     * Appends the whole payload of {@code value} to {@code out}.
+     */
+    public static void encode(Object value, ByteBuf out) {
+        int index = out.writerIndex();
+        RdbValueEncoder.encode(value, out);
+        out.writeShortLE(RDB_DUMP_VERSION);
+        out.writeLongLE(CRC64.update(0, out, index, out.writerIndex() - index));
+    }
+}
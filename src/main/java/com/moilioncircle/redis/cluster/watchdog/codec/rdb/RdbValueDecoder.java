@@ -0,0 +1,436 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_HASH;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_HASH_LISTPACK;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_HASH_ZIPLIST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_HASH_ZIPMAP;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_LIST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_LIST_QUICKLIST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_LIST_QUICKLIST_2;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_LIST_ZIPLIST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_SET;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_SET_INTSET;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_SET_LISTPACK;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_STRING;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_ZSET;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_ZSET_2;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_ZSET_LISTPACK;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_ZSET_ZIPLIST;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Decodes a RDB value straight from a {@link ByteBuf}. Strings are {@code byte[]}, lists {@code List<byte[]>},
+ * sets {@code Set<Bytes>}, hashes {@code Map<Bytes, byte[]>} and sorted sets {@code SortedSet<ZSetEntry>},
+ * whatever the encoding they were dumped with. Ziplists, listpacks, intsets and zipmaps are walked in place
+ * through slices of the input, only LZF compressed blobs are copied.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RdbValueDecoder {
+    
+    private static final int RDB_ENCVAL = 3;
+    private static final int RDB_32BITLEN = 0x80;
+    private static final int RDB_64BITLEN = 0x81;
+    private static final int RDB_ENC_INT8 = 0;
+    private static final int RDB_ENC_INT16 = 1;
+    private static final int RDB_ENC_INT32 = 2;
+    private static final int RDB_ENC_LZF = 3;
+    
+    private static final int QUICKLIST_NODE_CONTAINER_PLAIN = 1;
+    private static final int QUICKLIST_NODE_CONTAINER_PACKED = 2;
+    
+    public static Object decode(ByteBuf in) {
+        return decode(in, in.readUnsignedByte());
+    }
+    
+    public static Object decode(ByteBuf in, int type) {
+        switch (type) {
+            case RDB_TYPE_STRING:
+                return readString(in);
+            case RDB_TYPE_LIST:
+                return readList(in);
+            case RDB_TYPE_SET:
+                return readSet(in);
+            case RDB_TYPE_ZSET:
+                return readZSet(in, false);
+            case RDB_TYPE_ZSET_2:
+                return readZSet(in, true);
+            case RDB_TYPE_HASH:
+                return readHash(in);
+            case RDB_TYPE_HASH_ZIPMAP:
+                return zipmap(readBlob(in));
+            case RDB_TYPE_LIST_ZIPLIST:
+                return ziplist(readBlob(in), new ArrayList<>());
+            case RDB_TYPE_SET_INTSET:
+                return intset(readBlob(in));
+            case RDB_TYPE_SET_LISTPACK:
+                return toSet(listpack(readBlob(in), new ArrayList<>()));
+            case RDB_TYPE_ZSET_ZIPLIST:
+                return toZSet(ziplist(readBlob(in), new ArrayList<>()));
+            case RDB_TYPE_ZSET_LISTPACK:
+                return toZSet(listpack(readBlob(in), new ArrayList<>()));
+            case RDB_TYPE_HASH_ZIPLIST:
+                return toHash(ziplist(readBlob(in), new ArrayList<>()));
+            case RDB_TYPE_HASH_LISTPACK:
+                return toHash(listpack(readBlob(in), new ArrayList<>()));
+            case RDB_TYPE_LIST_QUICKLIST:
+                return readQuickList(in);
+            case RDB_TYPE_LIST_QUICKLIST_2:
+                return readQuickList2(in);
+            default:
+                throw new IllegalArgumentException("Unsupported rdb type: " + type);
+        }
+    }
+    
+    /*
+     * rdb
+     */
+    
+    private static int readLength(ByteBuf in) {
+        int b = in.readUnsignedByte();
+        long len;
+        switch (b >>> 6) {
+            case 0:
+                return b & 0x3F;
+            case 1:
+                return ((b & 0x3F) << 8) | in.readUnsignedByte();
+            case 2:
+                if (b == RDB_32BITLEN) len = in.readUnsignedInt();
+                else if (b == RDB_64BITLEN) len = in.readLong();
+                else throw new IllegalArgumentException("Unknown length encoding: " + b);
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected encoded length: " + b);
+        }
+        if (len < 0 || len > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid length: " + len);
+        return (int) len;
+    }
+    
+    /**
+     * Reads a string that is not an integer, as a slice of {@code in} unless it is compressed.
+     */
+    private static ByteBuf readBlob(ByteBuf in) {
+        int b = in.getUnsignedByte(in.readerIndex());
+        if ((b >>> 6) != RDB_ENCVAL) return in.readSlice(readLength(in));
+        if ((b & 0x3F) != RDB_ENC_LZF) throw new IllegalArgumentException("Unexpected integer encoding: " + b);
+        in.skipBytes(1);
+        int clen = readLength(in), ulen = readLength(in);
+        return Unpooled.wrappedBuffer(Lzf.decompress(in, clen, ulen));
+    }
+    
+    private static byte[] readString(ByteBuf in) {
+        int b = in.getUnsignedByte(in.readerIndex());
+        if ((b >>> 6) != RDB_ENCVAL) return bytes(in, readLength(in));
+        in.skipBytes(1);
+        switch (b & 0x3F) {
+            case RDB_ENC_INT8:
+                return integer(in.readByte());
+            case RDB_ENC_INT16:
+                return integer(in.readShortLE());
+            case RDB_ENC_INT32:
+                return integer(in.readIntLE());
+            case RDB_ENC_LZF:
+                int clen = readLength(in), ulen = readLength(in);
+                return Lzf.decompress(in, clen, ulen);
+            default:
+                throw new IllegalArgumentException("Unknown string encoding: " + b);
+        }
+    }
+    
+    private static double readDouble(ByteBuf in) {
+        int len = in.readUnsignedByte();
+        switch (len) {
+            case 253:
+                return Double.NaN;
+            case 254:
+                return Double.POSITIVE_INFINITY;
+            case 255:
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return parseDouble(bytes(in, len));
+        }
+    }
+    
+    private static List<byte[]> readList(ByteBuf in) {
+        int len = readLength(in);
+        List<byte[]> list = new ArrayList<>(capacity(in, len));
+        for (int i = 0; i < len; i++) list.add(readString(in));
+        return list;
+    }
+    
+    private static Set<Bytes> readSet(ByteBuf in) {
+        int len = readLength(in);
+        Set<Bytes> set = new LinkedHashSet<>(capacity(in, len) * 4 / 3 + 1);
+        for (int i = 0; i < len; i++) set.add(new Bytes(readString(in)));
+        return set;
+    }
+    
+    private static TreeSet<ZSetEntry> readZSet(ByteBuf in, boolean binary) {
+        int len = readLength(in);
+        TreeSet<ZSetEntry> zset = new TreeSet<>();
+        for (int i = 0; i < len; i++) {
+            byte[] member = readString(in);
+            double score = binary ? Double.longBitsToDouble(in.readLongLE()) : readDouble(in);
+            zset.add(new ZSetEntry(member, score));
+        }
+        return zset;
+    }
+    
+    private static Map<Bytes, byte[]> readHash(ByteBuf in) {
+        int len = readLength(in);
+        Map<Bytes, byte[]> hash = new LinkedHashMap<>(capacity(in, len) * 4 / 3 + 1);
+        for (int i = 0; i < len; i++) hash.put(new Bytes(readString(in)), readString(in));
+        return hash;
+    }
+    
+    private static List<byte[]> readQuickList(ByteBuf in) {
+        int len = readLength(in);
+        List<byte[]> list = new ArrayList<>();
+        for (int i = 0; i < len; i++) ziplist(readBlob(in), list);
+        return list;
+    }
+    
+    private static List<byte[]> readQuickList2(ByteBuf in) {
+        int len = readLength(in);
+        List<byte[]> list = new ArrayList<>();
+        for (int i = 0; i < len; i++) {
+            int container = readLength(in);
+            if (container == QUICKLIST_NODE_CONTAINER_PLAIN) list.add(readString(in));
+            else if (container == QUICKLIST_NODE_CONTAINER_PACKED) listpack(readBlob(in), list);
+            else throw new IllegalArgumentException("Unknown quicklist container: " + container);
+        }
+        return list;
+    }
+    
+    /*
+     * compact encodings
+     */
+    
+    private static List<byte[]> ziplist(ByteBuf zl, List<byte[]> list) {
+        zl.skipBytes(10); // zlbytes, zltail, zllen
+        while (true) {
+            int prevlen = zl.readUnsignedByte();
+            if (prevlen == 0xFF) return list;
+            if (prevlen == 0xFE) zl.skipBytes(4);
+            int b = zl.readUnsignedByte();
+            switch (b >>> 6) {
+                case 0:
+                    list.add(bytes(zl, b & 0x3F));
+                    continue;
+                case 1:
+                    list.add(bytes(zl, ((b & 0x3F) << 8) | zl.readUnsignedByte()));
+                    continue;
+                case 2:
+                    list.add(bytes(zl, length(zl.readUnsignedInt())));
+                    continue;
+            }
+            switch (b) {
+                case 0xC0:
+                    list.add(integer(zl.readShortLE()));
+                    break;
+                case 0xD0:
+                    list.add(integer(zl.readIntLE()));
+                    break;
+                case 0xE0:
+                    list.add(integer(zl.readLongLE()));
+                    break;
+                case 0xF0:
+                    list.add(integer(zl.readMediumLE()));
+                    break;
+                case 0xFE:
+                    list.add(integer(zl.readByte()));
+                    break;
+                default:
+                    // 4 bit immediate 1..13 stands for 0..12
+                    if (b < 0xF1 || b > 0xFD) throw new IllegalArgumentException("Unknown ziplist encoding: " + b);
+                    list.add(integer((b & 0x0F) - 1));
+            }
+        }
+    }
+    
+    private static List<byte[]> listpack(ByteBuf lp, List<byte[]> list) {
+        lp.skipBytes(6); // total bytes, num elements
+        while (true) {
+            int b = lp.readUnsignedByte();
+            if (b == 0xFF) return list;
+            int len;
+            if ((b & 0x80) == 0) {
+                list.add(integer(b));
+                len = 1;
+            } else if ((b & 0xC0) == 0x80) {
+                list.add(bytes(lp, len = b & 0x3F));
+                len += 1;
+            } else if ((b & 0xE0) == 0xC0) {
+                int v = ((b & 0x1F) << 8) | lp.readUnsignedByte();
+                list.add(integer(v >= 1 << 12 ? v - (1 << 13) : v));
+                len = 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                list.add(bytes(lp, len = ((b & 0x0F) << 8) | lp.readUnsignedByte()));
+                len += 2;
+            } else {
+                switch (b) {
+                    case 0xF0:
+                        list.add(bytes(lp, len = length(lp.readUnsignedIntLE())));
+                        len += 5;
+                        break;
+                    case 0xF1:
+                        list.add(integer(lp.readShortLE()));
+                        len = 3;
+                        break;
+                    case 0xF2:
+                        list.add(integer(lp.readMediumLE()));
+                        len = 4;
+                        break;
+                    case 0xF3:
+                        list.add(integer(lp.readIntLE()));
+                        len = 5;
+                        break;
+                    case 0xF4:
+                        list.add(integer(lp.readLongLE()));
+                        len = 9;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown listpack encoding: " + b);
+                }
+            }
+            // back length of the entry
+            lp.skipBytes(len <= 127 ? 1 : len < 16383 ? 2 : len < 2097151 ? 3 : len < 268435455 ? 4 : 5);
+        }
+    }
+    
+    private static Set<Bytes> intset(ByteBuf is) {
+        int encoding = is.readIntLE();
+        int len = length(is.readUnsignedIntLE());
+        Set<Bytes> set = new LinkedHashSet<>(capacity(is, len) * 4 / 3 + 1);
+        for (int i = 0; i < len; i++) {
+            switch (encoding) {
+                case 2:
+                    set.add(new Bytes(integer(is.readShortLE())));
+                    break;
+                case 4:
+                    set.add(new Bytes(integer(is.readIntLE())));
+                    break;
+                case 8:
+                    set.add(new Bytes(integer(is.readLongLE())));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown intset encoding: " + encoding);
+            }
+        }
+        return set;
+    }
+    
+    private static Map<Bytes, byte[]> zipmap(ByteBuf zm) {
+        zm.skipBytes(1); // zmlen
+        Map<Bytes, byte[]> hash = new LinkedHashMap<>();
+        while (true) {
+            int len = zipmapLength(zm);
+            if (len < 0) return hash;
+            Bytes field = new Bytes(bytes(zm, len));
+            len = zipmapLength(zm);
+            int free = zm.readUnsignedByte();
+            hash.put(field, bytes(zm, len));
+            zm.skipBytes(free);
+        }
+    }
+    
+    private static int zipmapLength(ByteBuf zm) {
+        int b = zm.readUnsignedByte();
+        if (b < 254) return b;
+        if (b == 254) return length(zm.readUnsignedIntLE());
+        return -1;
+    }
+    
+    private static Set<Bytes> toSet(List<byte[]> list) {
+        Set<Bytes> set = new LinkedHashSet<>(list.size() * 4 / 3 + 1);
+        for (byte[] element : list) set.add(new Bytes(element));
+        return set;
+    }
+    
+    private static Map<Bytes, byte[]> toHash(List<byte[]> list) {
+        if ((list.size() & 1) != 0) throw new IllegalArgumentException("Odd hash entries: " + list.size());
+        Map<Bytes, byte[]> hash = new LinkedHashMap<>(list.size() * 2 / 3 + 1);
+        for (int i = 0; i < list.size(); i += 2) hash.put(new Bytes(list.get(i)), list.get(i + 1));
+        return hash;
+    }
+    
+    private static TreeSet<ZSetEntry> toZSet(List<byte[]> list) {
+        if ((list.size() & 1) != 0) throw new IllegalArgumentException("Odd zset entries: " + list.size());
+        TreeSet<ZSetEntry> zset = new TreeSet<>();
+        for (int i = 0; i < list.size(); i += 2) zset.add(new ZSetEntry(list.get(i), parseDouble(list.get(i + 1))));
+        return zset;
+    }
+    
+    /*
+     * util
+     */
+    
+    private static byte[] bytes(ByteBuf in, int len) {
+        if (len > in.readableBytes()) throw new IllegalArgumentException("Invalid length: " + len);
+        byte[] bytes = new byte[len];
+        in.readBytes(bytes);
+        return bytes;
+    }
+    
+    private static byte[] integer(long value) {
+        return Long.toString(value).getBytes(US_ASCII);
+    }
+    
+    private static int length(long len) {
+        if (len > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid length: " + len);
+        return (int) len;
+    }
+    
+    /**
+     * Every element takes a byte at least, a forged length must not allocate more than the input.
+     */
+    private static int capacity(ByteBuf in, int len) {
+        return Math.min(len, in.readableBytes());
+    }
+    
+    private static double parseDouble(byte[] bytes) {
+        String s = new String(bytes, US_ASCII);
+        switch (s.toLowerCase()) {
+            case "inf":
+            case "+inf":
+            case "infinity":
+            case "+infinity":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+            case "-infinity":
+                return Double.NEGATIVE_INFINITY;
+            case "nan":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(s);
+        }
+    }
+}
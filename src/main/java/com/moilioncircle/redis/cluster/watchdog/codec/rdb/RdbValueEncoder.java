@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_HASH;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_LIST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_SET;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_STRING;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.RDB_TYPE_ZSET;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes a value with the plain RDB types every cluster enabled redis loads, so the payload can be
+ * restored by a real redis too. Small integer strings are integer encoded, nothing is compressed.
+ * <p>
+ * Accepts the values produced by {@link RdbValueDecoder}, elements may also be {@code CharSequence}s.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RdbValueEncoder {
+    
+    public static void encode(Object value, ByteBuf out) {
+        if (value instanceof byte[] || value instanceof CharSequence) {
+            out.writeByte(RDB_TYPE_STRING);
+            writeString(out, bytes(value));
+        } else if (value instanceof List) {
+            out.writeByte(RDB_TYPE_LIST);
+            writeStrings(out, (List<?>) value);
+        } else if (value instanceof SortedSet) {
+            out.writeByte(RDB_TYPE_ZSET);
+            Collection<?> zset = (Collection<?>) value;
+            writeLength(out, zset.size());
+            for (Object element : zset) {
+                if (!(element instanceof ZSetEntry))
+                    throw new IllegalArgumentException("Unsupported zset element: " + element.getClass().getName());
+                ZSetEntry entry = (ZSetEntry) element;
+                writeString(out, entry.getMember());
+                writeDouble(out, entry.getScore());
+            }
+        } else if (value instanceof Set) {
+            out.writeByte(RDB_TYPE_SET);
+            writeStrings(out, (Set<?>) value);
+        } else if (value instanceof Map) {
+            out.writeByte(RDB_TYPE_HASH);
+            Map<?, ?> hash = (Map<?, ?>) value;
+            writeLength(out, hash.size());
+            for (Map.Entry<?, ?> entry : hash.entrySet()) {
+                writeString(out, bytes(entry.getKey()));
+                writeString(out, bytes(entry.getValue()));
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value: " + (value == null ? null : value.getClass().getName()));
+        }
+    }
+    
+    private static void writeStrings(ByteBuf out, Collection<?> elements) {
+        writeLength(out, elements.size());
+        for (Object element : elements) writeString(out, bytes(element));
+    }
+    
+    private static void writeLength(ByteBuf out, long len) {
+        if (len < 1 << 6) {
+            out.writeByte((int) len);
+        } else if (len < 1 << 14) {
+            out.writeByte(0x40 | (int) (len >>> 8)).writeByte((int) len);
+        } else if (len <= 0xFFFFFFFFL) {
+            out.writeByte(0x80).writeInt((int) len);
+        } else {
+            out.writeByte(0x81).writeLong(len);
+        }
+    }
+    
+    private static void writeString(ByteBuf out, byte[] value) {
+        if (writeInteger(out, value)) return;
+        writeLength(out, value.length);
+        out.writeBytes(value);
+    }
+    
+    /**
+     * Same as {@code rdbTryIntegerEncoding}, only canonical integers that fit in 32 bits.
+     */
+    private static boolean writeInteger(ByteBuf out, byte[] value) {
+        int len = value.length, i = 0;
+        if (len == 0 || len > 11) return false;
+        boolean negative = value[0] == '-';
+        if (negative && ++i == len) return false;
+        if (value[i] == '0' && (negative || len > 1)) return false;
+        long v = 0;
+        for (; i < len; i++) {
+            if (value[i] < '0' || value[i] > '9') return false;
+            v = v * 10 + (value[i] - '0');
+        }
+        if (negative) v = -v;
+        if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+            out.writeByte(0xC0).writeByte((int) v);
+        } else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+            out.writeByte(0xC1).writeShortLE((int) v);
+        } else if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
+            out.writeByte(0xC2).writeIntLE((int) v);
+        } else {
+            return false;
+        }
+        return true;
+    }
+    
+    private static void writeDouble(ByteBuf out, double value) {
+        if (Double.isNaN(value)) {
+            out.writeByte(253);
+        } else if (value == Double.POSITIVE_INFINITY) {
+            out.writeByte(254);
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            out.writeByte(255);
+        } else {
+            String s = value == Math.rint(value) && Math.abs(value) < 1L << 53 ? Long.toString((long) value) : Double.toString(value);
+            out.writeByte(s.length()).writeBytes(s.getBytes(US_ASCII));
+        }
+    }
+    
+    private static byte[] bytes(Object value) {
+        if (value instanceof byte[]) return (byte[]) value;
+        if (value instanceof Bytes) return ((Bytes) value).getBytes();
+        if (value instanceof CharSequence) return value.toString().getBytes(UTF_8);
+        throw new IllegalArgumentException("Unsupported element: " + (value == null ? null : value.getClass().getName()));
+    }
+}
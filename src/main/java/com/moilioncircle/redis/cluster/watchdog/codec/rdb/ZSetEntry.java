@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set member, ordered by score then member like the skiplist of a sorted set.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class ZSetEntry implements Comparable<ZSetEntry> {
+    
+    private final byte[] member;
+    private final double score;
+    
+    public ZSetEntry(byte[] member, double score) {
+        this.member = member;
+        this.score = score;
+    }
+    
+    public byte[] getMember() {
+        return member;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    @Override
+    public int compareTo(ZSetEntry that) {
+        int cmp = Double.compare(this.score, that.score);
+        return cmp != 0 ? cmp : Bytes.compare(this.member, that.member);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return compareTo((ZSetEntry) o) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(score) + Arrays.hashCode(member);
+    }
+    
+    @Override
+    public String toString() {
+        return new String(member) + ":" + score;
+    }
+}
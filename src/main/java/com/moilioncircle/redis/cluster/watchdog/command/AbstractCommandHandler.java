@@ -20,6 +20,7 @@ import com.moilioncircle.redis.cluster.watchdog.ClusterConfiguration;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
 import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
 /**
  * @author Leon Chen
@@ -35,6 +36,14 @@ public abstract class AbstractCommandHandler extends CommandHandler.Adaptor {
         this.server = managers.server;
     }
     
+    @Override
+    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+        handle(t, rawMessage);
+    }
+    
+    @Override
+    public abstract void handle(Transport<byte[][]> t, byte[][] message);
+    
     @Override
     public StorageEngine getStorageEngine() {
         return managers.engine;
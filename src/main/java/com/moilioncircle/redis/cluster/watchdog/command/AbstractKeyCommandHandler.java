@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+/**
+ * Base of the read commands served from the {@link com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public abstract class AbstractKeyCommandHandler extends AbstractCommandHandler {
+    
+    protected static final String WRONGTYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+    
+    public AbstractKeyCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+    
+    /**
+     * @return true if the keys {@code message[first..]} are not served by this node, the redirect is already replied.
+     */
+    protected boolean redirect(Transport<byte[][]> t, byte[][] message, int first) {
+        for (int i = first; i < message.length; i++) {
+            if (message[i] != null) continue;
+            replyError(t, "ERR Invalid key: null");
+            return true;
+        }
+        String error = managers.redirects.clusterRedirect((ClientState) t.getAttachment(), message, first);
+        if (error == null) return false;
+        replyError(t, error);
+        return true;
+    }
+    
+    protected static boolean isString(Object value) {
+        return value instanceof byte[] || value instanceof CharSequence;
+    }
+    
+    protected static RedisReplyWriter bulk(RedisReplyWriter writer, Object value) {
+        if (value instanceof byte[]) return writer.bulk((byte[]) value);
+        return writer.bulk((CharSequence) value);
+    }
+}
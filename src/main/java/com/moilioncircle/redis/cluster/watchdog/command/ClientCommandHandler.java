@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClientCommandHandler extends AbstractCommandHandler {
+    
+    public ClientCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+    
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        ClientState client = (ClientState) t.getAttachment();
+        if (message.length == 3 && equalsIgnoreCase(message[1], "setname")) {
+            byte[] name = message[2];
+            if (name == null) {
+                replyError(t, "ERR Invalid client name: null");
+                return;
+            }
+            for (byte b : name) {
+                if (b < '!' || b > '~') {
+                    replyError(t, "ERR Client names cannot contain spaces, newlines or special characters.");
+                    return;
+                }
+            }
+            if (client != null) client.name = name.length == 0 ? null : string(name);
+            reply(t, "OK");
+        } else if (message.length == 2 && equalsIgnoreCase(message[1], "getname")) {
+            replyBulk(t, client == null ? null : client.name);
+        } else if (message.length == 2 && equalsIgnoreCase(message[1], "id")) {
+            replyNumber(t, t.getId());
+        } else {
+            replyError(t, "ERR Syntax error, try CLIENT (ID | GETNAME | SETNAME connection-name)");
+        }
+    }
+}
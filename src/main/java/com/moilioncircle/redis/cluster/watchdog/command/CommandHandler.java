@@ -20,6 +20,9 @@ import com.moilioncircle.redis.cluster.watchdog.ClusterConfiguration;
 import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.writer;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
+
 /**
  * @author Leon Chen
  * @since 1.0.0
@@ -35,6 +38,16 @@ public interface CommandHandler {
     
     void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage);
     
+    /**
+     * Entry point used by the dispatcher. Handlers that only need a few arguments as strings
+     * override this and decode them on demand, the default decodes all of them.
+     */
+    default void handle(Transport<byte[][]> t, byte[][] message) {
+        String[] strings = new String[message.length];
+        for (int i = 0; i < message.length; i++) strings[i] = string(message[i]);
+        handle(t, strings, message);
+    }
+    
     abstract class Adaptor implements CommandHandler {
         protected StorageEngine storageEngine;
         protected ClusterConfiguration configuration;
@@ -63,37 +76,31 @@ public interface CommandHandler {
          *
          */
         protected void reply(Transport<byte[][]> t, String message) {
-            reply(t, message.getBytes());
+            writer().status(message).write(t, true);
         }
         
         protected void reply(Transport<byte[][]> t, byte[] message) {
-            t.write("+".getBytes(), false);
-            t.write(message, false);
-            t.write("\r\n".getBytes(), true);
+            writer().status(message).write(t, true);
         }
         
         protected void replyNumber(Transport<byte[][]> t, long number) {
-            t.write((":" + number + "\r\n").getBytes(), true);
+            writer().integer(number).write(t, true);
         }
         
         protected void replyBulk(Transport<byte[][]> t, String message) {
-            replyBulk(t, message.getBytes());
+            writer().bulk(message).write(t, true);
         }
         
         protected void replyBulk(Transport<byte[][]> t, byte[] message) {
-            t.write(("$" + message.length + "\r\n").getBytes(), false);
-            t.write(message, false);
-            t.write("\r\n".getBytes(), true);
+            writer().bulk(message).write(t, true);
         }
         
         protected void replyError(Transport<byte[][]> t, String message) {
-            replyError(t, message.getBytes());
+            writer().error(message).write(t, true);
         }
         
         protected void replyError(Transport<byte[][]> t, byte[] message) {
-            t.write("-".getBytes(), false);
-            t.write(message, false);
-            t.write("\r\n".getBytes(), true);
+            writer().error(message).write(t, true);
         }
     }
 }
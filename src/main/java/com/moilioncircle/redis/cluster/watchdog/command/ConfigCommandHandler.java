@@ -19,7 +19,8 @@ package com.moilioncircle.redis.cluster.watchdog.command;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
-import static java.lang.Long.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
 
 /**
  * @author Leon Chen
@@ -32,9 +33,9 @@ public class ConfigCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
-        if (message.length == 4 && message[1] != null && message[1].equalsIgnoreCase("set")) {
-            if (message[2] == null || !message[2].equalsIgnoreCase("cluster-node-timeout")) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length == 4 && message[1] != null && equalsIgnoreCase(message[1], "set")) {
+            if (message[2] == null || !equalsIgnoreCase(message[2], "cluster-node-timeout")) {
                 replyError(t, "ERR wrong number of arguments for 'config' command");
                 return;
             }
@@ -49,7 +50,7 @@ public class ConfigCommandHandler extends AbstractCommandHandler {
             } catch (Exception e) {
                 replyError(t, "ERR wrong number of arguments for 'config' command");
             }
-        } else if (message.length == 2 && message[1] != null && message[1].equalsIgnoreCase("rewrite")) {
+        } else if (message.length == 2 && message[1] != null && equalsIgnoreCase(message[1], "rewrite")) {
             reply(t, "OK");
         } else {
             replyError(t, "ERR wrong number of arguments for 'config' command");
@@ -30,7 +30,7 @@ public class DBSizeCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length == 1) replyNumber(t, managers.engine.size());
         else replyError(t, "ERR wrong number of arguments for 'dbsize' command");
     }
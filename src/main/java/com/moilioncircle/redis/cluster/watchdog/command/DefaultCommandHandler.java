@@ -18,45 +18,58 @@ package com.moilioncircle.redis.cluster.watchdog.command;
 
 import com.moilioncircle.redis.cluster.watchdog.command.cluster.ClusterCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.util.collection.CaseInsensitiveMap;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * @author Leon Chen
  * @since 1.0.0
  */
 public class DefaultCommandHandler extends AbstractCommandHandler {
     
-    private Map<String, CommandHandler> handlers = new ConcurrentHashMap<>();
+    private CaseInsensitiveMap<CommandHandler> handlers = new CaseInsensitiveMap<>();
     
     public DefaultCommandHandler(ClusterManagers managers) {
         super(managers);
         addCommandHandler("ping", new PingCommandHandler(managers));
+        addCommandHandler("get", new GetCommandHandler(managers));
         addCommandHandler("info", new InfoCommandHandler(managers));
         addCommandHandler("dump", new DumpCommandHandler(managers));
+        addCommandHandler("mget", new MGetCommandHandler(managers));
+        addCommandHandler("scan", new ScanCommandHandler(managers));
+        addCommandHandler("type", new TypeCommandHandler(managers));
+        addCommandHandler("asking", new AskingCommandHandler(managers));
+        addCommandHandler("client", new ClientCommandHandler(managers));
+        addCommandHandler("migrate", new MigrateCommandHandler(managers));
+        addCommandHandler("ttl", new TTLCommandHandler(managers, false));
+        addCommandHandler("pttl", new TTLCommandHandler(managers, true));
         addCommandHandler("dbsize", new DBSizeCommandHandler(managers));
         addCommandHandler("config", new ConfigCommandHandler(managers));
+        addCommandHandler("exists", new ExistsCommandHandler(managers));
+        addCommandHandler("strlen", new StrLenCommandHandler(managers));
         addCommandHandler("select", new SelectCommandHandler(managers));
         addCommandHandler("cluster", new ClusterCommandHandler(managers));
         addCommandHandler("restore", new RestoreCommandHandler(managers));
         addCommandHandler("shutdown", new ShutdownCommandHandler(managers));
         addCommandHandler("readonly", new ReadonlyCommandHandler(managers));
         addCommandHandler("readwrite", new ReadWriteCommandHandler(managers));
-        addCommandHandler("restore-asking", new RestoreCommandHandler(managers));
+        addCommandHandler("restore-asking", new RestoreCommandHandler(managers, true));
     }
     
     public CommandHandler get(String name) {
-        return handlers.get(name.toLowerCase());
+        return handlers.get(name);
+    }
+    
+    public CommandHandler get(byte[] name) {
+        return handlers.get(name);
     }
     
     public CommandHandler addCommandHandler(String name, CommandHandler handler) {
-        return handlers.put(name.toLowerCase(), handler);
+        return handlers.put(name, handler);
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length <= 0 || message[0] == null) {
             replyError(t, "ERR Unsupported COMMAND");
             return;
@@ -66,7 +79,7 @@ public class DefaultCommandHandler extends AbstractCommandHandler {
             replyError(t, "ERR Unsupported COMMAND");
             return;
         }
-        handler.handle(t, message, rawMessage);
+        handler.handle(t, message);
     }
     
 }
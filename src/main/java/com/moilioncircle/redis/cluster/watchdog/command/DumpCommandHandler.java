@@ -30,17 +30,24 @@ public class DumpCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
-        if (rawMessage.length != 2) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length != 2) {
             replyError(t, "ERR wrong number of arguments for 'dump' command");
             return;
         }
         
-        byte[] key = rawMessage[1];
+        byte[] key = message[1];
         if (key == null) {
             replyError(t, "ERR Invalid key: null");
             return;
         }
-        replyBulk(t, managers.engine.dump(key));
+        byte[] payload;
+        try {
+            payload = managers.engine.dump(key);
+        } catch (IllegalArgumentException e) {
+            replyError(t, "ERR " + e.getMessage());
+            return;
+        }
+        replyBulk(t, payload);
     }
 }
@@ -16,9 +16,16 @@
 
 package com.moilioncircle.redis.cluster.watchdog.command;
 
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterImportManager;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterInboundManager;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterLazyFreeManager;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterMigrateManager;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 /**
  * @author Leon Chen
  * @since 1.0.0
@@ -30,11 +37,54 @@ public class InfoCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length == 1 || message.length == 2) {
-            replyBulk(t, "cluster_enabled:1\r\n");
+            replyBulk(t, clusterGenInfo());
         } else {
             replyError(t, "ERR wrong number of arguments for 'info' command");
         }
     }
+    
+    protected String clusterGenInfo() {
+        ClusterInboundManager inbounds = managers.inbounds;
+        long processed = 0L;
+        StringBuilder info = new StringBuilder();
+        info.append("cluster_enabled:1\r\n");
+        for (int i = 0; i < inbounds.getLanes(); i++) {
+            String lane = "cluster_bus_" + inbounds.getLaneName(i);
+            processed += inbounds.getProcessed(i);
+            info.append(lane).append("_queue_depth:").append(inbounds.getQueueDepth(i)).append("\r\n");
+            info.append(lane).append("_queue_capacity:").append(inbounds.getQueueCapacity(i)).append("\r\n");
+            info.append(lane).append("_messages_processed:").append(inbounds.getProcessed(i)).append("\r\n");
+            info.append(lane).append("_queue_wait_avg_us:").append(avg(inbounds.getWaitTime(i), inbounds.getProcessed(i))).append("\r\n");
+            info.append(lane).append("_queue_wait_max_us:").append(NANOSECONDS.toMicros(inbounds.getMaxWaitTime(i))).append("\r\n");
+        }
+        info.append("cluster_bus_messages_processed:").append(processed).append("\r\n");
+        info.append("cluster_bus_messages_dropped:").append(inbounds.getDropped()).append("\r\n");
+        info.append("cluster_bus_messages_overflowed:").append(inbounds.getOverflowed()).append("\r\n");
+        info.append("cluster_bus_handle_avg_us:").append(avg(inbounds.getHandleTime(), processed)).append("\r\n");
+        info.append("cluster_bus_handle_max_us:").append(NANOSECONDS.toMicros(inbounds.getMaxHandleTime())).append("\r\n");
+        ClusterEventManager events = managers.events;
+        info.append("cluster_event_listeners:").append(events.getListeners()).append("\r\n");
+        info.append("cluster_event_batches:").append(events.getPublishedBatches()).append("\r\n");
+        info.append("cluster_event_events:").append(events.getPublishedEvents()).append("\r\n");
+        info.append("cluster_event_merged_batches:").append(events.getMergedBatches()).append("\r\n");
+        ClusterLazyFreeManager lazyfrees = managers.lazyfrees;
+        info.append("lazyfree_pending_slots:").append(lazyfrees.getPendingSlots()).append("\r\n");
+        info.append("lazyfree_freed_slots:").append(lazyfrees.getFreedSlots()).append("\r\n");
+        info.append("lazyfree_freed_keys:").append(lazyfrees.getFreedKeys()).append("\r\n");
+        info.append("lazyfree_time_ms:").append(NANOSECONDS.toMillis(lazyfrees.getFreeTime())).append("\r\n");
+        ClusterMigrateManager migrates = managers.migrates;
+        info.append("migrate_keys:").append(migrates.getMigratedKeys()).append("\r\n");
+        info.append("migrate_time_ms:").append(NANOSECONDS.toMillis(migrates.getMigrateTime())).append("\r\n");
+        ClusterImportManager imports = managers.imports;
+        info.append("import_keys:").append(imports.getImportedKeys()).append("\r\n");
+        info.append("import_batches:").append(imports.getImportBatches()).append("\r\n");
+        info.append("import_time_ms:").append(NANOSECONDS.toMillis(imports.getImportTime())).append("\r\n");
+        return info.toString();
+    }
+    
+    protected static long avg(long nanos, long count) {
+        return count == 0 ? 0 : NANOSECONDS.toMicros(nanos / count);
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterView;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+import java.util.Arrays;
+
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterMigrateManager.NOKEY;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
+
+/**
+ * {@code MIGRATE host port key|"" destination-db timeout [COPY] [REPLACE] [AUTH password] [KEYS key [key ...]]}
+ * <p>
+ * MIGRATE deletes the migrated keys from the local copy, so it is refused on replicas and routed like
+ * any other write: only the owner of the slot, or either side of a slot being resharded, runs it.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class MigrateCommandHandler extends AbstractCommandHandler {
+    
+    public MigrateCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+    
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length < 6) {
+            replyError(t, "ERR wrong number of arguments for 'migrate' command");
+            return;
+        }
+        
+        byte[] auth = null;
+        byte[][] keys = null;
+        boolean copy = false, replace = false;
+        for (int i = 6; i < message.length; i++) {
+            if (equalsIgnoreCase(message[i], "copy")) {
+                copy = true;
+            } else if (equalsIgnoreCase(message[i], "replace")) {
+                replace = true;
+            } else if (equalsIgnoreCase(message[i], "auth") && i + 1 < message.length && message[i + 1] != null) {
+                auth = message[++i];
+            } else if (equalsIgnoreCase(message[i], "keys")) {
+                if (message[3] == null || message[3].length != 0) {
+                    replyError(t, "ERR When using MIGRATE KEYS option, the key argument must be set to the empty string");
+                    return;
+                }
+                keys = Arrays.copyOfRange(message, i + 1, message.length);
+                break;
+            } else {
+                replyError(t, "ERR syntax error");
+                return;
+            }
+        }
+        if (keys == null) keys = new byte[][]{message[3]};
+        for (byte[] key : keys) {
+            if (key != null) continue;
+            replyError(t, "ERR Invalid key: null");
+            return;
+        }
+        
+        // arguments are validated before routing, like in migrateCommand
+        int port, db;
+        long timeout;
+        try {
+            port = parseInt(message[2]);
+            db = parseInt(message[4]);
+            timeout = parseLong(message[5]);
+        } catch (Exception e) {
+            replyError(t, "ERR value is not an integer or out of range");
+            return;
+        }
+        if (timeout <= 0) timeout = 1000;
+        if (port <= 0 || port > 65535 || message[1] == null) {
+            replyError(t, "ERR Invalid target address");
+            return;
+        }
+        
+        ClusterView.Node myself = managers.views.getClusterView().myself;
+        if (myself != null && nodeIsSlave(myself.flags)) {
+            replyError(t, "READONLY You can't write against a read only replica.");
+            return;
+        }
+        String redirect = managers.redirects.clusterRedirect((ClientState) t.getAttachment(), keys, 0, true);
+        if (redirect != null) {
+            replyError(t, redirect);
+            return;
+        }
+        
+        String host = string(message[1]);
+        boolean c = copy, r = replace;
+        byte[] a = auth;
+        byte[][] k = keys;
+        long ms = Math.min(timeout, Integer.MAX_VALUE);
+        managers.commands.execute(t, managers.migrate, () -> {
+            String error = managers.migrates.clusterMigrate(host, port, db, ms, c, r, a, k);
+            if (error == null) reply(t, "OK");
+            else if (error.equals(NOKEY)) reply(t, NOKEY);
+            else replyError(t, error);
+        });
+    }
+}
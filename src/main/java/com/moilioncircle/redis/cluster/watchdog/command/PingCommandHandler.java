@@ -30,7 +30,7 @@ public class PingCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length == 1) {
             reply(t, "PONG");
         } else if (message.length == 2 && message[1] != null) {
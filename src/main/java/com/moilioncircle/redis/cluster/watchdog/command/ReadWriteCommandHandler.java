@@ -17,6 +17,7 @@
 package com.moilioncircle.redis.cluster.watchdog.command;
 
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
 /**
@@ -30,12 +31,13 @@ public class ReadWriteCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 1) {
             replyError(t, "ERR wrong number of arguments for 'readwrite' command");
             return;
         }
-        managers.engine.readonly(false);
+        ClientState client = (ClientState) t.getAttachment();
+        if (client != null) client.readonly = false;
         reply(t, "OK");
     }
 }
@@ -19,7 +19,10 @@ package com.moilioncircle.redis.cluster.watchdog.command;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
-import static java.lang.Long.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.codec.rdb.RdbValueCodec.verify;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -27,18 +30,25 @@ import static java.lang.Long.parseLong;
  */
 public class RestoreCommandHandler extends AbstractCommandHandler {
     
+    private final boolean asking;
+    
     public RestoreCommandHandler(ClusterManagers managers) {
+        this(managers, false);
+    }
+    
+    public RestoreCommandHandler(ClusterManagers managers, boolean asking) {
         super(managers);
+        this.asking = asking;
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
-        if (rawMessage.length != 4 && rawMessage.length != 5) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length != 4 && message.length != 5) {
             replyError(t, "ERR wrong number of arguments for 'restore' command");
             return;
         }
         
-        byte[] key = rawMessage[1];
+        byte[] key = message[1];
         if (key == null) {
             replyError(t, "ERR Invalid key: null");
             return;
@@ -48,7 +58,7 @@ public class RestoreCommandHandler extends AbstractCommandHandler {
         try {
             ttl = parseLong(message[2]);
         } catch (Exception e) {
-            replyError(t, "ERR Invalid ttl: " + message[2]);
+            replyError(t, "ERR Invalid ttl: " + string(message[2]));
             return;
         }
         if (ttl < 0) {
@@ -56,15 +66,15 @@ public class RestoreCommandHandler extends AbstractCommandHandler {
             return;
         }
         
-        byte[] serialized = rawMessage[3];
+        byte[] serialized = message[3];
         if (serialized == null) {
             replyError(t, "ERR Invalid serialized-value: null");
             return;
         }
         
         boolean replace;
-        if (rawMessage.length == 5) {
-            if (message[4] != null && message[4].equalsIgnoreCase("replace")) {
+        if (message.length == 5) {
+            if (message[4] != null && equalsIgnoreCase(message[4], "replace")) {
                 replace = true;
             } else {
                 replyError(t, "ERR wrong number of arguments for 'restore' command");
@@ -72,9 +82,22 @@ public class RestoreCommandHandler extends AbstractCommandHandler {
             }
         } else replace = false;
         
+        // a migrating source floods us with RESTORE-ASKING, bulk import them
+        if (asking && managers.imports.clusterImport(t, message)) return;
+        
+        if (!verify(serialized)) {
+            replyError(t, "ERR DUMP payload version or checksum are wrong");
+            return;
+        }
+        
         long expire = ttl == 0 ? 0 : System.currentTimeMillis() + ttl;
         
-        managers.engine.restore(key, serialized, expire, replace);
+        try {
+            managers.engine.restore(key, serialized, expire, replace);
+        } catch (RuntimeException e) {
+            replyError(t, "ERR Bad data format");
+            return;
+        }
         reply(t, "OK");
     }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
+import com.moilioncircle.redis.cluster.watchdog.util.Tuples;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+import com.moilioncircle.redis.cluster.watchdog.util.type.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.SCAN_CURSOR_CACHE_ITEMS;
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.writer;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.match;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
+
+/**
+ * The cursor is {@code position * CLUSTER_SLOTS + slot}, the next slot to scan and where to resume in it,
+ * 0 for the start of the slot. Like redis-server a call visits at most {@code COUNT * 10} keys or empty slots.
+ * <p>
+ * If the engine keeps the keys of a slot in order ({@link StorageEngine#keys(int, byte[])}), a call may stop
+ * in the middle of a slot: the last returned key is kept in a bounded table under a new position, and the next
+ * call seeks past it. If the position was evicted from the table the slot is scanned again from its start.
+ * Otherwise a call always returns whole slots, so a reply holds at least all the keys of a non empty slot.
+ * Either way a key that exists for the whole iteration is returned at least once, unless its slot changes.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ScanCommandHandler extends AbstractKeyCommandHandler {
+    
+    private static final byte[] EMPTY = new byte[0];
+    
+    private final AtomicLong positions = new AtomicLong();
+    
+    /**
+     * the slot and the key to resume from by position, the least recently used positions are evicted
+     */
+    private final Map<Long, Tuple2<Integer, byte[]>> cursors = new LinkedHashMap<Long, Tuple2<Integer, byte[]>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tuple2<Integer, byte[]>> eldest) {
+            return size() > SCAN_CURSOR_CACHE_ITEMS;
+        }
+    };
+    
+    public ScanCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+    
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length < 2 || (message.length & 1) != 0) {
+            replyError(t, "ERR wrong number of arguments for 'scan' command");
+            return;
+        }
+        
+        long cursor;
+        try {
+            cursor = parseLong(message[1]);
+        } catch (Exception e) {
+            replyError(t, "ERR invalid cursor");
+            return;
+        }
+        
+        long count = 10;
+        byte[] pattern = null;
+        for (int i = 2; i < message.length; i += 2) {
+            if (equalsIgnoreCase(message[i], "count")) {
+                try {
+                    count = parseLong(message[i + 1]);
+                } catch (Exception e) {
+                    replyError(t, "ERR value is not an integer or out of range");
+                    return;
+                }
+                if (count < 1) {
+                    replyError(t, "ERR syntax error");
+                    return;
+                }
+            } else if (equalsIgnoreCase(message[i], "match") && message[i + 1] != null) {
+                pattern = message[i + 1];
+                if (pattern.length == 1 && pattern[0] == '*') pattern = null;
+            } else {
+                replyError(t, "ERR syntax error");
+                return;
+            }
+        }
+        
+        StorageEngine engine = managers.engine;
+        List<byte[]> keys = new ArrayList<>();
+        int slot = cursor < 0 ? CLUSTER_SLOTS : (int) (cursor % CLUSTER_SLOTS);
+        byte[] from = cursor < 0 ? EMPTY : clusterScanResume(cursor / CLUSTER_SLOTS, slot);
+        long visits = Math.min(count, Long.MAX_VALUE / 10) * 10;
+        while (slot < CLUSTER_SLOTS && keys.size() < count && visits > 0) {
+            if (engine.size(slot) == 0) {
+                visits--;
+                slot++;
+                from = EMPTY;
+                continue;
+            }
+            Iterator<byte[]> it = engine.keys(slot, from);
+            if (it == null) {
+                // no seek, the slot is returned whole
+                for (it = engine.keys(slot); it.hasNext(); visits--) {
+                    byte[] key = it.next();
+                    if (pattern == null || match(pattern, key)) keys.add(key);
+                }
+            } else {
+                byte[] last = null;
+                for (; visits > 0 && keys.size() < count && it.hasNext(); visits--) {
+                    byte[] key = last = it.next();
+                    if (pattern == null || match(pattern, key)) keys.add(key);
+                }
+                if (it.hasNext()) {
+                    // the smallest key after the last one is the last one followed by a zero byte
+                    from = last == null ? from : Arrays.copyOf(last, last.length + 1);
+                    break;
+                }
+            }
+            slot++;
+            from = EMPTY;
+        }
+        
+        long next = slot == CLUSTER_SLOTS ? 0 : clusterScanSuspend(slot, from) * CLUSTER_SLOTS + slot;
+        RedisReplyWriter writer = writer().array(2);
+        writer.bulk(String.valueOf(next)).array(keys.size());
+        for (byte[] key : keys) writer.bulk(key);
+        writer.write(t, true);
+    }
+    
+    /**
+     * @return the key to resume {@code slot} from, the start of the slot if the position is unknown
+     */
+    private byte[] clusterScanResume(long position, int slot) {
+        if (position == 0) return EMPTY;
+        Tuple2<Integer, byte[]> v;
+        synchronized (cursors) {
+            v = cursors.get(position);
+        }
+        return v == null || v.getV1() != slot ? EMPTY : v.getV2();
+    }
+    
+    /**
+     * @return the position to resume {@code slot} from {@code from}
+     */
+    private long clusterScanSuspend(int slot, byte[] from) {
+        if (from.length == 0) return 0;
+        long position = positions.incrementAndGet();
+        synchronized (cursors) {
+            cursors.put(position, Tuples.of(slot, from));
+        }
+        return position;
+    }
+}
@@ -17,9 +17,11 @@
 package com.moilioncircle.redis.cluster.watchdog.command;
 
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
-import static java.lang.Integer.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -32,7 +34,7 @@ public class SelectCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 2) {
             replyError(t, "ERR wrong number of arguments for 'select' command");
             return;
@@ -48,9 +50,11 @@ public class SelectCommandHandler extends AbstractCommandHandler {
                 replyError(t, "ERR SELECT is not allowed in cluster mode");
                 return;
             }
+            ClientState client = (ClientState) t.getAttachment();
+            if (client != null) client.db = db;
             reply(t, "OK");
         } catch (Exception e) {
-            replyError(t, "ERR Invalid db number:" + message[1]);
+            replyError(t, "ERR Invalid db number:" + string(message[1]));
         }
     }
 }
@@ -21,6 +21,8 @@ import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
 import java.util.concurrent.TimeUnit;
 
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+
 /**
  * @author Leon Chen
  * @since 1.0.0
@@ -32,11 +34,11 @@ public class ShutdownCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length == 1) {
             reply(t, "OK");
             managers.cron.execute(() -> managers.watchdog.stop(10, TimeUnit.SECONDS));
-        } else if (message.length == 2 && message[1] != null && (message[1].equalsIgnoreCase("nosave") || message[1].equalsIgnoreCase("save"))) {
+        } else if (message.length == 2 && message[1] != null && (equalsIgnoreCase(message[1], "nosave") || equalsIgnoreCase(message[1], "save"))) {
             reply(t, "OK");
             managers.cron.execute(() -> managers.watchdog.stop(10, TimeUnit.SECONDS));
         } else {
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.utf8Length;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class StrLenCommandHandler extends AbstractKeyCommandHandler {
+    
+    public StrLenCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+    
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length != 2) {
+            replyError(t, "ERR wrong number of arguments for 'strlen' command");
+            return;
+        }
+        if (redirect(t, message, 1)) return;
+        
+        Object value = managers.engine.load(message[1]);
+        if (value == null) replyNumber(t, 0L);
+        else if (value instanceof byte[]) replyNumber(t, ((byte[]) value).length);
+        else if (value instanceof CharSequence) replyNumber(t, utf8Length((CharSequence) value));
+        else replyError(t, WRONGTYPE);
+    }
+}
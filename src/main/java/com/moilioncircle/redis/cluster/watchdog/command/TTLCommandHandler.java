@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+/**
+ * Serves both {@code TTL} and {@code PTTL}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class TTLCommandHandler extends AbstractKeyCommandHandler {
+    
+    private final boolean millis;
+    
+    public TTLCommandHandler(ClusterManagers managers, boolean millis) {
+        super(managers);
+        this.millis = millis;
+    }
+    
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length != 2) {
+            replyError(t, "ERR wrong number of arguments for '" + (millis ? "pttl" : "ttl") + "' command");
+            return;
+        }
+        if (redirect(t, message, 1)) return;
+        
+        long ttl = managers.engine.ttl(message[1]);
+        if (ttl == -2L || ttl == -1L) replyNumber(t, -2L);
+        else if (ttl == 0L) replyNumber(t, -1L);
+        else replyNumber(t, millis ? ttl : (ttl + 500) / 1000);
+    }
+}
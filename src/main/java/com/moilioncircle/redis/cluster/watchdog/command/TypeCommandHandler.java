@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command;
+
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class TypeCommandHandler extends AbstractKeyCommandHandler {
+    
+    public TypeCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+    
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        if (message.length != 2) {
+            replyError(t, "ERR wrong number of arguments for 'type' command");
+            return;
+        }
+        if (redirect(t, message, 1)) return;
+        
+        Class<?> type;
+        try {
+            type = managers.engine.type(message[1]);
+        } catch (UnsupportedOperationException e) {
+            // engines that do not track types
+            Object value = managers.engine.load(message[1]);
+            type = value == null ? null : value.getClass();
+        }
+        reply(t, typeName(type));
+    }
+    
+    protected static String typeName(Class<?> type) {
+        if (type == null) return "none";
+        if (byte[].class == type || CharSequence.class.isAssignableFrom(type)) return "string";
+        if (List.class.isAssignableFrom(type)) return "list";
+        if (SortedSet.class.isAssignableFrom(type)) return "zset";
+        if (Set.class.isAssignableFrom(type)) return "set";
+        if (Map.class.isAssignableFrom(type)) return "hash";
+        return type.getSimpleName().toLowerCase();
+    }
+}
@@ -20,11 +20,9 @@ import com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo;
 import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.command.CommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.util.collection.CaseInsensitiveMap;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo.valueOf;
 
 /**
@@ -33,19 +31,25 @@ import static com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo.valueOf
  */
 public class ClusterCommandHandler extends AbstractCommandHandler {
 
-    private Map<String, CommandHandler> clusterHandlers = new HashMap<>();
+    private CaseInsensitiveMap<CommandHandler> clusterHandlers = new CaseInsensitiveMap<>();
+    
+    /**
+     * Read-only subcommands served from {@link com.moilioncircle.redis.cluster.watchdog.ClusterView}
+     * on the calling thread instead of the cron thread.
+     */
+    private CaseInsensitiveMap<CommandHandler> viewHandlers = new CaseInsensitiveMap<>();
 
     public ClusterCommandHandler(ClusterManagers managers) {
         super(managers);
         addCommandHandler("meet", new ClusterMeetCommandHandler(managers));
         addCommandHandler("myid", new ClusterMyIDCommandHandler(managers));
-        addCommandHandler("info", new ClusterInfoCommandHandler(managers));
+        addViewCommandHandler("info", new ClusterInfoCommandHandler(managers));
         addCommandHandler("nodes", new ClusterNodesCommandHandler(managers));
-        addCommandHandler("slots", new ClusterSlotsCommandHandler(managers));
+        addViewCommandHandler("slots", new ClusterSlotsCommandHandler(managers));
         addCommandHandler("reset", new ClusterResetCommandHandler(managers));
         addCommandHandler("forget", new ClusterForgetCommandHandler(managers));
         addCommandHandler("slaves", new ClusterSlavesCommandHandler(managers));
-        addCommandHandler("keyslot", new ClusterKeySlotCommandHandler(managers));
+        addViewCommandHandler("keyslot", new ClusterKeySlotCommandHandler(managers));
         addCommandHandler("setslot", new ClusterSetSlotCommandHandler(managers));
         addCommandHandler("addslots", new ClusterAddSlotsCommandHandler(managers));
         addCommandHandler("delslots", new ClusterDelSlotsCommandHandler(managers));
@@ -54,36 +58,53 @@ public class ClusterCommandHandler extends AbstractCommandHandler {
         addCommandHandler("saveconfig", new ClusterSaveConfigCommandHandler(managers));
         addCommandHandler("flushslots", new ClusterFlushSlotsCommandHandler(managers));
         addCommandHandler("getkeysinslot", new ClusterGetKeysInSlotCommandHandler(managers));
+        addViewCommandHandler("digest", new ClusterDigestCommandHandler(managers));
         addCommandHandler("countkeysinslot", new ClusterCountKeysInSlotCommandHandler(managers));
         addCommandHandler("set-config-epoch", new ClusterSetConfigEpochCommandHandler(managers));
         addCommandHandler("count-failure-reports", new ClusterCountFailureReportsCommandHandler(managers));
     }
 
     public CommandHandler get(String name) {
-        return clusterHandlers.get(name.toLowerCase());
+        CommandHandler handler = viewHandlers.get(name);
+        return handler != null ? handler : clusterHandlers.get(name);
     }
 
     public CommandHandler addCommandHandler(String name, CommandHandler handler) {
-        return clusterHandlers.put(name.toLowerCase(), handler);
+        CommandHandler r = viewHandlers.remove(name);
+        CommandHandler v = clusterHandlers.put(name, handler);
+        return r != null ? r : v;
+    }
+
+    protected CommandHandler addViewCommandHandler(String name, CommandHandler handler) {
+        CommandHandler r = clusterHandlers.remove(name);
+        CommandHandler v = viewHandlers.put(name, handler);
+        return r != null ? r : v;
     }
 
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length < 2 || message[1] == null) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
 
-        CommandHandler handler = get(message[1]);
+        CommandHandler view = viewHandlers.get(message[1]);
+        if (view != null) {
+            view.handle(t, message);
+            return;
+        }
+
+        CommandHandler handler = clusterHandlers.get(message[1]);
         if (handler == null) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
-        managers.cron.execute(() -> {
+        managers.commands.execute(t, managers.cron, () -> {
             ClusterConfigInfo previous;
             previous = valueOf(managers.server.cluster);
-            handler.handle(t, message, rawMessage);
+            handler.handle(t, message);
             ClusterConfigInfo next = valueOf(managers.server.cluster);
-            if (!previous.equals(next)) managers.config.submit(() -> managers.configs.clusterSaveConfig(next));
+            managers.configs.clusterUpdateConfig(previous, next);
         });
     }
 }
@@ -21,6 +21,8 @@ import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
+
 /**
  * @author Leon Chen
  * @since 1.0.0
@@ -32,15 +34,15 @@ public class ClusterCountFailureReportsCommandHandler extends AbstractCommandHan
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
         
-        ClusterNode node = managers.nodes.clusterLookupNode(message[2]);
+        ClusterNode node = managers.nodes.clusterLookupNode(string(message[2]));
         if (node == null) {
-            replyError(t, "ERR Unknown node " + message[2]);
+            replyError(t, "ERR Unknown node " + string(message[2]));
         } else replyNumber(t, managers.nodes.clusterNodeFailureReportsCount(node));
     }
 }
@@ -20,7 +20,8 @@ import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
-import static java.lang.Integer.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -33,7 +34,7 @@ public class ClusterCountKeysInSlotCommandHandler extends AbstractCommandHandler
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -47,7 +48,7 @@ public class ClusterCountKeysInSlotCommandHandler extends AbstractCommandHandler
             }
             replyNumber(t, managers.slots.countKeysInSlot(slot));
         } catch (Exception e) {
-            replyError(t, "ERR Invalid slot:" + message[2]);
+            replyError(t, "ERR Invalid slot:" + string(message[2]));
         }
     }
 }
@@ -21,7 +21,8 @@ import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
-import static java.lang.Integer.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -34,7 +35,7 @@ public class ClusterDelSlotsCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length < 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -57,7 +58,7 @@ public class ClusterDelSlotsCommandHandler extends AbstractCommandHandler {
                     return;
                 }
             } catch (Exception e) {
-                replyError(t, "ERR Invalid slot:" + message[i]);
+                replyError(t, "ERR Invalid slot:" + string(message[i]));
                 return;
             }
         }
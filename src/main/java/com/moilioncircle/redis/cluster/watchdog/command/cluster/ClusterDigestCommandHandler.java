@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.command.cluster;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
+import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
+import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
+import com.moilioncircle.redis.cluster.watchdog.storage.SlotDigests;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.HEX_CHARS;
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.writer;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
+
+/**
+ * {@code CLUSTER DIGEST} replies the root of the slot digest Merkle tree, {@code CLUSTER DIGEST node [node ...]}
+ * replies the digests of the given tree nodes, node {@code 1} is the root, the children of node {@code i} are
+ * {@code 2i} and {@code 2i + 1} and the leaf of slot {@code s} is node {@code 16384 + s}.
+ * <p>
+ * redis-server has no such command, digests only compare watchdogs with each other.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterDigestCommandHandler extends AbstractCommandHandler {
+
+    public ClusterDigestCommandHandler(ClusterManagers managers) {
+        super(managers);
+    }
+
+    @Override
+    public void handle(Transport<byte[][]> t, byte[][] message) {
+        int[] nodes = new int[Math.max(1, message.length - 2)];
+        nodes[0] = 1;
+        for (int i = 2; i < message.length; i++) {
+            int node;
+            try {
+                node = parseInt(message[i]);
+            } catch (Exception e) {
+                replyError(t, "ERR Invalid digest node:" + string(message[i]));
+                return;
+            }
+            if (node < 1 || node >= CLUSTER_SLOTS << 1) {
+                replyError(t, "ERR Invalid digest node:" + node);
+                return;
+            }
+            nodes[i - 2] = node;
+        }
+
+        SlotDigests digests;
+        try {
+            digests = managers.engine.digests();
+        } catch (UnsupportedOperationException e) {
+            replyError(t, "ERR Storage engine does not support slot digests");
+            return;
+        }
+
+        if (message.length == 2) {
+            replyBulk(t, hex(digests.root()));
+            return;
+        }
+        RedisReplyWriter writer = writer().array(nodes.length);
+        for (int node : nodes) writer.bulk(hex(digests.node(node)));
+        writer.write(t, true);
+    }
+
+    private static String hex(long digest) {
+        char[] r = new char[16];
+        for (int i = 15; i >= 0; i--, digest >>>= 4) r[i] = HEX_CHARS[(int) (digest & 0xF)];
+        return new String(r);
+    }
+}
@@ -16,15 +16,20 @@
 
 package com.moilioncircle.redis.cluster.watchdog.command.cluster;
 
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
 import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
-import static java.lang.Integer.parseInt;
-import static java.lang.Long.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.writer;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -37,7 +42,7 @@ public class ClusterGetKeysInSlotCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 4) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -47,7 +52,7 @@ public class ClusterGetKeysInSlotCommandHandler extends AbstractCommandHandler {
         try {
             slot = parseInt(message[2]);
         } catch (Exception e) {
-            replyError(t, "ERR Invalid slot:" + message[2]);
+            replyError(t, "ERR Invalid slot:" + string(message[2]));
             return;
         }
         if (slot < 0 || slot > CLUSTER_SLOTS) {
@@ -59,7 +64,7 @@ public class ClusterGetKeysInSlotCommandHandler extends AbstractCommandHandler {
         try {
             max = parseLong(message[3]);
         } catch (Exception e) {
-            replyError(t, "ERR Invalid number of keys:" + message[3]);
+            replyError(t, "ERR Invalid number of keys:" + string(message[3]));
             return;
         }
         if (max < 0) {
@@ -69,20 +74,10 @@ public class ClusterGetKeysInSlotCommandHandler extends AbstractCommandHandler {
         
         max = Math.min(managers.slots.countKeysInSlot(slot), max);
         Iterator<byte[]> it = managers.slots.getKeysInSlot(slot);
-        if (!it.hasNext()) {
-            t.write("*0\r\n".getBytes(), true);
-            return;
-        } else
-            t.write(("*" + max + "\r\n").getBytes(), false);
-        int idx = 0;
-        while (it.hasNext() && idx++ < max) {
-            byte[] key = it.next();
-            t.write(("$" + key.length + "\r\n").getBytes(), false);
-            t.write(key, false);
-            if (it.hasNext())
-                t.write("\r\n".getBytes(), false);
-            else
-                t.write("\r\n".getBytes(), true);
-        }
+        List<byte[]> keys = new ArrayList<>((int) Math.min(max, 1024));
+        while (it.hasNext() && keys.size() < max) keys.add(it.next());
+        RedisReplyWriter writer = writer().array(keys.size());
+        for (byte[] key : keys) writer.bulk(key);
+        writer.write(t, true);
     }
 }
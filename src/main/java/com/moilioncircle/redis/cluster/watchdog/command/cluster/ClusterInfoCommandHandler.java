@@ -16,17 +16,13 @@
 
 package com.moilioncircle.redis.cluster.watchdog.command.cluster;
 
+import com.moilioncircle.redis.cluster.watchdog.ClusterView;
 import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
-import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_COUNT;
-import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterConfigManager.clusterGetMessageTypeString;
-import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
-import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
-import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodePFailed;
 
 /**
  * @author Leon Chen
@@ -39,33 +35,22 @@ public class ClusterInfoCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 2) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
 
-        int assigned = 0, normal = 0, fail = 0, pFail = 0;
-        for (int j = 0; j < CLUSTER_SLOTS; j++) {
-            ClusterNode node = server.cluster.slots[j];
-            if (node == null) continue;
-            assigned++;
-            if (nodeFailed(node)) fail++;
-            else if (nodePFailed(node)) pFail++;
-            else normal++;
-        }
-
-        long epoch;
-        if (nodeIsSlave(server.myself) && server.myself.master != null) {
-            epoch = server.myself.master.configEpoch;
-        } else {
-            epoch = server.myself.configEpoch;
-        }
+        ClusterView view = managers.views.getClusterView();
+        int assigned = view.assignedSlots;
+        int fail = view.failSlots, pFail = view.pFailSlots;
+        int normal = assigned - fail - pFail;
 
-        int size = server.cluster.size;
-        int nodes = server.cluster.nodes.size();
-        long currentEpoch = server.cluster.currentEpoch;
-        String state = server.cluster.state.getDisplay();
+        long epoch = view.myEpoch;
+        int size = view.size;
+        int nodes = view.nodes.size();
+        long currentEpoch = view.currentEpoch;
+        String state = view.state.getDisplay();
 
         StringBuilder info = new StringBuilder();
         info.append("cluster_state:").append(state).append("\r\n");
@@ -78,6 +63,7 @@ public class ClusterInfoCommandHandler extends AbstractCommandHandler {
         info.append("cluster_current_epoch:").append(currentEpoch).append("\r\n");
         info.append("cluster_my_epoch:").append(epoch).append("\r\n");
 
+        // message counters are statistics only, a slightly stale read is fine
         long sent = 0L, received = 0L;
         for (int i = 0; i < CLUSTERMSG_TYPE_COUNT; i++) {
             if (server.cluster.messagesSent[i] == 0) continue;
@@ -33,12 +33,12 @@ public class ClusterKeySlotCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
 
-        replyNumber(t, calcSlot(rawMessage[2]));
+        replyNumber(t, calcSlot(message[2]));
     }
 }
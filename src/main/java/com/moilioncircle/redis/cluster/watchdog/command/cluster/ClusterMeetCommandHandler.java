@@ -24,7 +24,8 @@ import org.apache.commons.logging.LogFactory;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_PORT_INCR;
 import static com.moilioncircle.redis.cluster.watchdog.Version.PROTOCOL_V0;
-import static java.lang.Integer.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -39,7 +40,7 @@ public class ClusterMeetCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 4 && message.length != 5) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -49,7 +50,7 @@ public class ClusterMeetCommandHandler extends AbstractCommandHandler {
         try {
             port = parseInt(message[3]);
         } catch (Exception e) {
-            replyError(t, "ERR Invalid port:" + message[3]);
+            replyError(t, "ERR Invalid port:" + string(message[3]));
             return;
         }
 
@@ -57,7 +58,7 @@ public class ClusterMeetCommandHandler extends AbstractCommandHandler {
             try {
                 busPort = parseInt(message[4]);
             } catch (Exception e) {
-                replyError(t, "ERR Invalid bus port:" + message[4]);
+                replyError(t, "ERR Invalid bus port:" + string(message[4]));
                 return;
             }
         } else busPort = port + CLUSTER_PORT_INCR;
@@ -75,12 +76,12 @@ public class ClusterMeetCommandHandler extends AbstractCommandHandler {
             replyError(t, "ERR Invalid bus port:" + busPort);
             return;
         }
-        if (message[2] == null || message[2].length() == 0) {
-            replyError(t, "ERR Invalid address:" + message[2]);
+        if (message[2] == null || message[2].length == 0) {
+            replyError(t, "ERR Invalid address:" + string(message[2]));
             return;
         }
 
-        if (managers.nodes.clusterStartHandshake(message[2], port, busPort)) reply(t, "OK");
-        else replyError(t, "ERR Invalid node address specified:" + message[2] + ":" + message[3]);
+        if (managers.nodes.clusterStartHandshake(string(message[2]), port, busPort)) reply(t, "OK");
+        else replyError(t, "ERR Invalid node address specified:" + string(message[2]) + ":" + string(message[3]));
     }
 }
@@ -21,6 +21,7 @@ import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo.valueOf;
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.heapWriter;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterConfigManager.clusterGenNodesDescription;
 
 /**
@@ -34,11 +35,16 @@ public class ClusterNodesCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 2) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
-        replyBulk(t, clusterGenNodesDescription(valueOf(server.cluster), 0, managers.configuration.getVersion()));
+        t.write(managers.caches.clusterNodesReply(this::clusterReplyBulkNodes), true);
+    }
+    
+    protected byte[] clusterReplyBulkNodes() {
+        String nodes = clusterGenNodesDescription(valueOf(server.cluster), 0, managers.configuration.getVersion());
+        return heapWriter(nodes.length() + 16).bulk(nodes).toBytes();
     }
 }
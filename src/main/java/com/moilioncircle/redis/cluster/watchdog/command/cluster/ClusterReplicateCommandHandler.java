@@ -25,6 +25,7 @@ import java.util.Objects;
 
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsMaster;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -37,15 +38,15 @@ public class ClusterReplicateCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
         
-        ClusterNode node = managers.nodes.clusterLookupNode(message[2]);
+        ClusterNode node = managers.nodes.clusterLookupNode(string(message[2]));
         if (node == null) {
-            replyError(t, "ERR Unknown node " + message[2]);
+            replyError(t, "ERR Unknown node " + string(message[2]));
             return;
         }
         if (Objects.equals(node, server.myself)) {
@@ -31,6 +31,7 @@ import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_
 import static com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo.valueOf;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterNodeManager.getRandomHexChars;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
 
 /**
  * @author Leon Chen
@@ -45,7 +46,7 @@ public class ClusterResetCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 2 && message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -53,8 +54,8 @@ public class ClusterResetCommandHandler extends AbstractCommandHandler {
 
         boolean hard = false;
         if (message.length == 3) {
-            if (message[2] != null && message[2].equalsIgnoreCase("hard")) hard = true;
-            else if (message[2] != null && message[2].equalsIgnoreCase("soft")) hard = false;
+            if (message[2] != null && equalsIgnoreCase(message[2], "hard")) hard = true;
+            else if (message[2] != null && equalsIgnoreCase(message[2], "soft")) hard = false;
             else {
                 replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
                 return;
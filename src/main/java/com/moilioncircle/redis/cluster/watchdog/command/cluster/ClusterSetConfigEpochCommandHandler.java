@@ -22,7 +22,8 @@ import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import static java.lang.Long.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -37,7 +38,7 @@ public class ClusterSetConfigEpochCommandHandler extends AbstractCommandHandler
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -47,7 +48,7 @@ public class ClusterSetConfigEpochCommandHandler extends AbstractCommandHandler
         try {
             epoch = parseLong(message[2]);
         } catch (Exception e) {
-            replyError(t, "ERR Invalid config epoch specified: " + message[2]);
+            replyError(t, "ERR Invalid config epoch specified: " + string(message[2]));
             return;
         }
         
@@ -27,7 +27,9 @@ import java.util.Objects;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
-import static java.lang.Integer.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseInt;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -42,7 +44,7 @@ public class ClusterSetSlotCommandHandler extends AbstractCommandHandler {
     }
     
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length < 4) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
@@ -57,7 +59,7 @@ public class ClusterSetSlotCommandHandler extends AbstractCommandHandler {
         try {
             slot = parseInt(message[2]);
         } catch (Exception e) {
-            replyError(t, "ERR Invalid slot:" + message[2]);
+            replyError(t, "ERR Invalid slot:" + string(message[2]));
             return;
         }
         if (slot < 0 || slot > CLUSTER_SLOTS) {
@@ -70,36 +72,36 @@ public class ClusterSetSlotCommandHandler extends AbstractCommandHandler {
             return;
         }
         
-        if (message[3].equalsIgnoreCase("migrating") && message.length == 5) {
+        if (equalsIgnoreCase(message[3], "migrating") && message.length == 5) {
             if (!Objects.equals(server.cluster.slots[slot], server.myself)) {
                 replyError(t, "ERR I'm not the owner of hash slot " + slot);
                 return;
             }
-            ClusterNode n = managers.nodes.clusterLookupNode(message[4]);
+            ClusterNode n = managers.nodes.clusterLookupNode(string(message[4]));
             if (n == null) {
-                replyError(t, "ERR I don't know fail node " + message[4]);
+                replyError(t, "ERR I don't know fail node " + string(message[4]));
                 return;
             }
             server.cluster.migrating[slot] = n;
-        } else if (message[3].equalsIgnoreCase("importing") && message.length == 5) {
+        } else if (equalsIgnoreCase(message[3], "importing") && message.length == 5) {
             if (Objects.equals(server.cluster.slots[slot], server.myself)) {
                 replyError(t, "ERR I'm already the owner of hash slot " + slot);
                 return;
             }
-            ClusterNode n = managers.nodes.clusterLookupNode(message[4]);
+            ClusterNode n = managers.nodes.clusterLookupNode(string(message[4]));
             if (n == null) {
-                replyError(t, "ERR I don't know fail node " + message[4]);
+                replyError(t, "ERR I don't know fail node " + string(message[4]));
                 return;
             }
             server.cluster.importing[slot] = n;
-        } else if (message[3].equalsIgnoreCase("stable") && message.length == 4) {
+        } else if (equalsIgnoreCase(message[3], "stable") && message.length == 4) {
             server.cluster.importing[slot] = null;
             server.cluster.migrating[slot] = null;
-        } else if (message[3].equalsIgnoreCase("node") && message.length == 5) {
+        } else if (equalsIgnoreCase(message[3], "node") && message.length == 5) {
             /* CLUSTER SETSLOT <SLOT> NODE <NODE ID> */
-            ClusterNode n = managers.nodes.clusterLookupNode(message[4]);
+            ClusterNode n = managers.nodes.clusterLookupNode(string(message[4]));
             if (n == null) {
-                replyError(t, "ERR Unknown node " + message[4]);
+                replyError(t, "ERR Unknown node " + string(message[4]));
                 return;
             }
             if (Objects.equals(server.cluster.slots[slot], server.myself)
@@ -19,13 +19,16 @@ package com.moilioncircle.redis.cluster.watchdog.command.cluster;
 import com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo;
 import com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo;
 import com.moilioncircle.redis.cluster.watchdog.Version;
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
 import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
 import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.writer;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterConfigManager.clusterGenNodeDescription;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.string;
 
 /**
  * @author Leon Chen
@@ -38,15 +41,15 @@ public class ClusterSlavesCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 3) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
 
-        ClusterNode node = managers.nodes.clusterLookupNode(message[2]);
+        ClusterNode node = managers.nodes.clusterLookupNode(string(message[2]));
         if (node == null) {
-            replyError(t, "ERR Unknown node " + message[2]);
+            replyError(t, "ERR Unknown node " + string(message[2]));
             return;
         }
 
@@ -55,15 +58,13 @@ public class ClusterSlavesCommandHandler extends AbstractCommandHandler {
             return;
         }
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("*").append(node.slaves.size()).append("\r\n");
+        Version version = managers.configuration.getVersion();
+        ClusterConfigInfo configInfo = ClusterConfigInfo.valueOf(server.cluster);
+        RedisReplyWriter writer = writer().array(node.slaves.size());
         for (ClusterNode slave : node.slaves) {
-            Version version = managers.configuration.getVersion();
-            ClusterConfigInfo configInfo = ClusterConfigInfo.valueOf(server.cluster);
-            ClusterNodeInfo nodeInfo = ClusterNodeInfo.valueOf(slave, server.cluster.myself);
-            String nodeDescription = clusterGenNodeDescription(configInfo, nodeInfo, version);
-            builder.append("$").append(nodeDescription.length()).append("\r\n").append(nodeDescription).append("\r\n");
+            ClusterNodeInfo nodeInfo = configInfo.getNodes().get(slave.name);
+            writer.bulk(clusterGenNodeDescription(configInfo, nodeInfo, version));
         }
-        t.write(builder.toString().getBytes(), true);
+        writer.write(t, true);
     }
 }
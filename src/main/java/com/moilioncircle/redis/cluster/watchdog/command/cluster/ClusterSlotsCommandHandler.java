@@ -16,13 +16,14 @@
 
 package com.moilioncircle.redis.cluster.watchdog.command.cluster;
 
+import com.moilioncircle.redis.cluster.watchdog.ClusterView;
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
 import com.moilioncircle.redis.cluster.watchdog.command.AbstractCommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.manager.ClusterManagers;
-import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+import io.netty.buffer.Unpooled;
 
-import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
-import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterSlotManager.bitmapTestBit;
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.heapWriter;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsMaster;
 
@@ -37,54 +38,36 @@ public class ClusterSlotsCommandHandler extends AbstractCommandHandler {
     }
 
     @Override
-    public void handle(Transport<byte[][]> t, String[] message, byte[][] rawMessage) {
+    public void handle(Transport<byte[][]> t, byte[][] message) {
         if (message.length != 2) {
             replyError(t, "ERR Wrong CLUSTER subcommand or number of arguments");
             return;
         }
-        t.write(clusterReplyMultiBulkSlots().getBytes(), true);
+        ClusterView view = managers.views.getClusterView();
+        t.write(Unpooled.wrappedBuffer(view.getSlotsReply(this::clusterReplyMultiBulkSlots)), true);
     }
 
-    protected String clusterReplyMultiBulkSlots() {
-        int masters = 0;
-        StringBuilder r = new StringBuilder();
-        for (ClusterNode node : server.cluster.nodes.values()) {
-            int start = -1;
-            if (!nodeIsMaster(node)) continue;
+    protected byte[] clusterReplyMultiBulkSlots(ClusterView view) {
+        int ranges = 0;
+        for (ClusterView.Node node : view.nodes) {
+            if (!nodeIsMaster(node.flags)) continue;
+            ranges += node.getRanges();
+        }
+        RedisReplyWriter writer = heapWriter(ranges * 128 + 16).array(ranges);
+        for (ClusterView.Node node : view.nodes) {
+            if (!nodeIsMaster(node.flags)) continue;
             if (node.assignedSlots == 0) continue;
-            for (int i = 0; i < CLUSTER_SLOTS; i++) {
-                boolean bit = bitmapTestBit(node.slots, i);
-                if (bit && start == -1) start = i;
-                if (start != -1 && (!bit || i == CLUSTER_SLOTS - 1)) {
-                    StringBuilder builder = new StringBuilder();
-                    int elements = 3;
-                    if (bit) i++;
-                    if (start == i - 1) {
-                        builder.append(":").append(start).append("\r\n");
-                        builder.append(":").append(start).append("\r\n");
-                    } else {
-                        builder.append(":").append(start).append("\r\n");
-                        builder.append(":").append(i - 1).append("\r\n");
-                    }
-                    start = -1;
-                    builder.append("*3\r\n");
-                    builder.append("$").append(node.ip.length()).append("\r\n").append(node.ip).append("\r\n");
-                    builder.append(":").append(node.port).append("\r\n");
-                    builder.append("$").append(node.name.length()).append("\r\n").append(node.name).append("\r\n");
-                    for (ClusterNode slave : node.slaves) {
-                        if (nodeFailed(slave)) continue;
-                        builder.append("*3\r\n");
-                        builder.append("$").append(slave.ip.length()).append("\r\n").append(slave.ip).append("\r\n");
-                        builder.append(":").append(slave.port).append("\r\n");
-                        builder.append("$").append(slave.name.length()).append("\r\n").append(slave.name).append("\r\n");
-                        elements++;
-                    }
-                    builder.insert(0, "*" + elements + "\r\n");
-                    r.append(builder.toString());
-                    masters++;
+            int elements = 3;
+            for (ClusterView.Node slave : node.slaves) if (!nodeFailed(slave.flags)) elements++;
+            for (int i = 0; i < node.getRanges(); i++) {
+                writer.array(elements).integer(node.getRangeStart(i)).integer(node.getRangeEnd(i));
+                writer.array(3).bulk(node.ip).integer(node.port).bulk(node.name);
+                for (ClusterView.Node slave : node.slaves) {
+                    if (nodeFailed(slave.flags)) continue;
+                    writer.array(3).bulk(slave.ip).integer(slave.port).bulk(slave.name);
                 }
             }
         }
-        return r.insert(0, "*" + masters + "\r\n").toString();
+        return writer.toBytes();
     }
 }
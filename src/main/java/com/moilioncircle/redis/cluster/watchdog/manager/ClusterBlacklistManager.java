@@ -20,12 +20,16 @@ import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
 import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
 import com.moilioncircle.redis.cluster.watchdog.util.type.Tuple2;
 
+import java.util.Iterator;
 import java.util.Map;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_BLACKLIST_TTL;
 import static com.moilioncircle.redis.cluster.watchdog.util.Tuples.of;
 
 /**
+ * The blacklist is kept in expire order (every entry has the same ttl and re-adding
+ * moves an entry to the tail), so expiring only looks at the head.
+ *
  * @author Leon Chen
  * @since 1.0.0
  */
@@ -38,15 +42,20 @@ public class ClusterBlacklistManager {
     }
     
     public boolean clusterBlacklistExists(String name) {
-        long now = System.currentTimeMillis();
-        Map<String, Tuple2<Long, ClusterNode>> map = server.cluster.blacklist;
-        map.values().removeIf(e -> e.getV1() < now);
-        return map.containsKey(name);
+        clusterBlacklistCleanup(System.currentTimeMillis());
+        return server.cluster.blacklist.containsKey(name);
     }
     
     public void clusterBlacklistAddNode(ClusterNode node) {
         long now = System.currentTimeMillis();
-        server.cluster.blacklist.values().removeIf(e -> e.getV1() < now);
+        clusterBlacklistCleanup(now);
+        server.cluster.blacklist.remove(node.name);
         server.cluster.blacklist.put(node.name, of(now + CLUSTER_BLACKLIST_TTL, node));
     }
+    
+    public void clusterBlacklistCleanup(long now) {
+        Map<String, Tuple2<Long, ClusterNode>> map = server.cluster.blacklist;
+        Iterator<Tuple2<Long, ClusterNode>> it = map.values().iterator();
+        while (it.hasNext() && it.next().getV1() < now) it.remove();
+    }
 }
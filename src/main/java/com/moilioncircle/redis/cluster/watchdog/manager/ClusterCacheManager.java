@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.util.function.Supplier;
+
+/**
+ * Pre-encoded {@code CLUSTER NODES} reply, invalidated by the topology version and by the cron
+ * iteration because it shows the ping and pong times. {@code CLUSTER SLOTS} is cached on the
+ * {@link com.moilioncircle.redis.cluster.watchdog.ClusterView} instead.
+ * <p>
+ * Only accessed from the cron thread.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterCacheManager {
+    
+    private ServerState server;
+    
+    private ByteBuf nodes;
+    private long nodesVersion;
+    private long nodesIteration;
+    
+    public ClusterCacheManager(ClusterManagers managers) {
+        this.server = managers.server;
+    }
+    
+    public ByteBuf clusterNodesReply(Supplier<byte[]> supplier) {
+        long version = server.cluster.version, iteration = server.iteration;
+        if (nodes == null || nodesVersion != version || nodesIteration != iteration) {
+            clusterReleaseNodesReply();
+            nodes = encode(supplier.get());
+            nodesVersion = version;
+            nodesIteration = iteration;
+        }
+        return nodes.retainedDuplicate();
+    }
+    
+    public void clusterReleaseReplies() {
+        clusterReleaseNodesReply();
+    }
+    
+    private void clusterReleaseNodesReply() {
+        if (nodes == null) return;
+        nodes.release();
+        nodes = null;
+    }
+    
+    private static ByteBuf encode(byte[] bytes) {
+        return PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length).writeBytes(bytes);
+    }
+}
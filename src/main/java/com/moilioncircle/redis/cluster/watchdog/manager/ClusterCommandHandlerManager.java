@@ -18,12 +18,13 @@ package com.moilioncircle.redis.cluster.watchdog.manager;
 
 import com.moilioncircle.redis.cluster.watchdog.command.CommandHandler;
 import com.moilioncircle.redis.cluster.watchdog.command.DefaultCommandHandler;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
 import com.moilioncircle.redis.cluster.watchdog.storage.DefaultStorageEngine;
 import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import static java.util.Arrays.stream;
+import java.util.concurrent.Executor;
 
 /**
  * @author Leon Chen
@@ -51,7 +52,46 @@ public class ClusterCommandHandlerManager {
     }
     
     public void handleCommand(Transport<byte[][]> t, byte[][] raw) {
-        this.handler.handle(t, stream(raw).map(String::new).toArray(String[]::new), raw);
+        ClientState client = (ClientState) t.getAttachment();
+        if (client == null) {
+            this.handler.handle(t, raw);
+        } else if (client.blocked) {
+            client.pending.offer(raw);
+        } else {
+            handleCommand(t, client, raw);
+        }
+    }
+    
+    private void handleCommand(Transport<byte[][]> t, ClientState client, byte[][] raw) {
+        // ASKING only applies to the command after it
+        boolean asking = client.asking;
+        this.handler.handle(t, raw);
+        if (asking) client.asking = false;
+    }
+    
+    /**
+     * Runs {@code task} of a command on {@code executor}. Later commands of the same client wait
+     * until the replies written by the task are queued on its I/O thread, so replies keep their order.
+     */
+    public void execute(Transport<byte[][]> t, Executor executor, Runnable task) {
+        ClientState client = (ClientState) t.getAttachment();
+        if (client != null) client.blocked = true;
+        executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                if (client != null) t.execute(() -> clusterUnblockClient(t, client));
+            }
+        });
+    }
+    
+    void clusterUnblockClient(Transport<byte[][]> t, ClientState client) {
+        client.blocked = false;
+        while (!client.blocked) {
+            byte[][] raw = client.pending.poll();
+            if (raw == null) break;
+            handleCommand(t, client, raw);
+        }
     }
     
 }
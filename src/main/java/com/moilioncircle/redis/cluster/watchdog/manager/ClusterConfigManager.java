@@ -302,9 +302,10 @@ public class ClusterConfigManager {
                     int cIdx = hostAndPort.indexOf(":");
                     int aIdx = hostAndPort.indexOf("@");
                     String ip = hostAndPort.substring(0, cIdx).trim();
-                    node.ip = ip.equalsIgnoreCase("0.0.0.0") || ip.length() == 0 ? null : ip;
-                    node.port = parseInt(hostAndPort.substring(cIdx + 1, aIdx == -1 ? hostAndPort.length() : aIdx));
-                    node.busPort = aIdx == -1 ? node.port + CLUSTER_PORT_INCR : parseInt(hostAndPort.substring(aIdx + 1));
+                    ip = ip.equalsIgnoreCase("0.0.0.0") || ip.length() == 0 ? null : ip;
+                    int port = parseInt(hostAndPort.substring(cIdx + 1, aIdx == -1 ? hostAndPort.length() : aIdx));
+                    int busPort = aIdx == -1 ? port + CLUSTER_PORT_INCR : parseInt(hostAndPort.substring(aIdx + 1));
+                    managers.nodes.clusterSetNodeAddress(node, ip, port, busPort);
                     
                     long now = System.currentTimeMillis();
                     for (String role : args.get(2).split(",")) {
@@ -338,6 +339,7 @@ public class ClusterConfigManager {
                                 throw new UnsupportedOperationException("Unknown flag in redis cluster config file");
                         }
                     }
+                    managers.states.clusterAccountNode(node);
                     
                     if (!args.get(3).equals("-")) {
                         ClusterNode master = managers.nodes.clusterLookupNode(args.get(3));
@@ -390,10 +392,9 @@ public class ClusterConfigManager {
             server.cluster.currentEpoch = Math.max(maxEpoch, server.cluster.currentEpoch);
             
             for (ClusterNode node : server.cluster.nodes.values()) {
-                ClusterNodeInfo info = ClusterNodeInfo.valueOf(node, server.myself);
-                managers.notifyNodeAdded(info);
-                if (nodePFailed(node.flags)) managers.notifyNodePFailed(info);
-                if (nodeFailed(node.flags)) managers.notifyNodeFailed(info);
+                managers.notifyNodeAdded(node);
+                if (nodePFailed(node.flags)) managers.notifyNodePFailed(node);
+                if (nodeFailed(node.flags)) managers.notifyNodeFailed(node);
             }
             managers.notifyConfigChanged(ClusterConfigInfo.valueOf(server.cluster));
             return true;
@@ -402,6 +403,15 @@ public class ClusterConfigManager {
         }
     }
     
+    public void clusterUpdateConfig(ClusterConfigInfo previous, ClusterConfigInfo next) {
+        if (!previous.equals(next)) {
+            server.cluster.version++;
+            managers.config.submit(() -> clusterSaveConfig(next));
+        }
+        managers.views.clusterUpdateView();
+        managers.events.clusterPublishEvents(next);
+    }
+    
     public boolean clusterSaveConfig(ClusterConfigInfo info) {
         return clusterSaveConfig(info, false);
     }
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo;
+import com.moilioncircle.redis.cluster.watchdog.ClusterConfigListener;
+import com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo;
+import com.moilioncircle.redis.cluster.watchdog.ClusterNodeListener;
+import com.moilioncircle.redis.cluster.watchdog.ClusterState;
+import com.moilioncircle.redis.cluster.watchdog.ClusterStateListener;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
+import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_EVENT_QUEUE_CAPACITY;
+
+/**
+ * Listener event bus. Events posted during a tick are coalesced into one batch when the
+ * cron thread calls {@link #clusterPublishEvents(ClusterConfigInfo)}, and every node event
+ * of the batch shares the {@link ClusterNodeInfo} of that snapshot instead of copying the
+ * node per event. Each listener has its own bounded queue drained on the {@code worker}
+ * executor. When the queue of a slow listener is full the new batch is merged into the newest
+ * queued one, which keeps only the latest event of every node and the latest state and config events.
+ * <p>
+ * Listeners must not modify the {@link ClusterNodeInfo} and {@link ClusterConfigInfo} they receive.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterEventManager {
+    
+    private static final Log logger = LogFactory.getLog(ClusterEventManager.class);
+    
+    public static final int EVENT_NODE = 1;
+    public static final int EVENT_STATE = 2;
+    public static final int EVENT_CONFIG = 4;
+    
+    public static final int NODE_ADDED = 0;
+    public static final int NODE_DELETED = 1;
+    public static final int NODE_FAILED = 2;
+    public static final int NODE_PFAILED = 3;
+    public static final int UNSET_NODE_FAILED = 4;
+    public static final int UNSET_NODE_PFAILED = 5;
+    public static final int STATE_CHANGED = 6;
+    public static final int CONFIG_CHANGED = 7;
+    
+    private ServerState server;
+    private ClusterManagers managers;
+    
+    private final Queue<ClusterEvent> pending = new ConcurrentLinkedQueue<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder mergedBatches = new LongAdder();
+    
+    public ClusterEventManager(ClusterManagers managers) {
+        this.managers = managers;
+        this.server = managers.server;
+    }
+    
+    /**
+     * Listener registration
+     */
+    public boolean clusterAddListener(Object listener, int kind) {
+        if (listener == null) return false;
+        synchronized (subscribers) {
+            for (Subscriber s : subscribers) if (s.listener == listener && s.kind == kind) return false;
+            return subscribers.add(new Subscriber(listener, kind));
+        }
+    }
+    
+    public boolean clusterRemoveListener(Object listener, int kind) {
+        if (listener == null) return false;
+        synchronized (subscribers) {
+            for (Subscriber s : subscribers) if (s.listener == listener && s.kind == kind) return subscribers.remove(s);
+            return false;
+        }
+    }
+    
+    /**
+     * Event posting, safe from any thread
+     */
+    public void clusterPostNodeEvent(int type, ClusterNode node) {
+        pending.offer(new ClusterEvent(type, node, null, null, null));
+    }
+    
+    public void clusterPostNodeEvent(int type, ClusterNodeInfo info) {
+        pending.offer(new ClusterEvent(type, null, info, null, null));
+    }
+    
+    public void clusterPostStateEvent(ClusterState state) {
+        pending.offer(new ClusterEvent(STATE_CHANGED, null, null, state, null));
+    }
+    
+    public void clusterPostConfigEvent(ClusterConfigInfo config) {
+        pending.offer(new ClusterEvent(CONFIG_CHANGED, null, null, null, config));
+    }
+    
+    /**
+     * Called on the cron thread with the config snapshot taken at the end of the tick.
+     */
+    public void clusterPublishEvents(ClusterConfigInfo snapshot) {
+        if (pending.isEmpty()) return;
+        int mask = 0;
+        ClusterEvent config = null;
+        Map<String, Integer> last = new HashMap<>();
+        List<ClusterEvent> events = new ArrayList<>();
+        for (ClusterEvent event; (event = pending.poll()) != null; ) {
+            if (event.type == CONFIG_CHANGED) {
+                config = event;
+                continue;
+            }
+            if (event.node != null) {
+                ClusterNodeInfo info = snapshot.getNodes().get(event.node.name);
+                event.info = info != null ? info : ClusterNodeInfo.valueOf(event.node, server.myself);
+            }
+            if (event.info != null) {
+                Integer prev = last.put(event.info.getName(), event.type);
+                if (prev != null && prev == event.type) continue;
+            }
+            mask |= event.kind();
+            events.add(event);
+        }
+        if (config != null) {
+            mask |= config.kind();
+            events.add(config);
+        }
+        if (events.isEmpty()) return;
+        publishedBatches.increment();
+        publishedEvents.add(events.size());
+        List<ClusterEvent> batch = Collections.unmodifiableList(events);
+        for (Subscriber s : subscribers) if ((s.kind & mask) != 0) s.offer(batch);
+    }
+    
+    /**
+     *
+     */
+    public long getPublishedEvents() {
+        return publishedEvents.sum();
+    }
+    
+    public long getPublishedBatches() {
+        return publishedBatches.sum();
+    }
+    
+    public long getMergedBatches() {
+        return mergedBatches.sum();
+    }
+    
+    public int getListeners() {
+        return subscribers.size();
+    }
+    
+    private static class ClusterEvent {
+        private final int type;
+        private final ClusterNode node;
+        private final ClusterState state;
+        private final ClusterConfigInfo config;
+        private ClusterNodeInfo info;
+        
+        private ClusterEvent(int type, ClusterNode node, ClusterNodeInfo info, ClusterState state, ClusterConfigInfo config) {
+            this.type = type;
+            this.node = node;
+            this.info = info;
+            this.state = state;
+            this.config = config;
+        }
+        
+        /**
+         * a later event of the same key supersedes this one when batches are merged
+         */
+        private Object key() {
+            if (type == STATE_CHANGED || type == CONFIG_CHANGED) return type;
+            return info != null ? info.getName() : this;
+        }
+        
+        private int kind() {
+            if (type == STATE_CHANGED) return EVENT_STATE;
+            if (type == CONFIG_CHANGED) return EVENT_CONFIG;
+            return EVENT_NODE;
+        }
+    }
+    
+    private class Subscriber implements Runnable {
+        private final int kind;
+        private final Object listener;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ArrayDeque<List<ClusterEvent>> queue = new ArrayDeque<>(CLUSTER_EVENT_QUEUE_CAPACITY);
+        
+        private Subscriber(Object listener, int kind) {
+            this.kind = kind;
+            this.listener = listener;
+        }
+        
+        private void offer(List<ClusterEvent> batch) {
+            synchronized (queue) {
+                if (queue.size() < CLUSTER_EVENT_QUEUE_CAPACITY) {
+                    queue.offerLast(batch);
+                } else {
+                    queue.offerLast(merge(queue.pollLast(), batch));
+                    mergedBatches.increment();
+                }
+            }
+            schedule();
+        }
+        
+        private List<ClusterEvent> poll() {
+            synchronized (queue) {
+                return queue.poll();
+            }
+        }
+        
+        private boolean isEmpty() {
+            synchronized (queue) {
+                return queue.isEmpty();
+            }
+        }
+        
+        /**
+         * keeps the latest event of every node and the latest state and config event in their order,
+         * so a merged batch never grows past one event per node plus two
+         */
+        private List<ClusterEvent> merge(List<ClusterEvent> older, List<ClusterEvent> newer) {
+            Set<Object> seen = new HashSet<>();
+            ArrayDeque<ClusterEvent> events = new ArrayDeque<>(older.size() + newer.size());
+            for (List<ClusterEvent> batch : Arrays.asList(newer, older)) {
+                for (ListIterator<ClusterEvent> it = batch.listIterator(batch.size()); it.hasPrevious(); ) {
+                    ClusterEvent event = it.previous();
+                    if (seen.add(event.key())) events.offerFirst(event);
+                }
+            }
+            return Collections.unmodifiableList(new ArrayList<>(events));
+        }
+        
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                managers.worker.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+        
+        @Override
+        public void run() {
+            for (List<ClusterEvent> batch; (batch = poll()) != null; ) {
+                for (ClusterEvent event : batch) {
+                    if ((event.kind() & kind) == 0) continue;
+                    try {
+                        dispatch(event);
+                    } catch (Throwable e) {
+                        logger.error("listener error", e);
+                    }
+                }
+            }
+            scheduled.set(false);
+            if (!isEmpty()) schedule();
+        }
+        
+        private void dispatch(ClusterEvent event) {
+            switch (event.type) {
+                case NODE_ADDED:
+                    ((ClusterNodeListener) listener).onNodeAdded(event.info);
+                    break;
+                case NODE_DELETED:
+                    ((ClusterNodeListener) listener).onNodeDeleted(event.info);
+                    break;
+                case NODE_FAILED:
+                    ((ClusterNodeListener) listener).onNodeFailed(event.info);
+                    break;
+                case NODE_PFAILED:
+                    ((ClusterNodeListener) listener).onNodePFailed(event.info);
+                    break;
+                case UNSET_NODE_FAILED:
+                    ((ClusterNodeListener) listener).onUnsetNodeFailed(event.info);
+                    break;
+                case UNSET_NODE_PFAILED:
+                    ((ClusterNodeListener) listener).onUnsetNodePFailed(event.info);
+                    break;
+                case STATE_CHANGED:
+                    ((ClusterStateListener) listener).onStateChanged(event.state);
+                    break;
+                case CONFIG_CHANGED:
+                    ((ClusterConfigListener) listener).onConfigChanged(event.config);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterConfiguration;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
+import com.moilioncircle.redis.cluster.watchdog.util.PhiAccrualDetector;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_PHI_MIN_SAMPLES;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodePFailed;
+
+/**
+ * Optional adaptive PFAIL detection. Every PONG is a heartbeat of the sending node, a node with an
+ * outstanding ping is suspected once its phi crosses {@code clusterPhiThreshold}. The fixed
+ * {@code clusterNodeTimeout} still applies, the detector can only flag a node earlier.
+ * <p>
+ * The PONGs answer our own pings, so the learned inter-arrival times are mostly our randomized ping
+ * schedule plus the round trip: the estimate is conditioned on our ping cadence, not on the peer alone.
+ * The interval that ends with the PONG clearing a PFAIL or FAIL spans the outage and is not sampled,
+ * so a recovery does not inflate the mean.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterFailureDetectorManager {
+    
+    private ClusterConfiguration configuration;
+    
+    public ClusterFailureDetectorManager(ClusterManagers managers) {
+        this.configuration = managers.configuration;
+    }
+    
+    public void clusterNodeHeartbeat(ClusterNode node, long now) {
+        if (!configuration.isClusterPhiDetector()) return;
+        if (node.detector == null) node.detector = new PhiAccrualDetector(configuration.getClusterPhiWindow());
+        // called before the PONG clears the flags
+        if (nodePFailed(node.flags) || nodeFailed(node.flags)) node.detector.restart(now);
+        else node.detector.heartbeat(now);
+    }
+    
+    public double clusterNodePhi(ClusterNode node, long now) {
+        PhiAccrualDetector detector = node.detector;
+        if (detector == null) return 0d;
+        return detector.phi(now, configuration.getClusterPhiMinStdDeviation());
+    }
+    
+    public boolean clusterNodeSuspected(ClusterNode node, long now) {
+        if (!clusterNodeDetectable(node)) return false;
+        return clusterNodePhi(node, now) >= configuration.getClusterPhiThreshold();
+    }
+    
+    /**
+     * @return the time at which {@code node} will be suspected if no PONG arrives, -1 if unknown.
+     */
+    public long clusterNodeSuspectTime(ClusterNode node) {
+        if (!clusterNodeDetectable(node)) return -1L;
+        double threshold = configuration.getClusterPhiThreshold();
+        return node.detector.deadline(threshold, configuration.getClusterPhiMinStdDeviation());
+    }
+    
+    private boolean clusterNodeDetectable(ClusterNode node) {
+        if (!configuration.isClusterPhiDetector()) return false;
+        if (node.pingTime == 0 || node.pongTime >= node.pingTime) return false;
+        return node.detector != null && node.detector.samples() >= CLUSTER_PHI_MIN_SAMPLES;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
+import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_IMPORT_BATCH_MAX;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_IMPORT_CHUNK_MIN;
+import static com.moilioncircle.redis.cluster.watchdog.codec.RedisReplyWriter.writer;
+import static com.moilioncircle.redis.cluster.watchdog.codec.rdb.RdbValueCodec.verify;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.equalsIgnoreCase;
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.parseLong;
+
+/**
+ * Bulk import of {@code RESTORE-ASKING} into slots we are importing. Restores of a client are buffered
+ * until its current read batch is dispatched, together with the ones queued behind them, then restored
+ * in parallel on the {@code restore} executor and acknowledged in order with a single write. A batch is
+ * split by key hash, so all the restores of a key run on the same task in the order they arrived.
+ * The client is blocked meanwhile, so its later commands still reply after the restores.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterImportManager {
+    
+    private static final Log logger = LogFactory.getLog(ClusterImportManager.class);
+    
+    private ClusterManagers managers;
+    
+    private final AtomicLong importedKeys = new AtomicLong();
+    private final AtomicLong importBatches = new AtomicLong();
+    private final AtomicLong importTime = new AtomicLong();
+    
+    public ClusterImportManager(ClusterManagers managers) {
+        this.managers = managers;
+    }
+    
+    /**
+     * @param message a valid {@code RESTORE-ASKING} command
+     * @return false if the key is not in an importing slot and should be restored directly
+     */
+    public boolean clusterImport(Transport<byte[][]> t, byte[][] message) {
+        if (!clusterImporting(message[1])) return false;
+        ClientState client = (ClientState) t.getAttachment();
+        if (client == null || client.blocked) return false;
+        client.imports.add(message);
+        client.blocked = true;
+        t.execute(() -> clusterFlushImports(t, client));
+        return true;
+    }
+    
+    private boolean clusterImporting(byte[] key) {
+        return managers.views.getClusterView().getImportingSource(StorageEngine.calcSlot(key)) != null;
+    }
+    
+    /**
+     * Same checks as {@link com.moilioncircle.redis.cluster.watchdog.command.RestoreCommandHandler}, commands
+     * that fail them are left to it so the client gets the usual error.
+     */
+    private boolean clusterImportable(byte[][] message) {
+        if (message.length != 4 && message.length != 5) return false;
+        if (!equalsIgnoreCase(message[0], "restore-asking")) return false;
+        if (message[1] == null || message[3] == null) return false;
+        if (message.length == 5 && !equalsIgnoreCase(message[4], "replace")) return false;
+        try {
+            if (parseLong(message[2]) < 0) return false;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return clusterImporting(message[1]);
+    }
+    
+    private void clusterFlushImports(Transport<byte[][]> t, ClientState client) {
+        List<byte[][]> batch = client.imports;
+        client.imports = new ArrayList<>();
+        while (batch.size() < CLUSTER_IMPORT_BATCH_MAX) {
+            byte[][] message = client.pending.peek();
+            if (message == null || !clusterImportable(message)) break;
+            batch.add(client.pending.poll());
+        }
+        
+        long start = System.nanoTime();
+        int size = batch.size();
+        String[] errors = new String[size];
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[][] partitions = clusterPartitionImports(batch, Math.min(threads, (size + CLUSTER_IMPORT_CHUNK_MIN - 1) / CLUSTER_IMPORT_CHUNK_MIN));
+        AtomicInteger remaining = new AtomicInteger(partitions.length);
+        Runnable done = () -> t.execute(() -> {
+            RedisReplyWriter writer = writer(size * 5);
+            for (String error : errors) {
+                if (error == null) writer.status("OK");
+                else writer.error(error);
+            }
+            writer.write(t, true);
+            importedKeys.addAndGet(size);
+            importBatches.incrementAndGet();
+            importTime.addAndGet(System.nanoTime() - start);
+            managers.commands.clusterUnblockClient(t, client);
+        });
+        for (int[] partition : partitions) {
+            try {
+                managers.restore.execute(() -> {
+                    for (int i : partition) errors[i] = clusterRestore(batch.get(i));
+                    if (remaining.decrementAndGet() == 0) done.run();
+                });
+            } catch (RejectedExecutionException e) {
+                for (int i : partition) errors[i] = "ERR Failed to restore, the watchdog is shutting down";
+                if (remaining.decrementAndGet() == 0) done.run();
+            }
+        }
+    }
+    
+    /**
+     * @return the indexes of the batch split in at most {@code n} non empty partitions by key hash, in arrival order
+     */
+    private static int[][] clusterPartitionImports(List<byte[][]> batch, int n) {
+        int size = batch.size();
+        if (n <= 1) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) all[i] = i;
+            return new int[][]{all};
+        }
+        int[] owners = new int[size], counts = new int[n];
+        for (int i = 0; i < size; i++) {
+            int h = Arrays.hashCode(batch.get(i)[1]) * 0x9E3779B9;
+            counts[owners[i] = (h >>> 1) % n]++;
+        }
+        int[][] partitions = new int[n][];
+        for (int p = 0; p < n; p++) partitions[p] = new int[counts[p]];
+        int[] next = new int[n];
+        for (int i = 0; i < size; i++) partitions[owners[i]][next[owners[i]]++] = i;
+        return Arrays.stream(partitions).filter(p -> p.length > 0).toArray(int[][]::new);
+    }
+    
+    private String clusterRestore(byte[][] message) {
+        if (!verify(message[3])) return "ERR DUMP payload version or checksum are wrong";
+        try {
+            long ttl = parseLong(message[2]);
+            long expire = ttl == 0 ? 0 : System.currentTimeMillis() + ttl;
+            managers.engine.restore(message[1], message[3], expire, message.length == 5);
+            return null;
+        } catch (Throwable e) {
+            logger.error("Failed to restore key in importing slot", e);
+            return "ERR Bad data format";
+        }
+    }
+    
+    public long getImportedKeys() {
+        return importedKeys.get();
+    }
+    
+    public long getImportBatches() {
+        return importBatches.get();
+    }
+    
+    public long getImportTime() {
+        return importTime.get();
+    }
+}
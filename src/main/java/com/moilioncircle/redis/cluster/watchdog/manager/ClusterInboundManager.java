@@ -0,0 +1,291 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo;
+import com.moilioncircle.redis.cluster.watchdog.message.ClusterMessage;
+import com.moilioncircle.redis.cluster.watchdog.message.RCmbMessage;
+import com.moilioncircle.redis.cluster.watchdog.message.handler.ClusterMessageHandler;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterLink;
+import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
+import com.moilioncircle.redis.cluster.watchdog.util.concurrent.ring.RingBuffer;
+import com.moilioncircle.redis.cluster.watchdog.util.net.transport.Transport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConfigInfo.valueOf;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_FAIL;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_FAILOVER_AUTH_ACK;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_FAILOVER_AUTH_REQUEST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_MFSTART;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_UPDATE;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_INBOUND_BATCH;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_INBOUND_CAPACITY;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_INBOUND_CRITICAL_BURST;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_INBOUND_CRITICAL_CAPACITY;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SIGNATURE;
+
+/**
+ * Single-writer core of the cluster bus. Netty threads decode and pre-validate messages
+ * and publish them into pre-allocated rings, the cron thread drains the rings and is the
+ * only thread that mutates {@link ServerState#cluster}.
+ * <p>
+ * Failure and election messages go to a critical lane that is drained before routine gossip.
+ * At most {@code CLUSTER_INBOUND_CRITICAL_BURST} critical messages run back to back before
+ * one routine message is let through, so gossip is never starved.
+ * <p>
+ * When a ring is full the message goes to the overflow queue of its lane and the connection
+ * stops reading until the drain has emptied the overflow. While a lane has overflow every new
+ * message of that lane is queued behind it, so messages of a link are still handled in order.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterInboundManager {
+    
+    private static final Log logger = LogFactory.getLog(ClusterInboundManager.class);
+    
+    public static final int LANE_CRITICAL = 0;
+    public static final int LANE_ROUTINE = 1;
+    
+    private ServerState server;
+    private ClusterManagers managers;
+    
+    private final Runnable drain = this::clusterDrainMessages;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Queue<Transport<RCmbMessage>> paused = new ConcurrentLinkedQueue<>();
+    private final InboundLane[] lanes = new InboundLane[]{
+            new InboundLane("critical", CLUSTER_INBOUND_CRITICAL_CAPACITY),
+            new InboundLane("routine", CLUSTER_INBOUND_CAPACITY)
+    };
+    
+    /**
+     * metrics
+     */
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private volatile long handleTime;
+    private volatile long maxHandleTime;
+    
+    public ClusterInboundManager(ClusterManagers managers) {
+        this.managers = managers;
+        this.server = managers.server;
+    }
+    
+    public static int clusterMessageLane(int type) {
+        switch (type) {
+            case CLUSTERMSG_TYPE_FAIL:
+            case CLUSTERMSG_TYPE_UPDATE:
+            case CLUSTERMSG_TYPE_MFSTART:
+            case CLUSTERMSG_TYPE_FAILOVER_AUTH_ACK:
+            case CLUSTERMSG_TYPE_FAILOVER_AUTH_REQUEST:
+                return LANE_CRITICAL;
+            default:
+                return LANE_ROUTINE;
+        }
+    }
+    
+    /**
+     * Called from netty threads. {@code link} is null for accepted connections
+     * and resolved from {@code t} on the cron thread.
+     */
+    public void clusterPublishMessage(ClusterLink link, Transport<RCmbMessage> t, RCmbMessage message) {
+        ClusterMessage hdr = (ClusterMessage) message;
+        if (!CLUSTER_SIGNATURE.equals(hdr.signature) || managers.handlers.get(hdr.type) == null) {
+            dropped.increment();
+            return;
+        }
+        InboundLane lane = lanes[clusterMessageLane(hdr.type)];
+        long seq = lane.overflow.isEmpty() ? lane.ring.claim() : -1L;
+        if (seq == -1L) {
+            overflowed.increment();
+            paused.add(t);
+            t.setAutoRead(false);
+            lane.overflow.add(new InboundEvent().set(link, t, hdr));
+        } else {
+            lane.ring.get(seq).set(link, t, hdr);
+            lane.ring.publish(seq);
+        }
+        if (scheduled.compareAndSet(false, true)) managers.cron.execute(drain);
+    }
+    
+    /**
+     * Called on the cron thread before {@code clusterCron} so pending failure and
+     * election messages are applied before the periodic checks look at the state.
+     */
+    public void clusterDrainCriticalMessages() {
+        InboundLane critical = lanes[LANE_CRITICAL];
+        for (int i = 0; i < CLUSTER_INBOUND_BATCH; i++) {
+            if (!clusterProcessNext(critical)) break;
+        }
+    }
+    
+    public int getQueueDepth(int lane) {
+        return lanes[lane].ring.size();
+    }
+    
+    public int getQueueCapacity(int lane) {
+        return lanes[lane].ring.capacity();
+    }
+    
+    public String getLaneName(int lane) {
+        return lanes[lane].name;
+    }
+    
+    public int getLanes() {
+        return lanes.length;
+    }
+    
+    public long getProcessed(int lane) {
+        return lanes[lane].processed;
+    }
+    
+    public long getWaitTime(int lane) {
+        return lanes[lane].waitTime;
+    }
+    
+    public long getMaxWaitTime(int lane) {
+        return lanes[lane].maxWaitTime;
+    }
+    
+    public long getDropped() {
+        return dropped.sum();
+    }
+    
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+    
+    public long getHandleTime() {
+        return handleTime;
+    }
+    
+    public long getMaxHandleTime() {
+        return maxHandleTime;
+    }
+    
+    private void clusterDrainMessages() {
+        InboundLane critical = lanes[LANE_CRITICAL], routine = lanes[LANE_ROUTINE];
+        ClusterConfigInfo previous = valueOf(server.cluster);
+        for (int i = 0, burst = 0; i < CLUSTER_INBOUND_BATCH; i++) {
+            if (burst < CLUSTER_INBOUND_CRITICAL_BURST && clusterProcessNext(critical)) {
+                burst++;
+            } else if (clusterProcessNext(routine)) {
+                burst = 0;
+            } else if (!clusterProcessNext(critical)) {
+                break;
+            }
+        }
+        managers.configs.clusterUpdateConfig(previous, valueOf(server.cluster));
+        
+        scheduled.set(false);
+        if (critical.isEmpty() && routine.isEmpty()) {
+            for (Transport<RCmbMessage> t; (t = paused.poll()) != null; ) t.setAutoRead(true);
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) managers.cron.execute(drain);
+    }
+    
+    /**
+     * The ring is drained before the overflow, entries published to the ring before a message
+     * overflowed are older than it and no message is published to the ring while there is overflow.
+     */
+    private boolean clusterProcessNext(InboundLane lane) {
+        long seq = lane.ring.peek();
+        if (seq == -1L) {
+            InboundEvent event = lane.overflow.poll();
+            if (event == null) return false;
+            clusterProcessMessage(lane, event.link, event.transport, event.message, event.time);
+            return true;
+        }
+        InboundEvent event = lane.ring.get(seq);
+        ClusterLink link = event.link;
+        Transport<RCmbMessage> t = event.transport;
+        ClusterMessage hdr = event.message;
+        long time = event.time;
+        event.clear();
+        lane.ring.release(seq);
+        clusterProcessMessage(lane, link, t, hdr, time);
+        return true;
+    }
+    
+    private void clusterProcessMessage(InboundLane lane, ClusterLink link, Transport<RCmbMessage> t, ClusterMessage hdr, long time) {
+        long start = System.nanoTime();
+        try {
+            if (link == null) link = server.cfd.get(t);
+            if (link == null) return; // disconnected while queued
+            ClusterMessageHandler handler = managers.handlers.get(hdr.type);
+            handler.handle(link, hdr);
+            managers.timers.clusterScheduleNode(link.node);
+            managers.timers.clusterScheduleNode(managers.nodes.clusterLookupNode(hdr.name));
+        } catch (Throwable e) {
+            logger.error("Failed to process message type " + hdr.type + " from " + hdr.name, e);
+        } finally {
+            long end = System.nanoTime();
+            long wait = start - time, handle = end - start;
+            lane.processed++;
+            lane.waitTime += wait;
+            if (wait > lane.maxWaitTime) lane.maxWaitTime = wait;
+            this.handleTime += handle;
+            if (handle > maxHandleTime) this.maxHandleTime = handle;
+        }
+    }
+    
+    private static class InboundLane {
+        private final String name;
+        private final RingBuffer<InboundEvent> ring;
+        private final Queue<InboundEvent> overflow = new ConcurrentLinkedQueue<>();
+        private volatile long processed;
+        private volatile long waitTime;
+        private volatile long maxWaitTime;
+        
+        private InboundLane(String name, int capacity) {
+            this.name = name;
+            this.ring = new RingBuffer<>(capacity, InboundEvent::new);
+        }
+        
+        private boolean isEmpty() {
+            return ring.isEmpty() && overflow.isEmpty();
+        }
+    }
+    
+    private static class InboundEvent {
+        private long time;
+        private ClusterLink link;
+        private ClusterMessage message;
+        private Transport<RCmbMessage> transport;
+        
+        private InboundEvent set(ClusterLink link, Transport<RCmbMessage> transport, ClusterMessage message) {
+            this.link = link;
+            this.message = message;
+            this.transport = transport;
+            this.time = System.nanoTime();
+            return this;
+        }
+        
+        private void clear() {
+            this.link = null;
+            this.message = null;
+            this.transport = null;
+        }
+    }
+}
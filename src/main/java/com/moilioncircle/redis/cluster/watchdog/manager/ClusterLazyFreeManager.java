@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Reclaims the data of slots we lost on the {@code lazyfree} executor, so that the cron thread
+ * only pays for {@link com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine#detach(int)}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterLazyFreeManager {
+    
+    private static final Log logger = LogFactory.getLog(ClusterLazyFreeManager.class);
+    
+    private ClusterManagers managers;
+    
+    private final AtomicLong pendingSlots = new AtomicLong();
+    private final AtomicLong freedSlots = new AtomicLong();
+    private final AtomicLong freedKeys = new AtomicLong();
+    private final AtomicLong freeTime = new AtomicLong();
+    
+    public ClusterLazyFreeManager(ClusterManagers managers) {
+        this.managers = managers;
+    }
+    
+    public void clusterLazyFreeSlot(int slot) {
+        LongSupplier reclaim = managers.engine.detach(slot);
+        pendingSlots.incrementAndGet();
+        managers.lazyfree.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                freedKeys.addAndGet(reclaim.getAsLong());
+            } catch (Throwable e) {
+                logger.error("Failed to free keys in slot " + slot, e);
+            } finally {
+                freeTime.addAndGet(System.nanoTime() - start);
+                freedSlots.incrementAndGet();
+                pendingSlots.decrementAndGet();
+            }
+        });
+    }
+    
+    public long getPendingSlots() {
+        return pendingSlots.get();
+    }
+    
+    public long getFreedSlots() {
+        return freedSlots.get();
+    }
+    
+    public long getFreedKeys() {
+        return freedKeys.get();
+    }
+    
+    public long getFreeTime() {
+        return freeTime.get();
+    }
+}
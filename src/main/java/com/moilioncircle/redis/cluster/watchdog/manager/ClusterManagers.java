@@ -23,10 +23,12 @@ import com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo;
 import com.moilioncircle.redis.cluster.watchdog.ClusterNodeListener;
 import com.moilioncircle.redis.cluster.watchdog.ClusterState;
 import com.moilioncircle.redis.cluster.watchdog.ClusterStateListener;
+import com.moilioncircle.redis.cluster.watchdog.ClusterView;
 import com.moilioncircle.redis.cluster.watchdog.ClusterWatchdog;
 import com.moilioncircle.redis.cluster.watchdog.ReplicationListener;
 import com.moilioncircle.redis.cluster.watchdog.Resourcable;
 import com.moilioncircle.redis.cluster.watchdog.command.CommandHandler;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
 import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
 import com.moilioncircle.redis.cluster.watchdog.storage.DefaultStorageEngine;
 import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
@@ -36,6 +38,16 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.EVENT_CONFIG;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.EVENT_NODE;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.EVENT_STATE;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.NODE_ADDED;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.NODE_DELETED;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.NODE_FAILED;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.NODE_PFAILED;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.UNSET_NODE_FAILED;
+import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterEventManager.UNSET_NODE_PFAILED;
+
 /**
  * @author Leon Chen
  * @since 1.0.0
@@ -46,16 +58,29 @@ public class ClusterManagers implements Resourcable {
     public StorageEngine engine;
     public ExecutorService config;
     public ExecutorService worker;
+    public ExecutorService lazyfree;
+    public ExecutorService migrate;
+    public ExecutorService restore;
     public ClusterWatchdog watchdog;
     public ScheduledExecutorService cron;
     //
     public ClusterSlotManager slots;
+    public ClusterLazyFreeManager lazyfrees;
+    public ClusterMigrateManager migrates;
+    public ClusterImportManager imports;
+    public ClusterCacheManager caches;
+    public ClusterEventManager events;
+    public ClusterViewManager views;
+    public ClusterRedirectManager redirects;
     public ClusterNodeManager nodes;
     public ClusterStateManager states;
+    public ClusterTimerManager timers;
     public ClusterConfigManager configs;
     public ClusterMessageManager messages;
+    public ClusterInboundManager inbounds;
     public ReplicationManager replications;
     public ClusterFailoverManager failovers;
+    public ClusterFailureDetectorManager detectors;
     public ClusterConfiguration configuration;
     public ClusterBlacklistManager blacklists;
     public ClusterConnectionManager connections;
@@ -74,12 +99,22 @@ public class ClusterManagers implements Resourcable {
         this.engine = new DefaultStorageEngine();
         //
         this.slots = new ClusterSlotManager(this);
+        this.lazyfrees = new ClusterLazyFreeManager(this);
+        this.migrates = new ClusterMigrateManager(this);
+        this.imports = new ClusterImportManager(this);
+        this.caches = new ClusterCacheManager(this);
+        this.events = new ClusterEventManager(this);
+        this.views = new ClusterViewManager(this);
+        this.redirects = new ClusterRedirectManager(this);
         this.nodes = new ClusterNodeManager(this);
         this.states = new ClusterStateManager(this);
+        this.timers = new ClusterTimerManager(this);
         this.configs = new ClusterConfigManager(this);
         this.messages = new ClusterMessageManager(this);
+        this.inbounds = new ClusterInboundManager(this);
         this.replications = new ReplicationManager(this);
         this.failovers = new ClusterFailoverManager(this);
+        this.detectors = new ClusterFailureDetectorManager(this);
         this.connections = new ClusterConnectionManager();
         this.blacklists = new ClusterBlacklistManager(this);
         this.commands = new ClusterCommandHandlerManager(this);
@@ -87,6 +122,9 @@ public class ClusterManagers implements Resourcable {
         //
         this.config = Executors.newSingleThreadExecutor();
         this.worker = Executors.newSingleThreadExecutor();
+        this.lazyfree = Executors.newSingleThreadExecutor();
+        this.migrate = Executors.newSingleThreadExecutor();
+        this.restore = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
         this.cron = Executors.newSingleThreadScheduledExecutor();
     }
     
@@ -99,53 +137,32 @@ public class ClusterManagers implements Resourcable {
         return r.onGetSlaveOffset();
     }
     
-    public void notifyNodeAdded(ClusterNodeInfo node) {
-        ClusterNodeListener r = this.clusterNodeListener;
-        worker.submit(() -> {
-            if (r != null) r.onNodeAdded(node);
-        });
+    public void notifyNodeAdded(ClusterNode node) {
+        events.clusterPostNodeEvent(NODE_ADDED, node);
     }
     
     public void notifyNodeDeleted(ClusterNodeInfo node) {
-        ClusterNodeListener r = this.clusterNodeListener;
-        worker.submit(() -> {
-            if (r != null) r.onNodeDeleted(node);
-        });
+        events.clusterPostNodeEvent(NODE_DELETED, node);
     }
     
-    public void notifyNodeFailed(ClusterNodeInfo failed) {
-        ClusterNodeListener r = this.clusterNodeListener;
-        worker.submit(() -> {
-            if (r != null) r.onNodeFailed(failed);
-        });
+    public void notifyNodeFailed(ClusterNode failed) {
+        events.clusterPostNodeEvent(NODE_FAILED, failed);
     }
     
     public void notifyConfigChanged(ClusterConfigInfo info) {
-        ClusterConfigListener r = this.clusterConfigListener;
-        worker.submit(() -> {
-            if (r != null) r.onConfigChanged(info);
-        });
+        events.clusterPostConfigEvent(info);
     }
     
     public void notifyStateChanged(ClusterState state) {
-        ClusterStateListener r = this.clusterStateListener;
-        worker.submit(() -> {
-            if (r != null) r.onStateChanged(state);
-        });
+        events.clusterPostStateEvent(state);
     }
     
-    public void notifyNodePFailed(ClusterNodeInfo pfailed) {
-        ClusterNodeListener r = this.clusterNodeListener;
-        worker.submit(() -> {
-            if (r != null) r.onNodePFailed(pfailed);
-        });
+    public void notifyNodePFailed(ClusterNode pfailed) {
+        events.clusterPostNodeEvent(NODE_PFAILED, pfailed);
     }
     
-    public void notifyUnsetNodeFailed(ClusterNodeInfo failed) {
-        ClusterNodeListener r = this.clusterNodeListener;
-        worker.submit(() -> {
-            if (r != null) r.onUnsetNodeFailed(failed);
-        });
+    public void notifyUnsetNodeFailed(ClusterNode failed) {
+        events.clusterPostNodeEvent(UNSET_NODE_FAILED, failed);
     }
     
     public void notifyUnsetReplication(StorageEngine engine) {
@@ -155,11 +172,8 @@ public class ClusterManagers implements Resourcable {
         });
     }
     
-    public void notifyUnsetNodePFailed(ClusterNodeInfo pfailed) {
-        ClusterNodeListener r = this.clusterNodeListener;
-        worker.submit(() -> {
-            if (r != null) r.onUnsetNodePFailed(pfailed);
-        });
+    public void notifyUnsetNodePFailed(ClusterNode pfailed) {
+        events.clusterPostNodeEvent(UNSET_NODE_PFAILED, pfailed);
     }
     
     public void notifySetReplication(String ip, int host, StorageEngine engine) {
@@ -180,12 +194,26 @@ public class ClusterManagers implements Resourcable {
         return this.commands.addCommandHandler(name, handler);
     }
     
+    public ClusterView getClusterView() {
+        return this.views.getClusterView();
+    }
+    
     public synchronized ClusterNodeListener setClusterNodeListener(ClusterNodeListener clusterNodeListener) {
         ClusterNodeListener r = this.clusterNodeListener;
         this.clusterNodeListener = clusterNodeListener;
+        this.events.clusterRemoveListener(r, EVENT_NODE);
+        this.events.clusterAddListener(clusterNodeListener, EVENT_NODE);
         return r;
     }
     
+    public boolean addClusterNodeListener(ClusterNodeListener clusterNodeListener) {
+        return this.events.clusterAddListener(clusterNodeListener, EVENT_NODE);
+    }
+    
+    public boolean removeClusterNodeListener(ClusterNodeListener clusterNodeListener) {
+        return this.events.clusterRemoveListener(clusterNodeListener, EVENT_NODE);
+    }
+    
     public synchronized ReplicationListener setReplicationListener(ReplicationListener replicationListener) {
         ReplicationListener r = this.replicationListener;
         this.replicationListener = replicationListener;
@@ -195,15 +223,35 @@ public class ClusterManagers implements Resourcable {
     public synchronized ClusterStateListener setClusterStateListener(ClusterStateListener clusterStateListener) {
         ClusterStateListener r = this.clusterStateListener;
         this.clusterStateListener = clusterStateListener;
+        this.events.clusterRemoveListener(r, EVENT_STATE);
+        this.events.clusterAddListener(clusterStateListener, EVENT_STATE);
         return r;
     }
     
+    public boolean addClusterStateListener(ClusterStateListener clusterStateListener) {
+        return this.events.clusterAddListener(clusterStateListener, EVENT_STATE);
+    }
+    
+    public boolean removeClusterStateListener(ClusterStateListener clusterStateListener) {
+        return this.events.clusterRemoveListener(clusterStateListener, EVENT_STATE);
+    }
+    
     public synchronized ClusterConfigListener setClusterConfigListener(ClusterConfigListener clusterConfigListener) {
         ClusterConfigListener r = this.clusterConfigListener;
         this.clusterConfigListener = clusterConfigListener;
+        this.events.clusterRemoveListener(r, EVENT_CONFIG);
+        this.events.clusterAddListener(clusterConfigListener, EVENT_CONFIG);
         return r;
     }
     
+    public boolean addClusterConfigListener(ClusterConfigListener clusterConfigListener) {
+        return this.events.clusterAddListener(clusterConfigListener, EVENT_CONFIG);
+    }
+    
+    public boolean removeClusterConfigListener(ClusterConfigListener clusterConfigListener) {
+        return this.events.clusterRemoveListener(clusterConfigListener, EVENT_CONFIG);
+    }
+    
     @Override
     public void start() {
         this.engine.start();
@@ -232,6 +280,29 @@ public class ClusterManagers implements Resourcable {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        
+        try {
+            this.lazyfree.shutdown();
+            this.lazyfree.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        try {
+            this.migrate.shutdown();
+            this.migrate.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.migrates.clusterCloseMigrateSockets();
+        
+        try {
+            this.restore.shutdown();
+            this.restore.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.caches.clusterReleaseReplies();
         this.engine.stop(timeout, unit);
     }
 }
@@ -40,6 +40,7 @@ import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERM
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_PONG;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_UPDATE;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_BROADCAST_LOCAL_SLAVES;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SIGNATURE;
 import static com.moilioncircle.redis.cluster.watchdog.Version.PROTOCOL_V0;
 import static com.moilioncircle.redis.cluster.watchdog.Version.PROTOCOL_V1;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
@@ -127,7 +128,7 @@ public class ClusterMessageManager {
         hdr.busPort = configuration.getClusterAnnounceBusPort();
         if (myself.master != null) hdr.master = myself.master.name;
         hdr.type = type;
-        hdr.signature = "RCmb";
+        hdr.signature = CLUSTER_SIGNATURE;
         hdr.slots = myMaster.slots;
         hdr.state = server.cluster.state;
         hdr.configEpoch = myMaster.configEpoch;
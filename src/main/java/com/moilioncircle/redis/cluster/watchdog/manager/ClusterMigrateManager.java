@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.MIGRATE_BATCH_MAX_BYTES;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.MIGRATE_BATCH_MAX_KEYS;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.MIGRATE_BATCH_MIN_KEYS;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.MIGRATE_BATCH_TARGET_TIME;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.MIGRATE_SOCKET_CACHE_ITEMS;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.MIGRATE_SOCKET_CACHE_TTL;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Moves keys to another instance for {@code MIGRATE}. Runs on the {@code migrate} executor, which owns
+ * the cached target connections. Keys are sent as pipelined {@code RESTORE-ASKING} batches, a batch
+ * grows while its round trip stays under {@code MIGRATE_BATCH_TARGET_TIME} and shrinks when it takes
+ * twice as long.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterMigrateManager {
+    
+    private static final Log logger = LogFactory.getLog(ClusterMigrateManager.class);
+    
+    public static final String NOKEY = "NOKEY";
+    
+    private static final byte[] RESTORE_ASKING = "RESTORE-ASKING".getBytes();
+    private static final byte[] REPLACE = "REPLACE".getBytes();
+    
+    private ClusterManagers managers;
+    private final Map<String, MigrateSocket> sockets = new HashMap<>();
+    
+    private final AtomicLong migratedKeys = new AtomicLong();
+    private final AtomicLong migrateTime = new AtomicLong();
+    
+    public ClusterMigrateManager(ClusterManagers managers) {
+        this.managers = managers;
+    }
+    
+    /**
+     * @return null if the keys were migrated, {@link #NOKEY} if none of them exists, otherwise the error to reply with
+     */
+    public String clusterMigrate(String host, int port, int db, long timeout, boolean copy, boolean replace, byte[] auth, byte[][] keys) {
+        long start = System.nanoTime();
+        try {
+            return clusterMigrate(host, port, db, timeout, copy, replace, auth, keys, true);
+        } finally {
+            migrateTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+    
+    private String clusterMigrate(String host, int port, int db, long timeout, boolean copy, boolean replace, byte[] auth, byte[][] keys, boolean retry) {
+        MigrateSocket socket = clusterGetMigrateSocket(host, port, timeout);
+        if (socket == null) return "IOERR error or timeout connecting to the client";
+        
+        StorageEngine engine = managers.engine;
+        int index = 0;
+        byte[] password = auth;
+        // reading is the phase of the current batch, written stays true once a batch was flushed
+        boolean sent = false, written = false, reading = false;
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            socket.socket.setSoTimeout((int) timeout);
+            while (index < keys.length) {
+                // AUTH is sent once per call, SELECT only when the cached connection uses another db
+                boolean authenticate = password != null, select = socket.db != db;
+                if (authenticate) writeCommand(socket.out, "AUTH".getBytes(), password);
+                if (select) writeCommand(socket.out, "SELECT".getBytes(), String.valueOf(db).getBytes());
+                password = null;
+                reading = false;
+                
+                batch.clear();
+                for (long bytes = 0; index < keys.length && batch.size() < socket.batch && bytes < MIGRATE_BATCH_MAX_BYTES; index++) {
+                    byte[] key = keys[index];
+                    byte[] payload = engine.dump(key);
+                    if (payload == null) continue;
+                    long ttl = engine.ttl(key);
+                    if (ttl == -1L || ttl == -2L) continue;
+                    if (replace) writeCommand(socket.out, RESTORE_ASKING, key, String.valueOf(ttl).getBytes(), payload, REPLACE);
+                    else writeCommand(socket.out, RESTORE_ASKING, key, String.valueOf(ttl).getBytes(), payload);
+                    batch.add(key);
+                    bytes += payload.length;
+                }
+                if (!authenticate && !select && batch.isEmpty()) break;
+                
+                long start = System.nanoTime();
+                socket.out.flush();
+                written = reading = true;
+                
+                String error = null;
+                if (authenticate) {
+                    String reply = readLine(socket.in);
+                    if (reply.charAt(0) == '-') error = reply.substring(1);
+                }
+                if (select) {
+                    String reply = readLine(socket.in);
+                    if (reply.charAt(0) != '-') socket.db = db;
+                    else if (error == null) error = reply.substring(1);
+                }
+                // like redis-server, nothing is deleted if AUTH or SELECT failed
+                boolean failed = error != null;
+                for (byte[] key : batch) {
+                    String reply = readLine(socket.in);
+                    if (reply.charAt(0) == '-') {
+                        if (error == null) error = reply.substring(1);
+                    } else if (!failed) {
+                        if (!copy) engine.delete(key);
+                        migratedKeys.incrementAndGet();
+                    }
+                }
+                sent |= !batch.isEmpty();
+                if (error != null) {
+                    return "ERR Target instance replied with error: " + error;
+                }
+                
+                long elapsed = NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (elapsed < MIGRATE_BATCH_TARGET_TIME && batch.size() == socket.batch) {
+                    socket.batch = Math.min(socket.batch << 1, MIGRATE_BATCH_MAX_KEYS);
+                } else if (elapsed > MIGRATE_BATCH_TARGET_TIME << 1) {
+                    socket.batch = Math.max(socket.batch >> 1, MIGRATE_BATCH_MIN_KEYS);
+                }
+            }
+            socket.lastUse = System.currentTimeMillis();
+            return sent ? null : NOKEY;
+        } catch (IOException e) {
+            clusterCloseMigrateSocket(host, port);
+            // a cached connection may have been closed by the target, retry once if nothing was written yet
+            if (retry && !written) return clusterMigrate(host, port, db, timeout, copy, replace, auth, keys, false);
+            return "IOERR error or timeout " + (reading ? "reading" : "writing") + " to target instance";
+        } catch (RuntimeException e) {
+            // e.g. an engine that does not support dump, the connection may hold unread replies
+            logger.error("Failed to migrate keys to " + host + ":" + port, e);
+            clusterCloseMigrateSocket(host, port);
+            return "ERR " + e.getMessage();
+        }
+    }
+    
+    private MigrateSocket clusterGetMigrateSocket(String host, int port, long timeout) {
+        String name = host + ":" + port;
+        MigrateSocket socket = sockets.get(name);
+        if (socket != null) {
+            socket.lastUse = System.currentTimeMillis();
+            return socket;
+        }
+        
+        if (sockets.size() == MIGRATE_SOCKET_CACHE_ITEMS) {
+            // evict a random cached connection like redis-server
+            Iterator<Map.Entry<String, MigrateSocket>> it = sockets.entrySet().iterator();
+            it.next().getValue().close();
+            it.remove();
+        }
+        
+        Socket s = new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), (int) timeout);
+            socket = new MigrateSocket(s);
+            sockets.put(name, socket);
+            return socket;
+        } catch (IOException e) {
+            logger.warn("Failed to connect to migrate target " + name + ": " + e.getMessage());
+            try {
+                s.close();
+            } catch (IOException ignore) {
+            }
+            return null;
+        }
+    }
+    
+    private void clusterCloseMigrateSocket(String host, int port) {
+        MigrateSocket socket = sockets.remove(host + ":" + port);
+        if (socket != null) socket.close();
+    }
+    
+    /**
+     * Called once per second from the cron thread, closes connections idle for {@code MIGRATE_SOCKET_CACHE_TTL}.
+     */
+    public void clusterMigrateCron() {
+        try {
+            managers.migrate.execute(() -> {
+                long now = System.currentTimeMillis();
+                Iterator<MigrateSocket> it = sockets.values().iterator();
+                while (it.hasNext()) {
+                    MigrateSocket socket = it.next();
+                    if (now - socket.lastUse <= MIGRATE_SOCKET_CACHE_TTL) continue;
+                    socket.close();
+                    it.remove();
+                }
+            });
+        } catch (RejectedExecutionException ignore) {
+        }
+    }
+    
+    /**
+     * Called on stop after the {@code migrate} executor terminated.
+     */
+    public void clusterCloseMigrateSockets() {
+        for (MigrateSocket socket : sockets.values()) socket.close();
+        sockets.clear();
+    }
+    
+    public long getMigratedKeys() {
+        return migratedKeys.get();
+    }
+    
+    public long getMigrateTime() {
+        return migrateTime.get();
+    }
+    
+    private static void writeCommand(OutputStream out, byte[]... args) throws IOException {
+        writeLength(out, '*', args.length);
+        for (byte[] arg : args) {
+            writeLength(out, '$', arg.length);
+            out.write(arg);
+            out.write('\r');
+            out.write('\n');
+        }
+    }
+    
+    private static void writeLength(OutputStream out, char type, long length) throws IOException {
+        out.write(type);
+        out.write(String.valueOf(length).getBytes());
+        out.write('\r');
+        out.write('\n');
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        byte[] buf = new byte[64];
+        int n = 0;
+        for (int c; ; ) {
+            if ((c = in.read()) == -1) throw new EOFException();
+            if (c == '\n') break;
+            if (n == buf.length) buf = Arrays.copyOf(buf, n << 1);
+            buf[n++] = (byte) c;
+        }
+        if (n > 0 && buf[n - 1] == '\r') n--;
+        if (n == 0) throw new IOException("Protocol error: empty reply");
+        return new String(buf, 0, n, UTF_8);
+    }
+    
+    private static class MigrateSocket {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private int db = -1;
+        private int batch = MIGRATE_BATCH_MIN_KEYS;
+        private long lastUse = System.currentTimeMillis();
+        
+        private MigrateSocket(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+        }
+        
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -24,9 +24,14 @@ import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -41,7 +46,6 @@ import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_SLAVE;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.HEX_CHARS;
-import static com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo.valueOf;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsMaster;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
@@ -61,6 +65,11 @@ public class ClusterNodeManager {
     private ClusterManagers managers;
     private ClusterConfiguration configuration;
     
+    /**
+     * failure reports by failing node, then by sender
+     */
+    private final Map<ClusterNode, Map<ClusterNode, ClusterNodeFailReport>> failReports = new HashMap<>();
+    
     public ClusterNodeManager(ClusterManagers managers) {
         this.managers = managers;
         this.server = managers.server;
@@ -78,7 +87,46 @@ public class ClusterNodeManager {
     }
     
     public boolean clusterAddNode(ClusterNode node) {
-        return server.cluster.nodes.put(node.name, node) == null;
+        boolean r = server.cluster.nodes.put(node.name, node) == null;
+        clusterIndexNodeAddress(node);
+        managers.timers.clusterScheduleNode(node);
+        return r;
+    }
+    
+    /**
+     * address index
+     */
+    public static String clusterNodeAddress(String ip, int port, int busPort) {
+        if (ip == null) return null;
+        return ip.toLowerCase() + ":" + port + "@" + busPort;
+    }
+    
+    public List<ClusterNode> clusterLookupNodesByAddress(String ip, int port, int busPort) {
+        List<ClusterNode> nodes = server.cluster.addresses.get(clusterNodeAddress(ip, port, busPort));
+        return nodes == null ? Collections.emptyList() : nodes;
+    }
+    
+    public void clusterSetNodeAddress(ClusterNode node, String ip, int port, int busPort) {
+        node.ip = ip;
+        node.port = port;
+        node.busPort = busPort;
+        if (Objects.equals(server.cluster.nodes.get(node.name), node)) clusterIndexNodeAddress(node);
+    }
+    
+    private void clusterIndexNodeAddress(ClusterNode node) {
+        String address = clusterNodeAddress(node.ip, node.port, node.busPort);
+        if (Objects.equals(address, node.address)) return;
+        clusterUnindexNodeAddress(node);
+        if (address == null) return;
+        node.address = address;
+        server.cluster.addresses.computeIfAbsent(address, k -> new ArrayList<>(1)).add(node);
+    }
+    
+    private void clusterUnindexNodeAddress(ClusterNode node) {
+        if (node.address == null) return;
+        List<ClusterNode> nodes = server.cluster.addresses.get(node.address);
+        if (nodes != null && nodes.remove(node) && nodes.isEmpty()) server.cluster.addresses.remove(node.address);
+        node.address = null;
     }
     
     public ClusterNode createClusterNode(String name, int flags) {
@@ -93,7 +141,7 @@ public class ClusterNodeManager {
         server.cluster.nodes.remove(node.name);
         node.name = name;
         clusterAddNode(node);
-        managers.notifyNodeAdded(valueOf(node, server.myself));
+        managers.notifyNodeAdded(node);
     }
     
     public void clusterDelNode(ClusterNode node) {
@@ -113,33 +161,62 @@ public class ClusterNodeManager {
      */
     public int clusterNodeFailureReportsCount(ClusterNode node) {
         clusterNodeCleanupFailureReports(node);
-        return node.failReports.size();
+        Map<ClusterNode, ClusterNodeFailReport> reports = failReports.get(node);
+        return reports == null ? 0 : reports.size();
     }
     
+    public List<ClusterNodeFailReport> clusterNodeGetFailureReports(ClusterNode node) {
+        clusterNodeCleanupFailureReports(node);
+        Map<ClusterNode, ClusterNodeFailReport> reports = failReports.get(node);
+        return reports == null ? Collections.emptyList() : new ArrayList<>(reports.values());
+    }
+    
+    /**
+     * reports are kept in refresh order, all of them share the same validity,
+     * so expired reports are always at the head.
+     */
     public boolean clusterNodeAddFailureReport(ClusterNode failing, ClusterNode sender) {
-        for (ClusterNodeFailReport report : failing.failReports) {
-            if (!Objects.equals(report.node, sender)) continue;
+        Map<ClusterNode, ClusterNodeFailReport> reports = failReports.computeIfAbsent(failing, this::clusterNodeCreateFailureReports);
+        ClusterNodeFailReport report = reports.remove(sender);
+        if (report != null) {
             report.createTime = System.currentTimeMillis();
+            reports.put(sender, report);
             return false;
         }
-        failing.failReports.add(new ClusterNodeFailReport(sender));
+        reports.put(sender, new ClusterNodeFailReport(sender));
         return true;
     }
     
     public boolean clusterNodeDelFailureReport(ClusterNode node, ClusterNode sender) {
-        Predicate<ClusterNodeFailReport> t = e -> Objects.equals(e.node, sender);
-        Optional<ClusterNodeFailReport> r = node.failReports.stream().filter(t).findFirst();
-        if (!r.isPresent()) return false;
-        node.failReports.remove(r.get());
+        Map<ClusterNode, ClusterNodeFailReport> reports = failReports.get(node);
+        if (reports == null || reports.remove(sender) == null) return false;
         clusterNodeCleanupFailureReports(node);
         return true;
     }
     
     public void clusterNodeCleanupFailureReports(ClusterNode node) {
-        List<ClusterNodeFailReport> reports = node.failReports;
+        Map<ClusterNode, ClusterNodeFailReport> reports = failReports.get(node);
+        if (reports == null) return;
         long max = configuration.getClusterNodeTimeout() * CLUSTER_FAIL_REPORT_VALIDITY_MULTI;
         long now = System.currentTimeMillis();
-        reports.removeIf(e -> now - e.createTime > max);
+        Iterator<ClusterNodeFailReport> it = reports.values().iterator();
+        while (it.hasNext() && now - it.next().createTime > max) it.remove();
+    }
+    
+    /**
+     * the map is kept until the node is freed, so the deprecated {@link ClusterNode#failReports} view
+     * is published once and stays live
+     */
+    @SuppressWarnings("deprecation")
+    private Map<ClusterNode, ClusterNodeFailReport> clusterNodeCreateFailureReports(ClusterNode node) {
+        Map<ClusterNode, ClusterNodeFailReport> reports = new LinkedHashMap<>();
+        node.failReports = Collections.unmodifiableCollection(reports.values());
+        return reports;
+    }
+    
+    @SuppressWarnings("deprecation")
+    private void clusterNodeFreeFailureReports(ClusterNode node) {
+        node.failReports = Collections.emptyList();
     }
     
     /**
@@ -178,6 +255,7 @@ public class ClusterNodeManager {
         node.flags &= ~CLUSTER_NODE_SLAVE;
         node.flags |= CLUSTER_NODE_MASTER;
         node.master = null;
+        managers.states.clusterAccountNode(node);
     }
     
     public long clusterGetMaxEpoch() {
@@ -189,8 +267,7 @@ public class ClusterNodeManager {
     
     public boolean clusterStartHandshake(String ip, int port, int busPort) {
         Predicate<ClusterNode> t = NodeStates::nodeInHandshake;
-        t = t.and(e -> e.ip.equalsIgnoreCase(ip) && e.port == port && e.busPort == busPort);
-        if (server.cluster.nodes.values().stream().anyMatch(t)) return false; //no handshake.
+        if (clusterLookupNodesByAddress(ip, port, busPort).stream().anyMatch(t)) return false; //no handshake.
         ClusterNode node = createClusterNode(null, CLUSTER_NODE_HANDSHAKE | CLUSTER_NODE_MEET);
         node.ip = ip;
         node.port = port;
@@ -203,6 +280,7 @@ public class ClusterNodeManager {
         if (nodeIsMaster(server.myself)) {
             server.myself.flags &= ~(CLUSTER_NODE_MASTER | CLUSTER_NODE_MIGRATE_TO);
             server.myself.flags |= CLUSTER_NODE_SLAVE;
+            managers.states.clusterAccountNode(server.myself);
             managers.slots.clusterCloseAllSlots();
         } else if (server.myself.master != null) {
             clusterNodeRemoveSlave(server.myself.master, server.myself);
@@ -212,6 +290,10 @@ public class ClusterNodeManager {
     }
     
     public void freeClusterNode(ClusterNode node) {
+        managers.states.clusterUnaccountNode(node);
+        managers.timers.clusterCancelNode(node);
+        clusterUnindexNodeAddress(node);
+        if (failReports.remove(node) != null) clusterNodeFreeFailureReports(node);
         if (nodeIsSlave(node) && node.master != null) clusterNodeRemoveSlave(node.master, node);
         server.cluster.nodes.remove(node.name);
         if (node.link != null) managers.connections.freeClusterLink(node.link);
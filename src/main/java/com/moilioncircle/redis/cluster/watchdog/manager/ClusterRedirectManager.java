@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterView;
+import com.moilioncircle.redis.cluster.watchdog.state.ClientState;
+import com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine;
+
+import java.util.Arrays;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterState.CLUSTER_OK;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsSlave;
+
+/**
+ * Routes key based commands against the slot table the way redis-server's {@code getNodeByQuery} does.
+ * Runs on the calling thread and only reads the published {@link ClusterView}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterRedirectManager {
+    
+    private ClusterManagers managers;
+    
+    public ClusterRedirectManager(ClusterManagers managers) {
+        this.managers = managers;
+    }
+    
+    /**
+     * @param client  the connection state of the caller, null for internal callers
+     * @param message the command, its keys are {@code message[first..]}
+     * @return null if the command can be served by this node, otherwise the error to reply with
+     */
+    public String clusterRedirect(ClientState client, byte[][] message, int first) {
+        return clusterRedirect(client, message, first, false);
+    }
+    
+    /**
+     * @param migrate true for {@code MIGRATE}, which like in redis-server is always served locally while its slot is
+     *                migrating or importing, so the keys can be moved freely between the two nodes
+     * @see #clusterRedirect(ClientState, byte[][], int)
+     */
+    public String clusterRedirect(ClientState client, byte[][] message, int first, boolean migrate) {
+        if (first >= message.length) return null;
+        ClusterView view = managers.views.getClusterView();
+        StorageEngine engine = managers.engine;
+        
+        int slot = -1, missing = 0;
+        boolean multiple = false;
+        ClusterView.Node n = null, migrating = null, importing = null;
+        for (int i = first; i < message.length; i++) {
+            int s = StorageEngine.calcSlot(message[i]);
+            if (slot == -1) {
+                slot = s;
+                n = view.getSlotOwner(slot);
+                if (n == null) return "CLUSTERDOWN Hash slot not served";
+                if (n == view.myself) migrating = view.getMigratingTarget(slot);
+                else importing = view.getImportingSource(slot);
+            } else if (s != slot) {
+                return "CROSSSLOT Keys in request don't hash to the same slot";
+            } else if (!multiple && !Arrays.equals(message[i], message[first])) {
+                // like multiple_keys in redis, the same key repeated is a single key request
+                multiple = true;
+            }
+            // expired keys may still be held by the engine, they are missing like in lookupKeyRead
+            if ((migrating != null || importing != null) && !migrate && engine.ttl(message[i]) < 0) missing++;
+        }
+        
+        if (view.state != CLUSTER_OK) return "CLUSTERDOWN The cluster is down";
+        if (migrate && (migrating != null || importing != null)) return null;
+        if (migrating != null && missing > 0) return "ASK " + slot + " " + migrating.ip + ":" + migrating.port;
+        if (importing != null && client != null && client.asking) {
+            if (multiple && missing > 0) return "TRYAGAIN Multiple keys request during rehashing of slot";
+            return null;
+        }
+        
+        // replicas serve the slots of their master to READONLY clients
+        ClusterView.Node myself = view.myself;
+        if (n == myself) return null;
+        if (myself != null && nodeIsSlave(myself.flags) && n.name.equals(myself.master) && client != null && client.readonly) return null;
+        return "MOVED " + slot + " " + n.ip + ":" + n.port;
+    }
+}
@@ -65,13 +65,17 @@ public class ClusterSlotManager {
         if (r) return true;
         if (++node.assignedSlots == 1 && clusterMastersHaveSlaves())
             node.flags |= CLUSTER_NODE_MIGRATE_TO;
+        managers.states.clusterAccountNode(node);
         return false;
     }
     
     public boolean clusterNodeClearSlotBit(ClusterNode node, int slot) {
         boolean r = bitmapTestBit(node.slots, slot);
         bitmapClearBit(node.slots, slot);
-        if (r) node.assignedSlots--;
+        if (r) {
+            node.assignedSlots--;
+            managers.states.clusterAccountNode(node);
+        }
         return r;
     }
     
@@ -107,7 +111,7 @@ public class ClusterSlotManager {
     }
     
     public void delKeysInSlot(int slot) {
-        managers.engine.clear(slot);
+        managers.lazyfrees.clusterLazyFreeSlot(slot);
     }
     
     public long countKeysInSlot(int slot) {
@@ -64,6 +64,38 @@ public class ClusterStateManager {
         return false;
     }
     
+    /**
+     * Re-account the contribution of {@code node} to the slot coverage counters
+     * of {@link com.moilioncircle.redis.cluster.watchdog.state.ClusterState}
+     * and to {@code pFailNodes}. Must be called after the slots or the MASTER/SLAVE/PFAIL/FAIL
+     * flags of the node changed.
+     */
+    public void clusterAccountNode(ClusterNode node) {
+        clusterAccountNode(node.accountedFlags, node.accountedSlots, -1);
+        node.accountedFlags = node.flags;
+        node.accountedSlots = node.assignedSlots;
+        clusterAccountNode(node.accountedFlags, node.accountedSlots, 1);
+    }
+    
+    public void clusterUnaccountNode(ClusterNode node) {
+        clusterAccountNode(node.accountedFlags, node.accountedSlots, -1);
+        node.accountedFlags = 0;
+        node.accountedSlots = 0;
+    }
+    
+    private void clusterAccountNode(int flags, int slots, int sign) {
+        if (nodePFailed(flags)) server.cluster.pFailNodes += sign;
+        if (slots == 0) return;
+        boolean failed = nodeFailed(flags), pFailed = !failed && nodePFailed(flags);
+        server.cluster.assignedSlots += sign * slots;
+        if (failed) server.cluster.failSlots += sign * slots;
+        else if (pFailed) server.cluster.pFailSlots += sign * slots;
+        //
+        if (!nodeIsMaster(flags)) return;
+        server.cluster.assignedMasters += sign;
+        if (!failed && !pFailed) server.cluster.reachableMasters += sign;
+    }
+    
     public void clusterUpdateState() {
         long now = System.currentTimeMillis();
         if (server.stateSaveTime == 0) server.stateSaveTime = now;
@@ -72,23 +104,11 @@ public class ClusterStateManager {
         //
         ClusterState state = CLUSTER_OK;
         if (configuration.isClusterFullCoverage()) {
-            for (int i = 0; i < CLUSTER_SLOTS; i++) {
-                ClusterNode n = server.cluster.slots[i];
-                if (n == null || nodeFailed(n.flags)) {
-                    state = CLUSTER_FAIL;
-                    break;
-                }
-            }
+            if (server.cluster.assignedSlots != CLUSTER_SLOTS || server.cluster.failSlots != 0) state = CLUSTER_FAIL;
         }
         //
-        int masters = 0;
-        server.cluster.size = 0;
-        for (ClusterNode node : server.cluster.nodes.values()) {
-            if (nodeIsMaster(node) && node.assignedSlots != 0) {
-                server.cluster.size++;
-                if (!nodeFailed(node.flags) && !nodePFailed(node.flags)) masters++;
-            }
-        }
+        server.cluster.size = server.cluster.assignedMasters;
+        int masters = server.cluster.reachableMasters;
         //
         int quorum = (server.cluster.size / 2) + 1;
         if (masters < quorum) {
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterConfiguration;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterNode;
+import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
+import com.moilioncircle.redis.cluster.watchdog.util.collection.TimingWheel;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_TIMER_WHEEL_SIZE;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeInHandshake;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsMyself;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodePFailed;
+import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeWithoutAddr;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Per-node deadlines (handshake expiry, reconnect, next ping, link recycle, PFAIL) of the cluster cron.
+ * Every node is in the wheel at its earliest deadline and is re-evaluated only when that deadline expires
+ * or when {@link #clusterScheduleNode(ClusterNode)} is called after its ping, pong or link state changed.
+ * <p>
+ * Only accessed from the cron thread.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterTimerManager {
+    
+    private ServerState server;
+    private ClusterManagers managers;
+    private ClusterConfiguration configuration;
+    private TimingWheel<ClusterNode> wheel;
+    
+    public ClusterTimerManager(ClusterManagers managers) {
+        this.managers = managers;
+        this.server = managers.server;
+        this.configuration = managers.configuration;
+        long tick = configuration.getClusterCronInterval();
+        this.wheel = new TimingWheel<>(CLUSTER_TIMER_WHEEL_SIZE, tick, System.currentTimeMillis());
+    }
+    
+    public int size() {
+        return wheel.size();
+    }
+    
+    public void clusterScheduleNode(ClusterNode node) {
+        if (node == null) return;
+        if (!Objects.equals(server.cluster.nodes.get(node.name), node)) {
+            wheel.cancel(node);
+            return;
+        }
+        long deadline = clusterNodeDeadline(node, System.currentTimeMillis());
+        if (deadline < 0) wheel.cancel(node);
+        else wheel.schedule(node, deadline);
+    }
+    
+    public void clusterCancelNode(ClusterNode node) {
+        wheel.cancel(node);
+    }
+    
+    public void clusterExpireNodes(long now, Consumer<ClusterNode> consumer) {
+        wheel.advance(now, consumer);
+    }
+    
+    public void clusterResetTimers() {
+        wheel.clear();
+    }
+    
+    /**
+     * @return the earliest time the cron has to look at {@code node} again, -1 if never.
+     */
+    public long clusterNodeDeadline(ClusterNode node, long now) {
+        if (nodeIsMyself(node.flags)) return -1L;
+        if (nodeWithoutAddr(node.flags)) return -1L;
+        if (node.link == null) return now;
+        
+        long timeout = configuration.getClusterNodeTimeout();
+        if (nodeInHandshake(node)) return node.createTime + max(timeout, 1000) + 1;
+        
+        long deadline = now + timeout;
+        if (node.pingTime == 0) return min(deadline, node.pongTime + timeout / 2 + 1);
+        if (node.pongTime < node.pingTime) {
+            long recycle = max(node.link.createTime + timeout, node.pingTime + timeout / 2) + 1;
+            deadline = min(deadline, recycle);
+        }
+        if (!nodePFailed(node.flags) && !nodeFailed(node.flags)) {
+            deadline = min(deadline, node.pingTime + timeout + 1);
+            long suspect = managers.detectors.clusterNodeSuspectTime(node);
+            if (suspect >= 0) deadline = min(deadline, max(suspect, now));
+        }
+        return deadline;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.manager;
+
+import com.moilioncircle.redis.cluster.watchdog.ClusterView;
+import com.moilioncircle.redis.cluster.watchdog.state.ClusterState;
+import com.moilioncircle.redis.cluster.watchdog.state.ServerState;
+
+/**
+ * Publishes {@link ClusterView}. Views are built on the cron thread and read from any thread.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClusterViewManager {
+    
+    private ServerState server;
+    private volatile ClusterView view;
+    
+    public ClusterViewManager(ClusterManagers managers) {
+        this.server = managers.server;
+        this.view = ClusterView.valueOf(new ClusterState());
+    }
+    
+    public ClusterView getClusterView() {
+        return view;
+    }
+    
+    public void clusterPublishView() {
+        this.view = ClusterView.valueOf(server.cluster);
+    }
+    
+    /**
+     * Called on the cron thread after the topology version is updated. The cluster state and size
+     * are checked as well because they can change without a config change.
+     */
+    public void clusterUpdateView() {
+        ClusterView v = this.view;
+        ClusterState cluster = server.cluster;
+        if (v.version == cluster.version && v.state == cluster.state && v.size == cluster.size) return;
+        clusterPublishView();
+    }
+}
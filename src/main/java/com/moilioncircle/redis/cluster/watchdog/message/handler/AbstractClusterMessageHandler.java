@@ -36,7 +36,6 @@ import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_NOADDR;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_PFAIL;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
-import static com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo.valueOf;
 import static com.moilioncircle.redis.cluster.watchdog.Version.PROTOCOL_V1;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterConfigManager.representClusterNodeFlags;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterSlotManager.bitmapTestBit;
@@ -107,7 +106,7 @@ public abstract class AbstractClusterMessageHandler implements ClusterMessageHan
             }
         }
         if (next != null && previous.assignedSlots == 0) managers.nodes.clusterSetMyMasterTo(sender);
-        else if (!dirties.isEmpty()) dirties.stream().forEach(slot -> managers.slots.delKeysInSlot(slot));
+        else if (!dirties.isEmpty()) dirties.forEach(slot -> managers.slots.delKeysInSlot(slot));
     }
     
     public void clusterProcessGossipSection(ClusterMessage hdr, ClusterLink link) {
@@ -151,10 +150,9 @@ public abstract class AbstractClusterMessageHandler implements ClusterMessageHan
                     && (!node.ip.equalsIgnoreCase(gossip.ip) || node.port != gossip.port || node.busPort != gossip.busPort)) {
                 
                 if (node.link != null) managers.connections.freeClusterLink(node.link);
-                node.ip = gossip.ip;
-                node.port = gossip.port;
-                node.busPort = gossip.busPort;
+                managers.nodes.clusterSetNodeAddress(node, gossip.ip, gossip.port, gossip.busPort);
                 node.flags &= ~CLUSTER_NODE_NOADDR;
+                managers.timers.clusterScheduleNode(node);
             }
         }
     }
@@ -163,9 +161,7 @@ public abstract class AbstractClusterMessageHandler implements ClusterMessageHan
         if (link.equals(node.link)) return false;
         String ip = link.fd.getRemoteAddress(hdr.ip);
         if (node.port == hdr.port && node.busPort == hdr.busPort && ip.equalsIgnoreCase(node.ip)) return false;
-        node.ip = ip;
-        node.port = hdr.port;
-        node.busPort = hdr.busPort;
+        managers.nodes.clusterSetNodeAddress(node, ip, hdr.port, hdr.busPort);
         if (node.link != null) managers.connections.freeClusterLink(node.link);
         logger.info("Address updated for node " + node.name + ", now " + node.ip + ":" + node.port);
         if (nodeIsSlave(server.myself) && Objects.equals(server.myself.master, node)) {
@@ -186,7 +182,8 @@ public abstract class AbstractClusterMessageHandler implements ClusterMessageHan
         node.flags &= ~CLUSTER_NODE_PFAIL;
         node.flags |= CLUSTER_NODE_FAIL;
         node.failTime = now;
-        managers.notifyNodeFailed(valueOf(node, server.myself));
+        managers.states.clusterAccountNode(node);
+        managers.notifyNodeFailed(node);
         if (nodeIsMaster(server.myself)) managers.messages.clusterSendFail(node.name);
     }
     
@@ -25,7 +25,6 @@ import org.apache.commons.logging.LogFactory;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_FAIL;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_PFAIL;
-import static com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo.valueOf;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeIsMyself;
 
@@ -52,7 +51,8 @@ public class ClusterMessageFailHandler extends AbstractClusterMessageHandler {
             failing.flags |= CLUSTER_NODE_FAIL;
             failing.failTime = System.currentTimeMillis(); //fail time
             failing.flags &= ~CLUSTER_NODE_PFAIL;
-            managers.notifyNodeFailed(valueOf(failing, server.myself));
+            managers.states.clusterAccountNode(failing);
+            managers.notifyNodeFailed(failing);
         }
         return true;
     }
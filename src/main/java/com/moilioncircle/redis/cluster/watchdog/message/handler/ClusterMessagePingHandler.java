@@ -55,7 +55,8 @@ public class ClusterMessagePingHandler extends AbstractClusterMessageHandler {
         
         if (server.myself.ip == null && managers.configuration.getClusterAnnounceIp() == null) {
             String ip = link.fd.getLocalAddress(null);
-            if (!Objects.equals(ip, server.myself.ip)) server.myself.ip = ip;
+            ClusterNode myself = server.myself;
+            if (!Objects.equals(ip, myself.ip)) managers.nodes.clusterSetNodeAddress(myself, ip, myself.port, myself.busPort);
         }
         
         managers.messages.clusterSendPing(link, CLUSTERMSG_TYPE_PONG);
@@ -70,11 +71,10 @@ public class ClusterMessagePingHandler extends AbstractClusterMessageHandler {
             managers.nodes.clusterRenameNode(link.node, hdr.name);
             link.node.flags &= ~CLUSTER_NODE_HANDSHAKE;
             link.node.flags |= hdr.flags & (CLUSTER_NODE_MASTER | CLUSTER_NODE_SLAVE);
+            managers.states.clusterAccountNode(link.node);
         } else if (link.node != null && !link.node.name.equals(hdr.name)) {
             link.node.flags |= CLUSTER_NODE_NOADDR;
-            link.node.ip = null;
-            link.node.port = 0;
-            link.node.busPort = 0;
+            managers.nodes.clusterSetNodeAddress(link.node, null, 0, 0);
             managers.connections.freeClusterLink(link);
             return false;
         }
@@ -90,6 +90,7 @@ public class ClusterMessagePingHandler extends AbstractClusterMessageHandler {
                 managers.slots.clusterDelNodeSlots(sender);
                 sender.flags &= ~(CLUSTER_NODE_MASTER | CLUSTER_NODE_MIGRATE_TO);
                 sender.flags |= CLUSTER_NODE_SLAVE;
+                managers.states.clusterAccountNode(sender);
             }
             if (master != null && (sender.master == null || !Objects.equals(sender.master, master))) {
                 if (sender.master != null) managers.nodes.clusterNodeRemoveSlave(sender.master, sender);
@@ -35,7 +35,6 @@ import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_PFAIL;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_NODE_SLAVE;
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
-import static com.moilioncircle.redis.cluster.watchdog.ClusterNodeInfo.valueOf;
 import static com.moilioncircle.redis.cluster.watchdog.manager.ClusterSlotManager.bitmapTestBit;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeFailed;
 import static com.moilioncircle.redis.cluster.watchdog.state.NodeStates.nodeInHandshake;
@@ -69,21 +68,22 @@ public class ClusterMessagePongHandler extends AbstractClusterMessageHandler {
                 managers.nodes.clusterRenameNode(link.node, hdr.name);
                 link.node.flags &= ~CLUSTER_NODE_HANDSHAKE;
                 link.node.flags |= hdr.flags & (CLUSTER_NODE_MASTER | CLUSTER_NODE_SLAVE);
+                managers.states.clusterAccountNode(link.node);
             } else if (!link.node.name.equals(hdr.name)) {
                 link.node.flags |= CLUSTER_NODE_NOADDR;
-                link.node.ip = null;
-                link.node.port = 0;
-                link.node.busPort = 0;
+                managers.nodes.clusterSetNodeAddress(link.node, null, 0, 0);
                 managers.connections.freeClusterLink(link);
                 return false;
             }
             
             link.node.pongTime = System.currentTimeMillis();
             link.node.pingTime = 0;
+            managers.detectors.clusterNodeHeartbeat(link.node, link.node.pongTime);
             
             if (nodePFailed(link.node)) {
                 link.node.flags &= ~CLUSTER_NODE_PFAIL;
-                managers.notifyUnsetNodePFailed(valueOf(link.node, server.myself));
+                managers.states.clusterAccountNode(link.node);
+                managers.notifyUnsetNodePFailed(link.node);
             } else if (nodeFailed(link.node)) clearNodeFailureIfNeeded(link.node);
         }
         
@@ -96,6 +96,7 @@ public class ClusterMessagePongHandler extends AbstractClusterMessageHandler {
                 managers.slots.clusterDelNodeSlots(sender);
                 sender.flags &= ~(CLUSTER_NODE_MASTER | CLUSTER_NODE_MIGRATE_TO);
                 sender.flags |= CLUSTER_NODE_SLAVE;
+                managers.states.clusterAccountNode(sender);
             }
             if (master != null && (sender.master == null || !Objects.equals(sender.master, master))) {
                 if (sender.master != null) managers.nodes.clusterNodeRemoveSlave(sender.master, sender);
@@ -130,11 +131,13 @@ public class ClusterMessagePongHandler extends AbstractClusterMessageHandler {
         
         if (nodeIsSlave(node) || node.assignedSlots == 0) {
             node.flags &= ~CLUSTER_NODE_FAIL;
-            managers.notifyUnsetNodeFailed(valueOf(node, server.myself));
+            managers.states.clusterAccountNode(node);
+            managers.notifyUnsetNodeFailed(node);
         }
         if (nodeIsMaster(node) && node.assignedSlots > 0 && now - node.failTime > timeout) {
             node.flags &= ~CLUSTER_NODE_FAIL;
-            managers.notifyUnsetNodeFailed(valueOf(node, server.myself));
+            managers.states.clusterAccountNode(node);
+            managers.notifyUnsetNodeFailed(node);
         }
     }
 }
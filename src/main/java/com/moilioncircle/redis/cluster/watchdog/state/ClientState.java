@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.state;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Per-connection state of a client of {@link com.moilioncircle.redis.cluster.watchdog.ThinServer}.
+ * Only touched on the I/O thread of the connection.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ClientState {
+    /**
+     * a command of this client is running on the cron thread, later commands wait in {@link #pending}
+     * so that their replies are not written before its reply.
+     */
+    public boolean blocked;
+    public Queue<byte[][]> pending = new ArrayDeque<>();
+    /**
+     * {@code RESTORE-ASKING} commands buffered for a bulk import, see
+     * {@link com.moilioncircle.redis.cluster.watchdog.manager.ClusterImportManager}.
+     */
+    public List<byte[][]> imports = new ArrayList<>();
+    
+    public int db = 0;
+    public String name;
+    /**
+     * set by {@code READONLY}, lets a replica serve reads of the slots of its master.
+     */
+    public boolean readonly;
+    /**
+     * set by {@code ASKING}, lets the next command access a slot we are importing.
+     */
+    public boolean asking;
+}
@@ -16,7 +16,11 @@
 
 package com.moilioncircle.redis.cluster.watchdog.state;
 
+import com.moilioncircle.redis.cluster.watchdog.util.PhiAccrualDetector;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS_BYTES;
@@ -34,17 +38,28 @@ public class ClusterNode {
     public long isolatedTime;
     public long configEpoch;
     public int assignedSlots;
+    public int accountedFlags;
+    public int accountedSlots;
     public byte[] slots = new byte[CLUSTER_SLOTS_BYTES];
     public List<ClusterNode> slaves = new ArrayList<>();
     public String ip;
     public int port;
     public int busPort;
+    public String address;
     public int flags;
     public String name;
     public long offset;
     public ClusterNode master;
     public volatile ClusterLink link;
-    public List<ClusterNodeFailReport> failReports = new ArrayList<>();
+    public PhiAccrualDetector detector;
+    
+    /**
+     * @deprecated the reports are kept by {@link com.moilioncircle.redis.cluster.watchdog.manager.ClusterNodeManager},
+     * this is a live read only view of them, only read it on the cluster thread, or use
+     * {@link com.moilioncircle.redis.cluster.watchdog.manager.ClusterNodeManager#clusterNodeGetFailureReports(ClusterNode)}.
+     */
+    @Deprecated
+    public volatile Collection<ClusterNodeFailReport> failReports = Collections.emptyList();
     
     public ClusterNode() {
         this.createTime = System.currentTimeMillis();
@@ -18,7 +18,9 @@ package com.moilioncircle.redis.cluster.watchdog.state;
 
 import com.moilioncircle.redis.cluster.watchdog.util.type.Tuple2;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTERMSG_TYPE_COUNT;
@@ -33,10 +35,17 @@ public class ClusterState {
     public int size = 1;
     public long pFailNodes = 0;
     public long currentEpoch = 0;
+    public long version = 0;
     public long lastVoteEpoch = 0;
+    public int assignedSlots = 0;
+    public int pFailSlots = 0;
+    public int failSlots = 0;
+    public int assignedMasters = 0;
+    public int reachableMasters = 0;
     public ClusterNode[] slots = new ClusterNode[CLUSTER_SLOTS];
     public long[] messagesSent = new long[CLUSTERMSG_TYPE_COUNT];
     public Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+    public Map<String, List<ClusterNode>> addresses = new HashMap<>();
     public ClusterNode[] migrating = new ClusterNode[CLUSTER_SLOTS];
     public ClusterNode[] importing = new ClusterNode[CLUSTER_SLOTS];
     public long[] messagesReceived = new long[CLUSTERMSG_TYPE_COUNT];
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class HashKeyIndex<V> implements KeyIndex<V> {
+    
+    private final Map<Bytes, V> map = new ConcurrentHashMap<>();
+    
+    @Override
+    public int size() {
+        return map.size();
+    }
+    
+    @Override
+    public V get(byte[] key) {
+        return map.get(new Bytes(key));
+    }
+    
+    @Override
+    public V compute(byte[] key, BiFunction<byte[], ? super V, ? extends V> function) {
+        return map.compute(new Bytes(key), (k, v) -> function.apply(key, v));
+    }
+    
+    @Override
+    public V remove(byte[] key) {
+        return map.remove(new Bytes(key));
+    }
+    
+    @Override
+    public long removePrefix(byte[] prefix) {
+        long count = 0;
+        for (Iterator<Bytes> it = map.keySet().iterator(); it.hasNext(); ) {
+            if (!startsWith(it.next().getBytes(), prefix)) continue;
+            it.remove();
+            count++;
+        }
+        return count;
+    }
+    
+    @Override
+    public void clear() {
+        map.clear();
+    }
+    
+    @Override
+    public Iterator<byte[]> keys() {
+        Iterator<Bytes> it = map.keySet().iterator();
+        return new Iterator<byte[]>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            
+            @Override
+            public byte[] next() {
+                return it.next().getBytes();
+            }
+        };
+    }
+    
+    /**
+     * @return null, the keys are in hash order
+     */
+    @Override
+    public Iterator<byte[]> keys(byte[] from) {
+        return null;
+    }
+    
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) if (key[i] != prefix[i]) return false;
+        return true;
+    }
+}
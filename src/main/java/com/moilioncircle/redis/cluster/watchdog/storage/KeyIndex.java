@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Iterator;
+import java.util.function.BiFunction;
+
+/**
+ * Thread safe index of the keys of one slot, the building block of a {@link StorageEngine}.
+ * {@link #hash()} iterates in hash order, {@link #radix()} shares the common prefixes of the keys
+ * and iterates in key order.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+@ThreadSafe
+public interface KeyIndex<V> {
+    
+    static <V> KeyIndex<V> hash() {
+        return new HashKeyIndex<>();
+    }
+    
+    static <V> KeyIndex<V> radix() {
+        return new RadixKeyIndex<>();
+    }
+    
+    int size();
+    
+    V get(byte[] key);
+    
+    /**
+     * Atomically replaces the value of {@code key}, like {@link java.util.Map#compute}. A null result removes the key.
+     */
+    V compute(byte[] key, BiFunction<byte[], ? super V, ? extends V> function);
+    
+    V remove(byte[] key);
+    
+    /**
+     * @return the number of removed keys starting with {@code prefix}
+     */
+    long removePrefix(byte[] prefix);
+    
+    void clear();
+    
+    /**
+     * Weakly consistent, keys added or removed while iterating may or may not be seen.
+     */
+    Iterator<byte[]> keys();
+    
+    /**
+     * Weakly consistent like {@link #keys()}, only supported by ordered indexes.
+     *
+     * @return the keys not less than {@code from} in unsigned byte order, null if the index is not ordered
+     */
+    Iterator<byte[]> keys(byte[] from);
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage;
+
+import com.moilioncircle.redis.cluster.watchdog.util.collection.RadixTree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.function.BiFunction;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.KEY_INDEX_SCAN_BATCH;
+
+/**
+ * {@link RadixTree} guarded by its monitor. {@link #keys(byte[])} is a cursor that reads the keys in order by
+ * batches, each batch seeks past the last key returned, so writers are only held back for one batch.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RadixKeyIndex<V> implements KeyIndex<V> {
+    
+    private final RadixTree<V> tree = new RadixTree<>();
+    
+    @Override
+    public synchronized int size() {
+        return tree.size();
+    }
+    
+    @Override
+    public synchronized V get(byte[] key) {
+        return tree.get(key);
+    }
+    
+    @Override
+    public synchronized V compute(byte[] key, BiFunction<byte[], ? super V, ? extends V> function) {
+        V value = function.apply(key, tree.get(key));
+        if (value == null) tree.remove(key);
+        else tree.put(key, value);
+        return value;
+    }
+    
+    @Override
+    public synchronized V remove(byte[] key) {
+        return tree.remove(key);
+    }
+    
+    @Override
+    public synchronized long removePrefix(byte[] prefix) {
+        return tree.removePrefix(prefix);
+    }
+    
+    @Override
+    public synchronized void clear() {
+        tree.clear();
+    }
+    
+    @Override
+    public Iterator<byte[]> keys() {
+        return keys(new byte[0]);
+    }
+    
+    @Override
+    public Iterator<byte[]> keys(byte[] start) {
+        return new Iterator<byte[]>() {
+            private byte[] from = start;
+            private Queue<byte[]> batch = new ArrayDeque<>();
+            
+            @Override
+            public boolean hasNext() {
+                if (batch.isEmpty() && from != null) fetch();
+                return !batch.isEmpty();
+            }
+            
+            @Override
+            public byte[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return batch.poll();
+            }
+            
+            private void fetch() {
+                byte[] last = null;
+                synchronized (RadixKeyIndex.this) {
+                    Iterator<Map.Entry<byte[], V>> it = tree.iterator(from);
+                    while (batch.size() < KEY_INDEX_SCAN_BATCH && it.hasNext()) batch.add(last = it.next().getKey());
+                    if (!it.hasNext()) {
+                        from = null;
+                        return;
+                    }
+                }
+                // the smallest key after the last one is the last one followed by a zero byte
+                from = Arrays.copyOf(last, last.length + 1);
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.ZSetEntry;
+import com.moilioncircle.redis.cluster.watchdog.util.CRC64;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Order independent digests of the slots of a {@link StorageEngine}. The digest of a slot is the sum of
+ * {@link #digest(byte[], Object, long)} over its keys, engines {@link #add(int, long)} the digest of an entry
+ * when it is saved and {@link #remove(int, long)} it when it is replaced or deleted, so two engines holding the
+ * same data have the same digests whatever the order they received it in.
+ * <p>
+ * Values are hashed by content, a set has the same digest as a hash table or packed, and the digest of a hash or
+ * set does not depend on its iteration order. Only whether a key expires is hashed, not its expire time: RESTORE
+ * computes it from the local clock, so two nodes holding the same volatile key never agree on it.
+ * <p>
+ * redis-server keeps no such digests, so they only compare watchdogs with each other, for instance two watchdogs
+ * replicating the same master.
+ * <p>
+ * The slot digests are the leaves of a Merkle tree laid out as a heap: node 1 is the root, the children of node
+ * {@code i} are {@code 2i} and {@code 2i + 1} and the leaf of slot {@code s} is node {@code CLUSTER_SLOTS + s}.
+ * Every update recomputes the path from its leaf to the root, so reading a node costs nothing.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+@ThreadSafe
+public class SlotDigests {
+    
+    private static final long GOLDEN = 0X9E3779B97F4A7C15L;
+    
+    private static final long STRING = 1, LIST = 2, SET = 3, ZSET = 4, HASH = 5;
+    
+    private final AtomicLongArray tree = new AtomicLongArray(CLUSTER_SLOTS << 1);
+    
+    public long get(int slot) {
+        return tree.get(CLUSTER_SLOTS + slot);
+    }
+    
+    /**
+     * @param node the index of the node in the tree, from 1 to {@code 2 * CLUSTER_SLOTS - 1}
+     */
+    public long node(int node) {
+        return tree.get(node);
+    }
+    
+    public long root() {
+        return tree.get(1);
+    }
+    
+    public void add(int slot, long digest) {
+        tree.addAndGet(CLUSTER_SLOTS + slot, digest);
+        update(CLUSTER_SLOTS + slot);
+    }
+    
+    public void remove(int slot, long digest) {
+        tree.addAndGet(CLUSTER_SLOTS + slot, -digest);
+        update(CLUSTER_SLOTS + slot);
+    }
+    
+    public void reset(int slot) {
+        tree.set(CLUSTER_SLOTS + slot, 0);
+        update(CLUSTER_SLOTS + slot);
+    }
+    
+    /**
+     * Recomputes the ancestors of {@code node}. A parent is recomputed until its children did not change while it
+     * was written, so the last writer of either child always leaves the parent consistent with both.
+     */
+    private void update(int node) {
+        for (int parent = node >>> 1; parent > 0; parent >>>= 1) {
+            int left = parent << 1, right = left + 1;
+            long l, r;
+            do {
+                l = tree.get(left);
+                r = tree.get(right);
+                tree.set(parent, digest(l, r));
+            } while (l != tree.get(left) || r != tree.get(right));
+        }
+    }
+    
+    /**
+     * @param expire the absolute expire time in milliseconds, 0 if none, only whether it is 0 is hashed
+     */
+    public static long digest(byte[] key, Object value, long expire) {
+        return mix(hash(key) + GOLDEN * (digest(value) + GOLDEN * (expire == 0 ? 0 : 1)));
+    }
+    
+    public static long digest(Object value) {
+        if (value instanceof byte[] || value instanceof CharSequence) return mix(STRING * GOLDEN + hash(value));
+        long h = 0;
+        if (value instanceof List) {
+            for (Object e : (List<?>) value) h = h * GOLDEN + hash(e);
+            return mix(LIST * GOLDEN + mix(h));
+        }
+        if (value instanceof SortedSet) {
+            for (Object e : (SortedSet<?>) value) {
+                if (e instanceof ZSetEntry) {
+                    ZSetEntry entry = (ZSetEntry) e;
+                    h += mix(hash(entry.getMember()) + GOLDEN * Double.doubleToLongBits(entry.getScore() + 0.0d));
+                } else {
+                    h += hash(e);
+                }
+            }
+            return mix(ZSET * GOLDEN + h);
+        }
+        if (value instanceof Set) {
+            for (Object e : (Set<?>) value) h += hash(e);
+            return mix(SET * GOLDEN + h);
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) h += mix(hash(e.getKey()) + GOLDEN * hash(e.getValue()));
+            return mix(HASH * GOLDEN + h);
+        }
+        return mix(hash(value));
+    }
+    
+    /**
+     * Parent of two nodes of a Merkle tree, an empty subtree has the digest 0.
+     */
+    public static long digest(long left, long right) {
+        return mix(left * GOLDEN + right);
+    }
+    
+    private static long hash(Object o) {
+        byte[] bytes;
+        if (o instanceof byte[]) bytes = (byte[]) o;
+        else if (o instanceof Bytes) bytes = ((Bytes) o).getBytes();
+        else bytes = String.valueOf(o).getBytes(UTF_8);
+        return mix(CRC64.crc64(bytes) + bytes.length);
+    }
+    
+    /**
+     * murmur3 fmix64
+     */
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0XFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0XC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
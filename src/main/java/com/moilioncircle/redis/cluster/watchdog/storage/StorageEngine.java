@@ -17,12 +17,12 @@
 package com.moilioncircle.redis.cluster.watchdog.storage;
 
 import com.moilioncircle.redis.cluster.watchdog.Resourcable;
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.RdbValueCodec;
+import com.moilioncircle.redis.cluster.watchdog.util.KeySlot;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.Iterator;
-
-import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
-import static com.moilioncircle.redis.cluster.watchdog.util.CRC16.crc16;
+import java.util.function.LongSupplier;
 
 /**
  * @author Leon Chen
@@ -32,21 +32,10 @@ import static com.moilioncircle.redis.cluster.watchdog.util.CRC16.crc16;
 public interface StorageEngine extends Resourcable {
     
     /**
-     *
+     * @see KeySlot#calcSlot(byte[])
      */
     static int calcSlot(byte[] key) {
-        if (key == null) return 0;
-        int st = -1, ed = -1;
-        for (int i = 0, len = key.length; i < len; i++) {
-            if (key[i] == '{' && st == -1) st = i;
-            if (key[i] == '}' && st >= 0) {
-                ed = i;
-                break;
-            }
-        }
-        if (st >= 0 && ed >= 0 && ed > st + 1)
-            return crc16(key, st + 1, ed) & (CLUSTER_SLOTS - 1);
-        return crc16(key) & (CLUSTER_SLOTS - 1);
+        return KeySlot.calcSlot(key);
     }
     
     long size();
@@ -59,15 +48,45 @@ public interface StorageEngine extends Resourcable {
     
     long clear(int slot);
     
+    /**
+     * Make the keys of {@code slot} invisible and return a task that reclaims them and returns
+     * the number of reclaimed keys. The task runs on a background thread, so engines should detach
+     * in O(1), for example by swapping the slot container. The default clears synchronously.
+     */
+    default LongSupplier detach(int slot) {
+        long size = clear(slot);
+        return () -> size;
+    }
+    
     Iterator<byte[]> keys();
     
     Iterator<byte[]> keys(int slot);
     
     /**
+     * Engines that keep the keys of a slot in order should override this, {@code SCAN} then resumes a slot
+     * after its last returned key instead of returning the slot whole. The default does not support seeking.
      *
+     * @return the keys of {@code slot} not less than {@code from} in unsigned byte order,
+     * null if the engine does not keep the keys of {@code slot} in order
+     */
+    default Iterator<byte[]> keys(int slot, byte[] from) {
+        return null;
+    }
+    
+    /**
+     * @return the remaining time to live in milliseconds, 0 if the key has no expire,
+     * -1 if the key is expired and -2 if the key does not exist
      */
     long ttl(byte[] key);
     
+    /**
+     * Values come back in the types they were saved with, restored values in the types of
+     * {@link RdbValueCodec#decode(byte[])}: {@code byte[]}, {@code List<byte[]>}, {@code Set<Bytes>},
+     * {@code Map<Bytes, byte[]>} and {@code SortedSet<ZSetEntry>}. Engines that keep a compact form
+     * return a mutable copy, so the value can be modified and saved back.
+     *
+     * @return the value of the key, null if the key does not exist or is expired
+     */
     Object load(byte[] key);
     
     boolean exist(byte[] key);
@@ -76,19 +95,50 @@ public interface StorageEngine extends Resourcable {
     
     boolean delete(byte[] key);
     
+    /**
+     * The engine may keep {@code value} in a compact form, {@link #load(byte[])} gives it back in the saved types.
+     */
     boolean save(byte[] key, Object value, long expire, boolean force);
     
     /**
+     * The default encodes {@link #load(byte[])} with {@link RdbValueCodec}, engines that keep the
+     * serialized form should return it instead.
      *
+     * @return the {@code DUMP} payload of the key, null if the key does not exist
      */
-    byte[] dump(byte[] key);
+    default byte[] dump(byte[] key) {
+        Object value = load(key);
+        return value == null ? null : RdbValueCodec.encode(value);
+    }
     
-    boolean restore(byte[] key, byte[] serialized, long expire, boolean force);
+    /**
+     * The default {@link #save(byte[], Object, long, boolean)}s the value decoded by {@link RdbValueCodec}.
+     * The checksum of {@code serialized} is verified by the caller.
+     */
+    default boolean restore(byte[] key, byte[] serialized, long expire, boolean force) {
+        return save(key, RdbValueCodec.decode(serialized), expire, force);
+    }
     
     /**
+     * Engines keep their digests with {@link SlotDigests}, the default does not support them.
      *
+     * @return the order independent digests of the slots and their Merkle tree, comparable between watchdogs only
+     * @throws UnsupportedOperationException if the engine does not keep slot digests
      */
+    default SlotDigests digests() {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * @deprecated {@code READONLY} is tracked per connection in
+     * {@link com.moilioncircle.redis.cluster.watchdog.state.ClientState}, this flag is no longer consulted.
+     */
+    @Deprecated
     boolean readonly();
     
+    /**
+     * @deprecated see {@link #readonly()}
+     */
+    @Deprecated
     void readonly(boolean r);
 }
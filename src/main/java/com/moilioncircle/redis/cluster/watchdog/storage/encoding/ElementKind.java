@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The java type of the elements of an aggregate before it was packed, so that
+ * {@link ValueEncodings#decode(Object)} gives back the elements the caller saved.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public enum ElementKind {
+    /**
+     * {@code byte[]}, like the lists of the RDB codec
+     */
+    BYTES {
+        @Override
+        public Object restore(byte[] bytes) {
+            return bytes;
+        }
+    },
+    /**
+     * {@link Bytes}, like the sets and hash fields of the RDB codec
+     */
+    WRAPPED {
+        @Override
+        public Object restore(byte[] bytes) {
+            return new Bytes(bytes);
+        }
+    },
+    /**
+     * {@link CharSequence}s, restored as {@link String}s, like the values of redis-replicator
+     */
+    STRING {
+        @Override
+        public Object restore(byte[] bytes) {
+            return new String(bytes, UTF_8);
+        }
+    };
+    
+    public abstract Object restore(byte[] bytes);
+    
+    /**
+     * @return the kind of {@code element}, null if it can not be packed and restored as is
+     */
+    public static ElementKind of(Object element) {
+        if (element instanceof byte[]) return BYTES;
+        if (element instanceof Bytes) return WRAPPED;
+        if (element instanceof CharSequence && utf8(((CharSequence) element))) return STRING;
+        return null;
+    }
+    
+    /**
+     * @return true if the utf-8 bytes of {@code s} decode back to {@code s}, false for unpaired surrogates
+     */
+    private static boolean utf8(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!Character.isSurrogate(c)) continue;
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) i++;
+            else return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Immutable set of integers stored as a sorted {@code short[]}, {@code int[]} or {@code long[]},
+ * the narrowest that holds every member, like the intset encoding of redis.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class IntSet extends AbstractSet<Bytes> {
+    
+    private final Object contents;
+    private final int size;
+    private final ElementKind kind;
+    
+    private IntSet(long[] values, ElementKind kind) {
+        this.kind = kind;
+        long min = values.length == 0 ? 0 : values[0], max = values.length == 0 ? 0 : values[values.length - 1];
+        if (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE) {
+            short[] v = new short[values.length];
+            for (int i = 0; i < v.length; i++) v[i] = (short) values[i];
+            this.contents = v;
+        } else if (min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE) {
+            int[] v = new int[values.length];
+            for (int i = 0; i < v.length; i++) v[i] = (int) values[i];
+            this.contents = v;
+        } else {
+            this.contents = values;
+        }
+        this.size = values.length;
+    }
+    
+    /**
+     * @return null if a member is not a canonical 64 bit integer
+     */
+    public static IntSet of(Collection<?> members) {
+        return of(members, ElementKind.WRAPPED);
+    }
+    
+    /**
+     * @param kind the java type of the members, restored by {@link ValueEncodings#decode(Object)}
+     * @return null if a member is not a canonical 64 bit integer
+     */
+    public static IntSet of(Collection<?> members, ElementKind kind) {
+        long[] values = new long[members.size()];
+        int n = 0;
+        for (Object member : members) {
+            byte[] bytes = ValueEncodings.bytes(member);
+            if (bytes == null || !isInteger(bytes)) return null;
+            values[n++] = Long.parseLong(new String(bytes, US_ASCII));
+        }
+        Arrays.sort(values, 0, n);
+        int size = 0;
+        for (int i = 0; i < n; i++) if (size == 0 || values[size - 1] != values[i]) values[size++] = values[i];
+        return new IntSet(size == values.length ? values : Arrays.copyOf(values, size), kind);
+    }
+    
+    /**
+     * @return the java type of the members before they were packed
+     */
+    public ElementKind kind() {
+        return kind;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        byte[] bytes = ValueEncodings.bytes(o);
+        if (bytes == null || !isInteger(bytes)) return false;
+        long value = Long.parseLong(new String(bytes, US_ASCII));
+        if (contents instanceof short[]) {
+            return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE && Arrays.binarySearch((short[]) contents, (short) value) >= 0;
+        } else if (contents instanceof int[]) {
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE && Arrays.binarySearch((int[]) contents, (int) value) >= 0;
+        }
+        return Arrays.binarySearch((long[]) contents, value) >= 0;
+    }
+    
+    @Override
+    public Iterator<Bytes> iterator() {
+        return new Iterator<Bytes>() {
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+            
+            @Override
+            public Bytes next() {
+                if (index >= size) throw new NoSuchElementException();
+                return new Bytes(Long.toString(get(index++)).getBytes(US_ASCII));
+            }
+        };
+    }
+    
+    /**
+     * @return the bytes per member, 2, 4 or 8
+     */
+    int width() {
+        if (contents instanceof short[]) return 2;
+        if (contents instanceof int[]) return 4;
+        return 8;
+    }
+    
+    private long get(int index) {
+        if (contents instanceof short[]) return ((short[]) contents)[index];
+        if (contents instanceof int[]) return ((int[]) contents)[index];
+        return ((long[]) contents)[index];
+    }
+    
+    /**
+     * Same as {@code string2ll}: no sign but {@code '-'}, no leading zero and no {@code "-0"}.
+     */
+    static boolean isInteger(byte[] s) {
+        int len = s.length, i = 0;
+        if (len == 0 || len > 20) return false;
+        if (s[0] == '-' && ++i == len) return false;
+        if (s[i] == '0' && len > 1) return false;
+        for (; i < len; i++) if (s[i] < '0' || s[i] > '9') return false;
+        if (len - (s[0] == '-' ? 1 : 0) < 19) return true;
+        try {
+            Long.parseLong(new String(s, US_ASCII));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sequence of byte strings packed in a single array, each entry is a varint length followed
+ * by its bytes. It is the backing store of the small aggregates in this package and costs two array
+ * headers in total instead of an object or two per entry.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class ListPack {
+    
+    private final byte[] data;
+    private final int size;
+    
+    private ListPack(byte[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return the packed length in bytes
+     */
+    public int length() {
+        return data.length;
+    }
+    
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    public static Builder builder(int capacity) {
+        return new Builder(capacity);
+    }
+    
+    public final class Cursor {
+        
+        private int position;
+        private int offset;
+        private int length;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * @return false if there is no entry left
+         */
+        public boolean next() {
+            if (position >= data.length) return false;
+            int len = 0, shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                len |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            offset = position;
+            length = len;
+            position += len;
+            return true;
+        }
+        
+        public int length() {
+            return length;
+        }
+        
+        public byte[] get() {
+            return Arrays.copyOfRange(data, offset, offset + length);
+        }
+        
+        public boolean matches(byte[] bytes) {
+            if (bytes.length != length) return false;
+            for (int i = 0; i < length; i++) if (data[offset + i] != bytes[i]) return false;
+            return true;
+        }
+        
+        /**
+         * @return the entry as a big endian long, the entry must be 8 bytes long
+         */
+        public long getLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = v << 8 | (data[offset + i] & 0xFF);
+            return v;
+        }
+    }
+    
+    public static final class Builder {
+        
+        private byte[] data;
+        private int position;
+        private int size;
+        
+        private Builder(int capacity) {
+            this.data = new byte[Math.max(capacity, 16)];
+        }
+        
+        public Builder add(byte[] bytes) {
+            ensure(5 + bytes.length);
+            for (int len = bytes.length; ; len >>>= 7) {
+                if (len < 0x80) {
+                    data[position++] = (byte) len;
+                    break;
+                }
+                data[position++] = (byte) (len | 0x80);
+            }
+            System.arraycopy(bytes, 0, data, position, bytes.length);
+            position += bytes.length;
+            size++;
+            return this;
+        }
+        
+        public Builder add(long value) {
+            byte[] bytes = new byte[8];
+            for (int i = 7; i >= 0; i--, value >>>= 8) bytes[i] = (byte) value;
+            return add(bytes);
+        }
+        
+        public ListPack build() {
+            return new ListPack(position == data.length ? data : Arrays.copyOf(data, position), size);
+        }
+        
+        private void ensure(int n) {
+            if (position + n > data.length) data = Arrays.copyOf(data, Math.max(data.length << 1, position + n));
+        }
+    }
+}
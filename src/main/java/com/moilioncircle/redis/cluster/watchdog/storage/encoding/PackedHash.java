@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable hash packed in a {@link ListPack} as field, value, field, value... Lookups are linear scans
+ * that compare fields in place.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class PackedHash extends AbstractMap<Bytes, byte[]> {
+    
+    private final ListPack pack;
+    private final ElementKind fieldKind;
+    private final ElementKind valueKind;
+    
+    public PackedHash(ListPack pack) {
+        this(pack, ElementKind.WRAPPED, ElementKind.BYTES);
+    }
+    
+    public PackedHash(ListPack pack, ElementKind fieldKind, ElementKind valueKind) {
+        this.pack = pack;
+        this.fieldKind = fieldKind;
+        this.valueKind = valueKind;
+    }
+    
+    /**
+     * @return the java type of the fields before they were packed
+     */
+    public ElementKind fieldKind() {
+        return fieldKind;
+    }
+    
+    /**
+     * @return the java type of the values before they were packed
+     */
+    public ElementKind valueKind() {
+        return valueKind;
+    }
+    
+    @Override
+    public int size() {
+        return pack.size() >>> 1;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+    
+    @Override
+    public byte[] get(Object key) {
+        ListPack.Cursor cursor = find(key);
+        return cursor == null ? null : cursor.get();
+    }
+    
+    /**
+     * @return the cursor on the value of {@code key}, null if absent
+     */
+    private ListPack.Cursor find(Object key) {
+        byte[] field = ValueEncodings.bytes(key);
+        if (field == null) return null;
+        for (ListPack.Cursor cursor = pack.cursor(); cursor.next(); ) {
+            boolean matches = cursor.matches(field);
+            cursor.next();
+            if (matches) return cursor;
+        }
+        return null;
+    }
+    
+    @Override
+    public Set<Entry<Bytes, byte[]>> entrySet() {
+        return new AbstractSet<Entry<Bytes, byte[]>>() {
+            @Override
+            public int size() {
+                return PackedHash.this.size();
+            }
+            
+            @Override
+            public Iterator<Entry<Bytes, byte[]>> iterator() {
+                ListPack.Cursor cursor = pack.cursor();
+                return new Iterator<Entry<Bytes, byte[]>>() {
+                    private int index;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return index < PackedHash.this.size();
+                    }
+                    
+                    @Override
+                    public Entry<Bytes, byte[]> next() {
+                        if (!cursor.next()) throw new NoSuchElementException();
+                        Bytes field = new Bytes(cursor.get());
+                        cursor.next();
+                        index++;
+                        return new SimpleImmutableEntry<>(field, cursor.get());
+                    }
+                };
+            }
+        };
+    }
+}
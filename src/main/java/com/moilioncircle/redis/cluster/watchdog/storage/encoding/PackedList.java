@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list packed in a {@link ListPack}, {@link #get(int)} walks the entries.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class PackedList extends AbstractList<byte[]> {
+    
+    private final ListPack pack;
+    private final ElementKind kind;
+    
+    public PackedList(ListPack pack) {
+        this(pack, ElementKind.BYTES);
+    }
+    
+    public PackedList(ListPack pack, ElementKind kind) {
+        this.pack = pack;
+        this.kind = kind;
+    }
+    
+    /**
+     * @return the java type of the elements before they were packed
+     */
+    public ElementKind kind() {
+        return kind;
+    }
+    
+    @Override
+    public byte[] get(int index) {
+        if (index < 0 || index >= pack.size()) throw new IndexOutOfBoundsException("Index: " + index);
+        ListPack.Cursor cursor = pack.cursor();
+        for (int i = 0; i <= index; i++) cursor.next();
+        return cursor.get();
+    }
+    
+    @Override
+    public int size() {
+        return pack.size();
+    }
+    
+    @Override
+    public Iterator<byte[]> iterator() {
+        ListPack.Cursor cursor = pack.cursor();
+        return new Iterator<byte[]>() {
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < pack.size();
+            }
+            
+            @Override
+            public byte[] next() {
+                if (!cursor.next()) throw new NoSuchElementException();
+                index++;
+                return cursor.get();
+            }
+        };
+    }
+}
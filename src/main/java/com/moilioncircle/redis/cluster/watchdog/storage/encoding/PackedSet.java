@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set packed in a {@link ListPack}, {@link #contains(Object)} is a linear scan.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class PackedSet extends AbstractSet<Bytes> {
+    
+    private final ListPack pack;
+    private final ElementKind kind;
+    
+    public PackedSet(ListPack pack) {
+        this(pack, ElementKind.WRAPPED);
+    }
+    
+    public PackedSet(ListPack pack, ElementKind kind) {
+        this.pack = pack;
+        this.kind = kind;
+    }
+    
+    /**
+     * @return the java type of the elements before they were packed
+     */
+    public ElementKind kind() {
+        return kind;
+    }
+    
+    @Override
+    public int size() {
+        return pack.size();
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        byte[] bytes = ValueEncodings.bytes(o);
+        if (bytes == null) return false;
+        for (ListPack.Cursor cursor = pack.cursor(); cursor.next(); ) {
+            if (cursor.matches(bytes)) return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public Iterator<Bytes> iterator() {
+        ListPack.Cursor cursor = pack.cursor();
+        return new Iterator<Bytes>() {
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < pack.size();
+            }
+            
+            @Override
+            public Bytes next() {
+                if (!cursor.next()) throw new NoSuchElementException();
+                index++;
+                return new Bytes(cursor.get());
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.ZSetEntry;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Immutable sorted set packed in a {@link ListPack} as member, score, member, score... in score order.
+ * Range views are copied into a {@link TreeSet}.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public final class PackedZSet extends AbstractSet<ZSetEntry> implements SortedSet<ZSetEntry> {
+    
+    private final ListPack pack;
+    private final Comparator<? super ZSetEntry> origin;
+    
+    /**
+     * @param pack members and their {@link Double#doubleToLongBits(double)} scores, in score order
+     */
+    public PackedZSet(ListPack pack) {
+        this(pack, null);
+    }
+    
+    /**
+     * @param pack   members and their {@link Double#doubleToLongBits(double)} scores, in score order
+     * @param origin the comparator of the encoded set, null for score order
+     */
+    public PackedZSet(ListPack pack, Comparator<? super ZSetEntry> origin) {
+        this.pack = pack;
+        this.origin = origin;
+    }
+    
+    /**
+     * @return the comparator of the encoded set, {@link #comparator()} is always score order
+     */
+    public Comparator<? super ZSetEntry> origin() {
+        return origin;
+    }
+    
+    @Override
+    public int size() {
+        return pack.size() >>> 1;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof ZSetEntry)) return false;
+        ZSetEntry entry = (ZSetEntry) o;
+        for (ListPack.Cursor cursor = pack.cursor(); cursor.next(); ) {
+            boolean matches = cursor.matches(entry.getMember());
+            cursor.next();
+            if (matches) return Double.compare(Double.longBitsToDouble(cursor.getLong()), entry.getScore()) == 0;
+        }
+        return false;
+    }
+    
+    @Override
+    public Iterator<ZSetEntry> iterator() {
+        ListPack.Cursor cursor = pack.cursor();
+        return new Iterator<ZSetEntry>() {
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+            
+            @Override
+            public ZSetEntry next() {
+                if (!cursor.next()) throw new NoSuchElementException();
+                byte[] member = cursor.get();
+                cursor.next();
+                index++;
+                return new ZSetEntry(member, Double.longBitsToDouble(cursor.getLong()));
+            }
+        };
+    }
+    
+    @Override
+    public Comparator<? super ZSetEntry> comparator() {
+        return null;
+    }
+    
+    @Override
+    public SortedSet<ZSetEntry> subSet(ZSetEntry fromElement, ZSetEntry toElement) {
+        return new TreeSet<>(this).subSet(fromElement, toElement);
+    }
+    
+    @Override
+    public SortedSet<ZSetEntry> headSet(ZSetEntry toElement) {
+        return new TreeSet<>(this).headSet(toElement);
+    }
+    
+    @Override
+    public SortedSet<ZSetEntry> tailSet(ZSetEntry fromElement) {
+        return new TreeSet<>(this).tailSet(fromElement);
+    }
+    
+    @Override
+    public ZSetEntry first() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return iterator().next();
+    }
+    
+    @Override
+    public ZSetEntry last() {
+        if (isEmpty()) throw new NoSuchElementException();
+        ZSetEntry last = null;
+        for (ZSetEntry entry : this) last = entry;
+        return last;
+    }
+}
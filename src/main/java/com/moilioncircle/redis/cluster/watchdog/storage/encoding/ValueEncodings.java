@@ -0,0 +1,301 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.ZSetEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.HASH_MAX_LISTPACK_ENTRIES;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.HASH_MAX_LISTPACK_VALUE;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.LIST_MAX_LISTPACK_SIZE;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.SET_MAX_INTSET_ENTRIES;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.SET_MAX_LISTPACK_ENTRIES;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.SET_MAX_LISTPACK_VALUE;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.ZSET_MAX_LISTPACK_ENTRIES;
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.ZSET_MAX_LISTPACK_VALUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Chooses the in memory encoding of the values a {@link com.moilioncircle.redis.cluster.watchdog.storage.StorageEngine}
+ * stores, with the thresholds of redis' {@code *-max-listpack-*} and {@code set-max-intset-entries}.
+ * Small aggregates are packed into {@link IntSet}, {@link PackedList}, {@link PackedSet}, {@link PackedHash}
+ * and {@link PackedZSet}, values past a threshold keep their full structure. Values are replaced as a whole
+ * on save, so a value that outgrows its compact encoding is promoted the next time it is saved.
+ * <p>
+ * The compact forms are immutable and internal to the engine. They record the {@link ElementKind} of their
+ * elements, so the types of {@link com.moilioncircle.redis.cluster.watchdog.codec.rdb.RdbValueCodec#decode(byte[])}
+ * and the {@code String} values of redis-replicator both come back from {@link #decode(Object)} as they were saved.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ValueEncodings {
+    
+    private int listMaxListpackSize = LIST_MAX_LISTPACK_SIZE;
+    private int setMaxIntsetEntries = SET_MAX_INTSET_ENTRIES;
+    private int setMaxListpackEntries = SET_MAX_LISTPACK_ENTRIES;
+    private int setMaxListpackValue = SET_MAX_LISTPACK_VALUE;
+    private int hashMaxListpackEntries = HASH_MAX_LISTPACK_ENTRIES;
+    private int hashMaxListpackValue = HASH_MAX_LISTPACK_VALUE;
+    private int zsetMaxListpackEntries = ZSET_MAX_LISTPACK_ENTRIES;
+    private int zsetMaxListpackValue = ZSET_MAX_LISTPACK_VALUE;
+    
+    /**
+     * Eligible values are lists, sets and maps of {@code byte[]}, {@link Bytes} or {@link CharSequence}
+     * elements of one kind, and {@code SortedSet<ZSetEntry>}, under the thresholds.
+     *
+     * @return the compact encoding of {@code value}, or {@code value} itself if it is not eligible
+     */
+    public Object encode(Object value) {
+        if (value instanceof List) return encodeList((List<?>) value);
+        if (value instanceof SortedSet) return encodeZSet((SortedSet<?>) value);
+        if (value instanceof Set) return encodeSet((Set<?>) value);
+        if (value instanceof Map) return encodeHash((Map<?, ?>) value);
+        return value;
+    }
+    
+    /**
+     * @return a mutable copy of the compact encoding {@code value} with the element types it was encoded from,
+     * or {@code value} itself if it is not a compact encoding
+     */
+    public Object decode(Object value) {
+        if (value instanceof PackedList) {
+            PackedList list = (PackedList) value;
+            if (list.kind() == ElementKind.BYTES) return new ArrayList<>(list);
+            List<Object> decoded = new ArrayList<>(list.size());
+            for (byte[] element : list) decoded.add(list.kind().restore(element));
+            return decoded;
+        }
+        if (value instanceof IntSet) return decode((IntSet) value, ((IntSet) value).kind());
+        if (value instanceof PackedSet) return decode((PackedSet) value, ((PackedSet) value).kind());
+        if (value instanceof PackedHash) {
+            PackedHash hash = (PackedHash) value;
+            if (hash.fieldKind() == ElementKind.WRAPPED && hash.valueKind() == ElementKind.BYTES) return new LinkedHashMap<>(hash);
+            Map<Object, Object> decoded = new LinkedHashMap<>(hash.size() * 2);
+            for (Map.Entry<Bytes, byte[]> entry : hash.entrySet()) {
+                decoded.put(hash.fieldKind().restore(entry.getKey().getBytes()), hash.valueKind().restore(entry.getValue()));
+            }
+            return decoded;
+        }
+        if (value instanceof PackedZSet) {
+            PackedZSet zset = (PackedZSet) value;
+            SortedSet<ZSetEntry> decoded = new TreeSet<>(zset.origin());
+            decoded.addAll(zset);
+            return decoded;
+        }
+        return value;
+    }
+    
+    private static Set<Object> decode(Set<Bytes> set, ElementKind kind) {
+        if (kind == ElementKind.WRAPPED) return new LinkedHashSet<>(set);
+        Set<Object> decoded = new LinkedHashSet<>(set.size() * 2);
+        for (Bytes member : set) decoded.add(kind.restore(member.getBytes()));
+        return decoded;
+    }
+    
+    private Object encodeList(List<?> list) {
+        if (list instanceof PackedList) return list;
+        ElementKind kind = kind(list, ElementKind.BYTES);
+        if (kind == null) return list;
+        ListPack.Builder builder = ListPack.builder(256);
+        long bytes = 0;
+        for (Object element : list) {
+            byte[] e = bytes(element);
+            if ((bytes += e.length) > listMaxListpackSize) return list;
+            builder.add(e);
+        }
+        return new PackedList(builder.build(), kind);
+    }
+    
+    private Object encodeSet(Set<?> set) {
+        if (set instanceof IntSet || set instanceof PackedSet) return set;
+        if (set.size() > Math.max(setMaxIntsetEntries, setMaxListpackEntries)) return set;
+        ElementKind kind = kind(set, ElementKind.WRAPPED);
+        if (kind == null || !distinct(set)) return set;
+        if (set.size() <= setMaxIntsetEntries) {
+            IntSet intset = IntSet.of(set, kind);
+            if (intset != null) return intset;
+        }
+        if (set.size() > setMaxListpackEntries) return set;
+        ListPack.Builder builder = ListPack.builder(set.size() * 8);
+        for (Object member : set) {
+            byte[] m = bytes(member);
+            if (m.length > setMaxListpackValue) return set;
+            builder.add(m);
+        }
+        return new PackedSet(builder.build(), kind);
+    }
+    
+    private Object encodeHash(Map<?, ?> hash) {
+        if (hash instanceof PackedHash || hash.size() > hashMaxListpackEntries) return hash;
+        ElementKind fieldKind = kind(hash.keySet(), ElementKind.WRAPPED);
+        ElementKind valueKind = kind(hash.values(), ElementKind.BYTES);
+        if (fieldKind == null || valueKind == null || !distinct(hash.keySet())) return hash;
+        ListPack.Builder builder = ListPack.builder(hash.size() * 16);
+        for (Map.Entry<?, ?> entry : hash.entrySet()) {
+            byte[] field = bytes(entry.getKey()), value = bytes(entry.getValue());
+            if (field.length > hashMaxListpackValue || value.length > hashMaxListpackValue) return hash;
+            builder.add(field).add(value);
+        }
+        return new PackedHash(builder.build(), fieldKind, valueKind);
+    }
+    
+    private Object encodeZSet(SortedSet<?> zset) {
+        if (zset instanceof PackedZSet || zset.size() > zsetMaxListpackEntries) return zset;
+        Collection<ZSetEntry> entries = new ArrayList<>(zset.size());
+        for (Object element : zset) {
+            if (!(element instanceof ZSetEntry)) return zset;
+            ZSetEntry entry = (ZSetEntry) element;
+            if (entry.getMember().length > zsetMaxListpackValue) return zset;
+            entries.add(entry);
+        }
+        // the set may have its own comparator, pack in score order and keep it for decode
+        Comparator<? super ZSetEntry> comparator = cast(zset.comparator());
+        if (comparator != null) entries = new TreeSet<>(entries);
+        ListPack.Builder builder = ListPack.builder(zset.size() * 24);
+        for (ZSetEntry entry : entries) {
+            builder.add(entry.getMember()).add(Double.doubleToLongBits(entry.getScore()));
+        }
+        return new PackedZSet(builder.build(), comparator);
+    }
+    
+    /**
+     * the members were checked to be {@link ZSetEntry}s, so is the comparator
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparator<? super ZSetEntry> cast(Comparator<?> comparator) {
+        return (Comparator<? super ZSetEntry>) comparator;
+    }
+    
+    /**
+     * @return the kind of every element, {@code empty} if there are none, null if the kinds differ
+     */
+    private static ElementKind kind(Collection<?> elements, ElementKind empty) {
+        ElementKind kind = null;
+        for (Object element : elements) {
+            ElementKind next = ElementKind.of(element);
+            if (next == null || (kind != null && next != kind)) return null;
+            kind = next;
+        }
+        return kind == null ? empty : kind;
+    }
+    
+    /**
+     * {@code byte[]} and most {@link CharSequence}s are equal by identity only, a set of them may
+     * hold the same bytes twice, which the packed forms would merge
+     */
+    private static boolean distinct(Collection<?> members) {
+        Set<Bytes> seen = null;
+        for (Object member : members) {
+            if (member instanceof Bytes || member instanceof String) continue;
+            if (seen == null) seen = new HashSet<>(members.size() * 2);
+            if (!seen.add(new Bytes(bytes(member)))) return false;
+        }
+        return true;
+    }
+    
+    static byte[] bytes(Object value) {
+        if (value instanceof byte[]) return (byte[]) value;
+        if (value instanceof Bytes) return ((Bytes) value).getBytes();
+        if (value instanceof CharSequence) return value.toString().getBytes(UTF_8);
+        return null;
+    }
+    
+    public int getListMaxListpackSize() {
+        return listMaxListpackSize;
+    }
+    
+    public ValueEncodings setListMaxListpackSize(int listMaxListpackSize) {
+        this.listMaxListpackSize = listMaxListpackSize;
+        return this;
+    }
+    
+    public int getSetMaxIntsetEntries() {
+        return setMaxIntsetEntries;
+    }
+    
+    public ValueEncodings setSetMaxIntsetEntries(int setMaxIntsetEntries) {
+        this.setMaxIntsetEntries = setMaxIntsetEntries;
+        return this;
+    }
+    
+    public int getSetMaxListpackEntries() {
+        return setMaxListpackEntries;
+    }
+    
+    public ValueEncodings setSetMaxListpackEntries(int setMaxListpackEntries) {
+        this.setMaxListpackEntries = setMaxListpackEntries;
+        return this;
+    }
+    
+    public int getSetMaxListpackValue() {
+        return setMaxListpackValue;
+    }
+    
+    public ValueEncodings setSetMaxListpackValue(int setMaxListpackValue) {
+        this.setMaxListpackValue = setMaxListpackValue;
+        return this;
+    }
+    
+    public int getHashMaxListpackEntries() {
+        return hashMaxListpackEntries;
+    }
+    
+    public ValueEncodings setHashMaxListpackEntries(int hashMaxListpackEntries) {
+        this.hashMaxListpackEntries = hashMaxListpackEntries;
+        return this;
+    }
+    
+    public int getHashMaxListpackValue() {
+        return hashMaxListpackValue;
+    }
+    
+    public ValueEncodings setHashMaxListpackValue(int hashMaxListpackValue) {
+        this.hashMaxListpackValue = hashMaxListpackValue;
+        return this;
+    }
+    
+    public int getZsetMaxListpackEntries() {
+        return zsetMaxListpackEntries;
+    }
+    
+    public ValueEncodings setZsetMaxListpackEntries(int zsetMaxListpackEntries) {
+        this.zsetMaxListpackEntries = zsetMaxListpackEntries;
+        return this;
+    }
+    
+    public int getZsetMaxListpackValue() {
+        return zsetMaxListpackValue;
+    }
+    
+    public ValueEncodings setZsetMaxListpackValue(int zsetMaxListpackValue) {
+        this.zsetMaxListpackValue = zsetMaxListpackValue;
+        return this;
+    }
+}
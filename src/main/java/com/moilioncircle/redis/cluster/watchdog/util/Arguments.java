@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util;
+
+/**
+ * Allocation free helpers over raw command arguments.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class Arguments {
+    
+    private static final int MATCH = 1;
+    private static final int NO_MATCH = 0;
+    /**
+     * no match for the rest of the pattern at any position, so longer matches of an earlier {@code *} cannot help
+     */
+    private static final int NO_MATCH_SKIP_LONGER = -1;
+    
+    public static String string(byte[] arg) {
+        return arg == null ? null : new String(arg);
+    }
+    
+    public static boolean equalsIgnoreCase(byte[] arg, String literal) {
+        if (arg == null || arg.length != literal.length()) return false;
+        for (int i = 0; i < arg.length; i++) {
+            if (lower(arg[i]) != lower((byte) literal.charAt(i))) return false;
+        }
+        return true;
+    }
+    
+    public static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+    
+    public static int parseInt(byte[] arg) {
+        long v = parseLong(arg);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) throw new NumberFormatException(string(arg));
+        return (int) v;
+    }
+    
+    /**
+     * Same contract as {@link Long#parseLong(String)} for ascii digits.
+     */
+    public static long parseLong(byte[] arg) {
+        if (arg == null || arg.length == 0) throw new NumberFormatException(string(arg));
+        int i = 0;
+        boolean negative = false;
+        if (arg[0] == '-' || arg[0] == '+') {
+            negative = arg[0] == '-';
+            if (++i == arg.length) throw new NumberFormatException(string(arg));
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE, v = 0;
+        for (; i < arg.length; i++) {
+            int d = arg[i] - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException(string(arg));
+            if (v < limit / 10) throw new NumberFormatException(string(arg));
+            v *= 10;
+            if (v < limit + d) throw new NumberFormatException(string(arg));
+            v -= d;
+        }
+        return negative ? v : -v;
+    }
+    
+    /**
+     * Glob-style matching of redis-server's {@code stringmatchlen}: {@code *}, {@code ?}, {@code [...]}, {@code [^...]}
+     * and {@code \\} escapes. Like redis 7.0.10 a {@code *} gives up as soon as the rest of the pattern
+     * matches no suffix, so patterns with many {@code *} do not backtrack exponentially.
+     */
+    public static boolean match(byte[] pattern, byte[] string) {
+        return match(pattern, 0, string, 0) == MATCH;
+    }
+    
+    private static int match(byte[] p, int pi, byte[] s, int si) {
+        while (pi < p.length) {
+            switch (p[pi]) {
+                case '*':
+                    while (pi + 1 < p.length && p[pi + 1] == '*') pi++;
+                    if (pi + 1 == p.length) return MATCH;
+                    for (; si <= s.length; si++) {
+                        int r = match(p, pi + 1, s, si);
+                        if (r != NO_MATCH) return r;
+                    }
+                    return NO_MATCH_SKIP_LONGER;
+                case '?':
+                    if (si == s.length) return NO_MATCH;
+                    si++;
+                    break;
+                case '[': {
+                    if (si == s.length) return NO_MATCH;
+                    boolean not = pi + 1 < p.length && p[pi + 1] == '^';
+                    if (not) pi++;
+                    boolean matched = false;
+                    for (pi++; pi < p.length && p[pi] != ']'; pi++) {
+                        if (p[pi] == '\\' && pi + 1 < p.length) {
+                            if (p[++pi] == s[si]) matched = true;
+                        } else if (pi + 2 < p.length && p[pi + 1] == '-') {
+                            int lo = p[pi] & 0xFF, hi = p[pi + 2] & 0xFF, c = s[si] & 0xFF;
+                            if (lo > hi) {
+                                int tmp = lo;
+                                lo = hi;
+                                hi = tmp;
+                            }
+                            if (c >= lo && c <= hi) matched = true;
+                            pi += 2;
+                        } else if (p[pi] == s[si]) {
+                            matched = true;
+                        }
+                    }
+                    if (pi == p.length) pi--;
+                    if (not) matched = !matched;
+                    if (!matched) return NO_MATCH;
+                    si++;
+                    break;
+                }
+                case '\\':
+                    if (pi + 1 < p.length) pi++;
+                    if (si == s.length || p[pi] != s[si]) return NO_MATCH;
+                    si++;
+                    break;
+                default:
+                    if (si == s.length || p[pi] != s[si]) return NO_MATCH;
+                    si++;
+                    break;
+            }
+            pi++;
+        }
+        return si == s.length ? MATCH : NO_MATCH;
+    }
+}
@@ -16,11 +16,29 @@
 
 package com.moilioncircle.redis.cluster.watchdog.util;
 
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
 /**
+ * CRC64-Jones (reflected, no init and no final xor) of redis {@code DUMP} payloads and RDB files.
+ * <p>
+ * Inputs are consumed 8 bytes per step with slicing-by-8 tables, {@link #update(long, byte[], int, int)}
+ * and its overloads continue a running crc so a payload can be checksummed chunk by chunk, and
+ * {@link #combine(long, long, long)} joins the crcs of chunks computed separately.
+ *
  * @author Leon Chen
  * @since 1.0.0
  */
 public class CRC64 {
+    
+    /**
+     * reflected 0xAD93D23594C935A9
+     */
+    private static final long POLY = 0X95AC9329AC4BC9B5L;
+    
     public static final long[] LOOKUP_TABLE = {
             0X0000000000000000L, 0X7AD870C830358979L, 0XF5B0E190606B12F2L, 0X8F689158505E9B8BL,
             0XC038E5739841B68FL, 0XBAE095BBA8743FF6L, 0X358804E3F82AA47DL, 0X4F50742BC81F2D04L,
@@ -88,15 +106,101 @@ public class CRC64 {
             0XA6DF411FBFB21CA3L, 0XDC0731D78F8795DAL, 0X536FA08FDFD90E51L, 0X29B7D047EFEC8728L,
     };
     
+    private static final long[][] TABLES = new long[8][];
+    
+    static {
+        TABLES[0] = LOOKUP_TABLE;
+        for (int k = 1; k < 8; k++) {
+            long[] prev = TABLES[k - 1], table = TABLES[k] = new long[256];
+            for (int n = 0; n < 256; n++) table[n] = (prev[n] >>> 8) ^ LOOKUP_TABLE[(int) prev[n] & 0XFF];
+        }
+    }
+    
     public static long crc64(byte[] bytes) {
         return crc64(bytes, 0, bytes.length);
     }
     
     public static long crc64(byte[] bytes, int start, int length) {
+        return update(0, bytes, start, length);
+    }
+    
+    public static long update(long crc, byte[] bytes, int start, int length) {
+        int i = start, end = start + length;
+        for (; end - i >= 8; i += 8) {
+            crc ^= (bytes[i] & 0XFFL) | (bytes[i + 1] & 0XFFL) << 8 | (bytes[i + 2] & 0XFFL) << 16 | (bytes[i + 3] & 0XFFL) << 24
+                    | (bytes[i + 4] & 0XFFL) << 32 | (bytes[i + 5] & 0XFFL) << 40 | (bytes[i + 6] & 0XFFL) << 48 | (bytes[i + 7] & 0XFFL) << 56;
+            crc = slice8(crc);
+        }
+        for (; i < end; i++) crc = (crc >>> 8) ^ LOOKUP_TABLE[((int) crc ^ bytes[i]) & 0XFF];
+        return crc;
+    }
+    
+    /**
+     * Reads {@code buf} from {@code index}, the indexes of the buffer are not modified.
+     */
+    public static long update(long crc, ByteBuf buf, int index, int length) {
+        if (buf.hasArray()) return update(crc, buf.array(), buf.arrayOffset() + index, length);
+        int i = index, end = index + length;
+        for (; end - i >= 8; i += 8) crc = slice8(crc ^ buf.getLongLE(i));
+        for (; i < end; i++) crc = (crc >>> 8) ^ LOOKUP_TABLE[((int) crc ^ buf.getByte(i)) & 0XFF];
+        return crc;
+    }
+    
+    /**
+     * Reads the remaining bytes of {@code buffer}, its position is moved to its limit.
+     */
+    public static long update(long crc, ByteBuffer buffer) {
+        int i = buffer.position(), end = buffer.limit();
+        if (buffer.hasArray()) {
+            crc = update(crc, buffer.array(), buffer.arrayOffset() + i, end - i);
+        } else {
+            ByteBuffer le = buffer.duplicate().order(LITTLE_ENDIAN);
+            for (; end - i >= 8; i += 8) crc = slice8(crc ^ le.getLong(i));
+            for (; i < end; i++) crc = (crc >>> 8) ^ LOOKUP_TABLE[((int) crc ^ le.get(i)) & 0XFF];
+        }
+        buffer.position(end);
+        return crc;
+    }
+    
+    /**
+     * @return the crc of the concatenation of two chunks from their crcs and the length of the second one
+     */
+    public static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) return crc1 ^ crc2;
+        // operator for one zero bit, squared into operators for 2, 4, 8... zero bits, see zlib crc32_combine
+        long[] odd = new long[64], even = new long[64];
+        odd[0] = POLY;
+        for (int n = 1; n < 64; n++) odd[n] = 1L << (n - 1);
+        square(even, odd);
+        square(odd, even);
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) crc1 = times(even, crc1);
+            length2 >>>= 1;
+            if (length2 == 0) break;
+            square(odd, even);
+            if ((length2 & 1) != 0) crc1 = times(odd, crc1);
+            length2 >>>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+    
+    private static long slice8(long crc) {
+        return TABLES[7][(int) crc & 0XFF] ^ TABLES[6][(int) (crc >>> 8) & 0XFF]
+                ^ TABLES[5][(int) (crc >>> 16) & 0XFF] ^ TABLES[4][(int) (crc >>> 24) & 0XFF]
+                ^ TABLES[3][(int) (crc >>> 32) & 0XFF] ^ TABLES[2][(int) (crc >>> 40) & 0XFF]
+                ^ TABLES[1][(int) (crc >>> 48) & 0XFF] ^ TABLES[0][(int) (crc >>> 56)];
+    }
+    
+    private static long times(long[] matrix, long vector) {
         long sum = 0;
-        for (int i = start; i < length; i++) {
-            sum = (sum >>> 8) ^ LOOKUP_TABLE[((int) sum ^ bytes[i]) & 0XFF];
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) sum ^= matrix[i];
         }
         return sum;
     }
+    
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 64; n++) square[n] = times(matrix, matrix[n]);
+    }
 }
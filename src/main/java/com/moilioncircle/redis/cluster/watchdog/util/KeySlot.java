@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util;
+
+import io.netty.buffer.ByteBuf;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
+import static com.moilioncircle.redis.cluster.watchdog.util.CRC16.crc16;
+
+/**
+ * Key to slot hashing, same as {@code keyHashSlot}: only the part between the first {@code '{'} and the
+ * first {@code '}'} after it is hashed when it is not empty. The search stops at the first {@code '{'} so
+ * keys without a hash tag, the usual case, are scanned once before hashing.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class KeySlot {
+    
+    private static final int MASK = CLUSTER_SLOTS - 1;
+    
+    public static int calcSlot(byte[] key) {
+        if (key == null) return 0;
+        return calcSlot(key, 0, key.length);
+    }
+    
+    public static int calcSlot(byte[] key, int start, int length) {
+        int end = start + length, st = start;
+        while (st < end && key[st] != '{') st++;
+        if (st < end) {
+            int ed = st + 1;
+            while (ed < end && key[ed] != '}') ed++;
+            if (ed < end && ed > st + 1) return crc16(key, st + 1, ed - st - 1) & MASK;
+        }
+        return crc16(key, start, length) & MASK;
+    }
+    
+    /**
+     * Hashes the readable bytes of {@code key} in place.
+     */
+    public static int calcSlot(ByteBuf key) {
+        return calcSlot(key, key.readerIndex(), key.readableBytes());
+    }
+    
+    public static int calcSlot(ByteBuf key, int index, int length) {
+        if (key.hasArray()) return calcSlot(key.array(), key.arrayOffset() + index, length);
+        int end = index + length, st = key.indexOf(index, end, (byte) '{');
+        if (st >= 0) {
+            int ed = key.indexOf(st + 1, end, (byte) '}');
+            if (ed > st + 1) return crc16(key, st + 1, ed - st - 1) & MASK;
+        }
+        return crc16(key, index, length) & MASK;
+    }
+    
+    /**
+     * Bulk {@link #calcSlot(byte[])}, {@code slots[i]} is the slot of {@code keys[i]}.
+     */
+    public static void calcSlots(byte[][] keys, int[] slots) {
+        for (int i = 0; i < keys.length; i++) slots[i] = calcSlot(keys[i]);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util;
+
+/**
+ * Phi accrual failure detector (Hayashibara et al.) over a sliding window of heartbeat
+ * inter-arrival times, using the logistic approximation of the normal CDF.
+ * <p>
+ * Not thread safe.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class PhiAccrualDetector {
+    
+    private int size;
+    private int index;
+    private double sum;
+    private double squares;
+    private long last = -1L;
+    private final long[] intervals;
+    
+    public PhiAccrualDetector(int window) {
+        if (window <= 0) throw new IllegalArgumentException("window: " + window);
+        this.intervals = new long[window];
+    }
+    
+    public void heartbeat(long now) {
+        long last = this.last;
+        this.last = now;
+        if (last < 0 || now <= last) return;
+        long interval = now - last;
+        if (size == intervals.length) {
+            long evicted = intervals[index];
+            sum -= evicted;
+            squares -= (double) evicted * evicted;
+        } else {
+            size++;
+        }
+        intervals[index] = interval;
+        sum += interval;
+        squares += (double) interval * interval;
+        index = (index + 1) % intervals.length;
+    }
+    
+    /**
+     * Starts a new interval at {@code now} without sampling the one that ends there, for an interval
+     * that is known not to be a normal heartbeat interval, like one spanning an outage.
+     */
+    public void restart(long now) {
+        this.last = now;
+    }
+    
+    public int samples() {
+        return size;
+    }
+    
+    public long lastHeartbeat() {
+        return last;
+    }
+    
+    public double mean() {
+        return size == 0 ? 0d : sum / size;
+    }
+    
+    public double stdDeviation(double min) {
+        if (size == 0) return min;
+        double mean = mean();
+        double variance = squares / size - mean * mean;
+        return Math.max(Math.sqrt(Math.max(variance, 0d)), min);
+    }
+    
+    public double phi(long now, double minStdDeviation) {
+        if (size == 0 || last < 0) return 0d;
+        double y = (now - last - mean()) / stdDeviation(minStdDeviation);
+        return phi(y);
+    }
+    
+    /**
+     * @return the time at which phi reaches {@code threshold}, -1 if there is no history yet.
+     */
+    public long deadline(double threshold, double minStdDeviation) {
+        if (size == 0 || last < 0) return -1L;
+        double lo = 0d, hi = 1d;
+        while (phi(hi) < threshold) hi *= 2;
+        for (int i = 0; i < 32; i++) {
+            double mid = (lo + hi) / 2;
+            if (phi(mid) < threshold) lo = mid;
+            else hi = mid;
+        }
+        return last + (long) Math.ceil(mean() + hi * stdDeviation(minStdDeviation));
+    }
+    
+    private static double phi(double y) {
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (y > 0) return -Math.log10(e / (1d + e));
+        return -Math.log10(1d - 1d / (1d + e));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util.collection;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.moilioncircle.redis.cluster.watchdog.util.Arguments.lower;
+
+/**
+ * Ascii case-insensitive map looked up directly with the raw bytes of a command name.
+ * Writes rebuild an immutable open addressing table, reads are lock and allocation free.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+@ThreadSafe
+@SuppressWarnings("unchecked")
+public class CaseInsensitiveMap<V> {
+    
+    private final Map<String, V> map = new LinkedHashMap<>();
+    private volatile Table table = new Table(new LinkedHashMap<>());
+    
+    public V get(byte[] key) {
+        return key == null ? null : (V) table.get(key);
+    }
+    
+    public V get(String key) {
+        return key == null ? null : get(key.getBytes());
+    }
+    
+    public synchronized V put(String key, V value) {
+        V r = map.put(key.toLowerCase(), value);
+        table = new Table(map);
+        return r;
+    }
+    
+    public synchronized V remove(String key) {
+        V r = map.remove(key.toLowerCase());
+        table = new Table(map);
+        return r;
+    }
+    
+    public synchronized Collection<V> values() {
+        return new ArrayList<>(map.values());
+    }
+    
+    private static int hash(byte[] key) {
+        int h = 0x811C9DC5;
+        for (byte b : key) h = (h ^ lower(b)) * 0x01000193;
+        return h ^ (h >>> 16);
+    }
+    
+    private static final class Table {
+        private final int mask;
+        private final byte[][] keys;
+        private final Object[] values;
+        
+        private Table(Map<String, ?> map) {
+            int capacity = Integer.highestOneBit(Math.max(map.size(), 4) * 2 - 1) << 1;
+            this.mask = capacity - 1;
+            this.keys = new byte[capacity][];
+            this.values = new Object[capacity];
+            for (Map.Entry<String, ?> e : map.entrySet()) {
+                byte[] key = e.getKey().getBytes();
+                int i = hash(key) & mask;
+                while (keys[i] != null) i = (i + 1) & mask;
+                keys[i] = key;
+                values[i] = e.getValue();
+            }
+        }
+        
+        private Object get(byte[] key) {
+            for (int i = hash(key) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (matches(keys[i], key)) return values[i];
+            }
+            return null;
+        }
+        
+        private static boolean matches(byte[] lowered, byte[] key) {
+            if (lowered.length != key.length) return false;
+            for (int i = 0; i < key.length; i++) if (lowered[i] != lower(key[i])) return false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util.collection;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Adaptive radix tree over {@code byte[]} keys in unsigned lexicographic order. Inner nodes grow from
+ * 4 to 16, 48 and 256 children and shrink back, and every node keeps the bytes it shares with all its keys
+ * as a compressed path, so a leaf only stores what is left of its key past the last branch.
+ * <p>
+ * Iterators may start at any key and {@link #removePrefix(byte[])} drops a whole subtree at once. Iterators
+ * are not fail-fast, do not modify the tree while iterating.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+@NotThreadSafe
+@SuppressWarnings("unchecked")
+public class RadixTree<V> {
+    
+    private static final byte[] EMPTY = new byte[0];
+    
+    private Node root;
+    private int size;
+    private Object removed;
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+    
+    public boolean containsKey(byte[] key) {
+        return get(key) != null;
+    }
+    
+    public V get(byte[] key) {
+        Node node = root;
+        int depth = 0;
+        while (node != null) {
+            byte[] prefix = node.prefix;
+            if (key.length - depth < prefix.length) return null;
+            for (int i = 0; i < prefix.length; i++) if (prefix[i] != key[depth + i]) return null;
+            depth += prefix.length;
+            if (node instanceof Leaf) return depth == key.length ? (V) ((Leaf) node).value : null;
+            Inner inner = (Inner) node;
+            if (depth == key.length) return (V) inner.value;
+            node = inner.find(key[depth++]);
+        }
+        return null;
+    }
+    
+    /**
+     * @param value not null
+     * @return the previous value of {@code key}, null if absent
+     */
+    public V put(byte[] key, V value) {
+        if (value == null) throw new NullPointerException("value");
+        removed = null;
+        if (root == null) {
+            root = new Leaf(key.clone(), value);
+            size++;
+            return null;
+        }
+        root = insert(root, key, 0, value);
+        return (V) removed;
+    }
+    
+    /**
+     * @return the removed value, null if absent
+     */
+    public V remove(byte[] key) {
+        removed = null;
+        if (root != null) root = remove(root, key, 0);
+        return (V) removed;
+    }
+    
+    /**
+     * Removes every key starting with {@code prefix}.
+     *
+     * @return the number of removed keys
+     */
+    public int removePrefix(byte[] prefix) {
+        if (root == null) return 0;
+        int before = size;
+        root = removePrefix(root, prefix, 0);
+        return before - size;
+    }
+    
+    public Iterator<Map.Entry<byte[], V>> iterator() {
+        return new Iter(null);
+    }
+    
+    /**
+     * @return iterator over the keys greater than or equal to {@code from}
+     */
+    public Iterator<Map.Entry<byte[], V>> iterator(byte[] from) {
+        return new Iter(from);
+    }
+    
+    private Node insert(Node node, byte[] key, int depth, V value) {
+        byte[] prefix = node.prefix;
+        int match = 0, max = Math.min(prefix.length, key.length - depth);
+        while (match < max && prefix[match] == key[depth + match]) match++;
+        
+        if (match < prefix.length || node instanceof Leaf && depth + match < key.length) {
+            // split the compressed path at the first difference
+            Inner inner = new Inner(slice(prefix, 0, match));
+            if (match < prefix.length) {
+                byte b = prefix[match];
+                node.prefix = slice(prefix, match + 1, prefix.length);
+                inner.add(b, node);
+            } else {
+                inner.value = ((Leaf) node).value;
+            }
+            depth += match;
+            if (depth == key.length) inner.value = value;
+            else inner.add(key[depth], new Leaf(slice(key, depth + 1, key.length), value));
+            size++;
+            return inner;
+        }
+        
+        depth += match;
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            removed = leaf.value;
+            leaf.value = value;
+            return leaf;
+        }
+        Inner inner = (Inner) node;
+        if (depth == key.length) {
+            removed = inner.value;
+            if (removed == null) size++;
+            inner.value = value;
+            return inner;
+        }
+        byte b = key[depth];
+        Node child = inner.find(b);
+        if (child == null) {
+            inner = inner.add(b, new Leaf(slice(key, depth + 1, key.length), value));
+            size++;
+        } else {
+            Node next = insert(child, key, depth + 1, value);
+            if (next != child) inner.replace(b, next);
+        }
+        return inner;
+    }
+    
+    private Node remove(Node node, byte[] key, int depth) {
+        byte[] prefix = node.prefix;
+        if (key.length - depth < prefix.length) return node;
+        for (int i = 0; i < prefix.length; i++) if (prefix[i] != key[depth + i]) return node;
+        depth += prefix.length;
+        if (node instanceof Leaf) {
+            if (depth != key.length) return node;
+            removed = ((Leaf) node).value;
+            size--;
+            return null;
+        }
+        Inner inner = (Inner) node;
+        if (depth == key.length) {
+            if (inner.value == null) return node;
+            removed = inner.value;
+            inner.value = null;
+            size--;
+            return compact(inner);
+        }
+        byte b = key[depth];
+        Node child = inner.find(b);
+        if (child == null) return node;
+        Node next = remove(child, key, depth + 1);
+        if (next == child) return node;
+        if (next != null) {
+            inner.replace(b, next);
+            return inner;
+        }
+        return compact(inner.delete(b));
+    }
+    
+    private Node removePrefix(Node node, byte[] key, int depth) {
+        byte[] prefix = node.prefix;
+        int rest = key.length - depth;
+        int max = Math.min(rest, prefix.length);
+        for (int i = 0; i < max; i++) if (prefix[i] != key[depth + i]) return node;
+        if (rest <= prefix.length) {
+            size -= count(node);
+            return null;
+        }
+        if (node instanceof Leaf) return node;
+        depth += prefix.length;
+        Inner inner = (Inner) node;
+        byte b = key[depth];
+        Node child = inner.find(b);
+        if (child == null) return node;
+        Node next = removePrefix(child, key, depth + 1);
+        if (next == child) return node;
+        if (next != null) {
+            inner.replace(b, next);
+            return inner;
+        }
+        return compact(inner.delete(b));
+    }
+    
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        return from == to ? EMPTY : Arrays.copyOfRange(bytes, from, to);
+    }
+    
+    private static int count(Node node) {
+        if (node instanceof Leaf) return 1;
+        Inner inner = (Inner) node;
+        int count = inner.value == null ? 0 : 1;
+        for (int b = inner.next(0); b >= 0; b = inner.next(b + 1)) count += count(inner.find((byte) b));
+        return count;
+    }
+    
+    /**
+     * Turns a valued inner node without children into a leaf and merges a single child without value into
+     * its parent path.
+     */
+    private static Node compact(Inner inner) {
+        if (inner.count == 0) return inner.value == null ? null : new Leaf(inner.prefix, inner.value);
+        if (inner.count > 1 || inner.value != null) return inner;
+        int b = inner.next(0);
+        Node child = inner.find((byte) b);
+        byte[] prefix = new byte[inner.prefix.length + 1 + child.prefix.length];
+        System.arraycopy(inner.prefix, 0, prefix, 0, inner.prefix.length);
+        prefix[inner.prefix.length] = (byte) b;
+        System.arraycopy(child.prefix, 0, prefix, inner.prefix.length + 1, child.prefix.length);
+        child.prefix = prefix;
+        return child;
+    }
+    
+    private static abstract class Node {
+        byte[] prefix;
+        
+        Node(byte[] prefix) {
+            this.prefix = prefix;
+        }
+    }
+    
+    private static final class Leaf extends Node {
+        Object value;
+        
+        Leaf(byte[] prefix, Object value) {
+            super(prefix);
+            this.value = value;
+        }
+    }
+    
+    /**
+     * Up to 16 children are kept in a sorted {@code keys} array, up to 48 through a 256 bytes {@code index}
+     * of 1 based slots and above that in a direct 256 slots array.
+     */
+    private static final class Inner extends Node {
+        Object value;
+        int count;
+        byte[] keys;
+        byte[] index;
+        Node[] children;
+        
+        Inner(byte[] prefix) {
+            super(prefix);
+            this.keys = new byte[4];
+            this.children = new Node[4];
+        }
+        
+        Node find(byte b) {
+            int u = b & 0xFF;
+            if (keys != null) {
+                for (int i = 0; i < count; i++) if (keys[i] == b) return children[i];
+                return null;
+            }
+            if (index != null) {
+                int slot = index[u] & 0xFF;
+                return slot == 0 ? null : children[slot - 1];
+            }
+            return children[u];
+        }
+        
+        /**
+         * @return the first child byte greater than or equal to {@code from}, -1 if none
+         */
+        int next(int from) {
+            if (keys != null) {
+                for (int i = 0; i < count; i++) if ((keys[i] & 0xFF) >= from) return keys[i] & 0xFF;
+                return -1;
+            }
+            for (int u = from; u < 256; u++) {
+                if (index != null ? index[u] != 0 : children[u] != null) return u;
+            }
+            return -1;
+        }
+        
+        Inner add(byte b, Node child) {
+            int u = b & 0xFF;
+            if (keys != null) {
+                if (count == keys.length) {
+                    if (count < 16) {
+                        keys = Arrays.copyOf(keys, 16);
+                        children = Arrays.copyOf(children, 16);
+                    } else {
+                        toIndexed();
+                        return add(b, child);
+                    }
+                }
+                int i = count;
+                while (i > 0 && (keys[i - 1] & 0xFF) > u) {
+                    keys[i] = keys[i - 1];
+                    children[i] = children[i - 1];
+                    i--;
+                }
+                keys[i] = b;
+                children[i] = child;
+            } else if (index != null) {
+                if (count == 48) {
+                    toDirect();
+                    return add(b, child);
+                }
+                int slot = 0;
+                while (children[slot] != null) slot++;
+                children[slot] = child;
+                index[u] = (byte) (slot + 1);
+            } else {
+                children[u] = child;
+            }
+            count++;
+            return this;
+        }
+        
+        void replace(byte b, Node child) {
+            int u = b & 0xFF;
+            if (keys != null) {
+                for (int i = 0; i < count; i++) if (keys[i] == b) children[i] = child;
+            } else if (index != null) {
+                children[(index[u] & 0xFF) - 1] = child;
+            } else {
+                children[u] = child;
+            }
+        }
+        
+        Inner delete(byte b) {
+            int u = b & 0xFF;
+            if (keys != null) {
+                int i = 0;
+                while (keys[i] != b) i++;
+                System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+                System.arraycopy(children, i + 1, children, i, count - i - 1);
+                children[--count] = null;
+                if (count == 3 && keys.length == 16) {
+                    keys = Arrays.copyOf(keys, 4);
+                    children = Arrays.copyOf(children, 4);
+                }
+            } else if (index != null) {
+                children[(index[u] & 0xFF) - 1] = null;
+                index[u] = 0;
+                if (--count == 12) toSorted();
+            } else {
+                children[u] = null;
+                if (--count == 37) toIndexed();
+            }
+            return this;
+        }
+        
+        private void toSorted() {
+            byte[] keys = new byte[16];
+            Node[] children = new Node[16];
+            int n = 0;
+            for (int u = 0; u < 256; u++) {
+                if (index[u] == 0) continue;
+                keys[n] = (byte) u;
+                children[n++] = this.children[(index[u] & 0xFF) - 1];
+            }
+            this.keys = keys;
+            this.children = children;
+            this.index = null;
+        }
+        
+        private void toIndexed() {
+            byte[] index = new byte[256];
+            Node[] children = new Node[48];
+            int n = 0;
+            if (keys != null) {
+                for (int i = 0; i < count; i++) {
+                    index[keys[i] & 0xFF] = (byte) (n + 1);
+                    children[n++] = this.children[i];
+                }
+            } else {
+                for (int u = 0; u < 256; u++) {
+                    if (this.children[u] == null) continue;
+                    index[u] = (byte) (n + 1);
+                    children[n++] = this.children[u];
+                }
+            }
+            this.keys = null;
+            this.index = index;
+            this.children = children;
+        }
+        
+        private void toDirect() {
+            Node[] children = new Node[256];
+            for (int u = 0; u < 256; u++) {
+                if (index[u] != 0) children[u] = this.children[(index[u] & 0xFF) - 1];
+            }
+            this.index = null;
+            this.children = children;
+        }
+    }
+    
+    private static final class Frame {
+        final Node node;
+        final int length;
+        int next;
+        boolean visited;
+        
+        Frame(Node node, int length, int next, boolean visited) {
+            this.node = node;
+            this.length = length;
+            this.next = next;
+            this.visited = visited;
+        }
+    }
+    
+    /**
+     * Depth first walk, {@code key[0..frame.length)} is the path down to the node of a frame.
+     */
+    private class Iter implements Iterator<Map.Entry<byte[], V>> {
+        private byte[] key = new byte[64];
+        private final List<Frame> stack = new ArrayList<>();
+        private Map.Entry<byte[], V> next;
+        
+        private Iter(byte[] from) {
+            if (root == null) return;
+            if (from == null) push(root, 0, 0, false);
+            else seek(from);
+            next = advance();
+        }
+        
+        private void seek(byte[] from) {
+            Node node = root;
+            int depth = 0, length = 0;
+            while (true) {
+                byte[] prefix = node.prefix;
+                int max = Math.min(prefix.length, from.length - depth), i = 0;
+                while (i < max && prefix[i] == from[depth + i]) i++;
+                if (i < max) {
+                    // the subtree is entirely before or after from
+                    if ((prefix[i] & 0xFF) > (from[depth + i] & 0xFF)) push(node, length, 0, false);
+                    return;
+                }
+                if (depth + prefix.length >= from.length) {
+                    // from ends within or at the end of the path, all keys below are greater or equal
+                    push(node, length, 0, false);
+                    return;
+                }
+                if (node instanceof Leaf) return;
+                depth += prefix.length;
+                int b = from[depth] & 0xFF;
+                Frame frame = push(node, length, b + 1, true);
+                Node child = ((Inner) node).find((byte) b);
+                if (child == null) return;
+                length = frame.length;
+                append(length++, (byte) b);
+                node = child;
+                depth++;
+            }
+        }
+        
+        private Frame push(Node node, int length, int next, boolean visited) {
+            byte[] prefix = node.prefix;
+            ensure(length + prefix.length + 1);
+            System.arraycopy(prefix, 0, key, length, prefix.length);
+            Frame frame = new Frame(node, length + prefix.length, next, visited);
+            stack.add(frame);
+            return frame;
+        }
+        
+        private void append(int index, byte b) {
+            ensure(index + 1);
+            key[index] = b;
+        }
+        
+        private void ensure(int capacity) {
+            if (capacity > key.length) key = Arrays.copyOf(key, Math.max(capacity, key.length << 1));
+        }
+        
+        private Map.Entry<byte[], V> advance() {
+            while (!stack.isEmpty()) {
+                Frame frame = stack.get(stack.size() - 1);
+                if (frame.node instanceof Leaf) {
+                    stack.remove(stack.size() - 1);
+                    return entry(frame.length, ((Leaf) frame.node).value);
+                }
+                Inner inner = (Inner) frame.node;
+                if (!frame.visited) {
+                    frame.visited = true;
+                    if (inner.value != null) return entry(frame.length, inner.value);
+                }
+                int b = frame.next < 256 ? inner.next(frame.next) : -1;
+                if (b < 0) {
+                    stack.remove(stack.size() - 1);
+                    continue;
+                }
+                frame.next = b + 1;
+                append(frame.length, (byte) b);
+                push(inner.find((byte) b), frame.length + 1, 0, false);
+            }
+            return null;
+        }
+        
+        private Map.Entry<byte[], V> entry(int length, Object value) {
+            return new AbstractMap.SimpleImmutableEntry<>(length == 0 ? EMPTY : Arrays.copyOf(key, length), (V) value);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public Map.Entry<byte[], V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Map.Entry<byte[], V> r = next;
+            next = advance();
+            return r;
+        }
+    }
+}
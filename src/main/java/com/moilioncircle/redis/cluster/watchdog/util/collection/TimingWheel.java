@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util.collection;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel holding at most one deadline per value. Rescheduling and
+ * cancelling are O(1), {@link #advance(long, Consumer)} only visits the buckets of
+ * the elapsed ticks. Deadlines further than one rotation stay in their bucket until
+ * a later rotation reaches them.
+ * <p>
+ * Not thread safe.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class TimingWheel<T> {
+    
+    private final long tick;
+    private final int mask;
+    private final Entry<T>[] buckets;
+    private final List<T> expired = new ArrayList<>();
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    
+    private long cursor;
+    
+    public TimingWheel(int wheelSize, long tick, long now) {
+        if (wheelSize <= 0 || (wheelSize & (wheelSize - 1)) != 0)
+            throw new IllegalArgumentException("wheelSize must be a power of 2: " + wheelSize);
+        if (tick <= 0) throw new IllegalArgumentException("tick: " + tick);
+        this.tick = tick;
+        this.mask = wheelSize - 1;
+        this.cursor = now / tick;
+        @SuppressWarnings("unchecked")
+        Entry<T>[] buckets = (Entry<T>[]) new Entry<?>[wheelSize];
+        this.buckets = buckets;
+        for (int i = 0; i < wheelSize; i++) {
+            Entry<T> head = new Entry<>(null);
+            head.prev = head.next = head;
+            buckets[i] = head;
+        }
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public boolean contains(T value) {
+        return entries.containsKey(value);
+    }
+    
+    public long deadline(T value) {
+        Entry<T> entry = entries.get(value);
+        return entry == null ? -1L : entry.deadline;
+    }
+    
+    public void schedule(T value, long deadline) {
+        Entry<T> entry = entries.get(value);
+        if (entry == null) entries.put(value, entry = new Entry<>(value));
+        else unlink(entry);
+        entry.deadline = deadline;
+        link(buckets[(int) (Math.max(deadline / tick, cursor) & mask)], entry);
+    }
+    
+    public boolean cancel(T value) {
+        Entry<T> entry = entries.remove(value);
+        if (entry == null) return false;
+        unlink(entry);
+        return true;
+    }
+    
+    public void clear() {
+        for (Entry<T> head : buckets) head.prev = head.next = head;
+        entries.clear();
+    }
+    
+    /**
+     * Removes every value whose deadline is {@code <= now} and hands it to {@code consumer},
+     * which may reschedule it.
+     */
+    public void advance(long now, Consumer<T> consumer) {
+        long target = now / tick;
+        for (long i = Math.max(cursor, target - mask); i <= target; i++) {
+            Entry<T> head = buckets[(int) (i & mask)];
+            for (Entry<T> e = head.next, next; e != head; e = next) {
+                next = e.next;
+                if (e.deadline > now) continue;
+                unlink(e);
+                entries.remove(e.value);
+                expired.add(e.value);
+            }
+        }
+        cursor = Math.max(cursor, target);
+        try {
+            for (T value : expired) consumer.accept(value);
+        } finally {
+            expired.clear();
+        }
+    }
+    
+    private static <T> void link(Entry<T> head, Entry<T> entry) {
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+    
+    private static <T> void unlink(Entry<T> entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = entry.next = null;
+    }
+    
+    private static class Entry<T> {
+        private final T value;
+        private long deadline;
+        private Entry<T> prev;
+        private Entry<T> next;
+        
+        private Entry(T value) {
+            this.value = value;
+        }
+    }
+}
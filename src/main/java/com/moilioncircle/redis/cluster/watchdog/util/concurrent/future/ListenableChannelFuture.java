@@ -63,6 +63,7 @@ public class ListenableChannelFuture<T> extends AbstractCompletableFuture<T> imp
 
     @Override
     public void operationComplete(Future<T> future) throws Exception {
-        listener.onComplete(this);
+        FutureListener<T> listener = this.listener;
+        if (listener != null) listener.onComplete(this);
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util.concurrent.ring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer single-consumer ring of pre-allocated entries.
+ * <p>
+ * Producers {@link #claim()} a sequence, fill {@link #get(long)} in place and {@link #publish(long)} it.
+ * The consumer {@link #peek()}s the next published sequence and {@link #release(long)}s it when done.
+ *
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RingBuffer<E> {
+    
+    private final int mask;
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail = 0;
+    
+    public RingBuffer(int capacity, Supplier<E> factory) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        this.mask = capacity - 1;
+        this.entries = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+            sequences.set(i, i);
+        }
+    }
+    
+    public int capacity() {
+        return mask + 1;
+    }
+    
+    public int size() {
+        long size = head.get() - tail;
+        return size < 0 ? 0 : (int) Math.min(size, capacity());
+    }
+    
+    public boolean isEmpty() {
+        return sequences.get((int) (tail & mask)) != tail + 1;
+    }
+    
+    /**
+     * @return claimed sequence or -1 if the ring is full
+     */
+    public long claim() {
+        for (; ; ) {
+            long seq = head.get();
+            long diff = sequences.get((int) (seq & mask)) - seq;
+            if (diff < 0) return -1L;
+            if (diff == 0 && head.compareAndSet(seq, seq + 1)) return seq;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    public E get(long seq) {
+        return (E) entries[(int) (seq & mask)];
+    }
+    
+    public void publish(long seq) {
+        sequences.set((int) (seq & mask), seq + 1);
+    }
+    
+    /**
+     * consumer side only.
+     *
+     * @return next published sequence or -1 if the ring is empty
+     */
+    public long peek() {
+        long seq = tail;
+        return sequences.get((int) (seq & mask)) == seq + 1 ? seq : -1L;
+    }
+    
+    /**
+     * consumer side only.
+     */
+    public void release(long seq) {
+        sequences.lazySet((int) (seq & mask), seq + mask + 1);
+        tail = seq + 1;
+    }
+}
@@ -33,6 +33,7 @@ public class NetworkConfiguration {
     protected boolean soKeepAlive = true;
     protected boolean soReuseAddr = true;
     protected boolean autoReconnect = false;
+    protected int flushThreshold = 64 * 1024;
     protected volatile long connectTimeout = SECONDS.toMillis(5);
     protected volatile long reconnectInterval = SECONDS.toMillis(5);
     private NetworkConfiguration() {
@@ -120,6 +121,18 @@ public class NetworkConfiguration {
         return this;
     }
     
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+    
+    /**
+     * bytes an acceptor may buffer for replies to a pipelined read batch before flushing early.
+     */
+    public NetworkConfiguration setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+        return this;
+    }
+    
     public int getSoSendBufferSize() {
         return soSendBufferSize;
     }
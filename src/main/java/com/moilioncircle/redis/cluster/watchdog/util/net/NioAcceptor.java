@@ -58,7 +58,7 @@ public class NioAcceptor<T> extends AbstractNioBootstrap<T> {
                 final ChannelPipeline p = channel.pipeline();
                 p.addLast("encoder", getEncoder().get());
                 p.addLast("decoder", getDecoder().get());
-                p.addLast("transport", transport = new NioAcceptorTransport<>(NioAcceptor.this));
+                p.addLast("transport", transport = new NioAcceptorTransport<>(NioAcceptor.this, configuration.getFlushThreshold()));
             }
         });
         this.bootstrap.option(ChannelOption.SO_BACKLOG, configuration.getSoBacklog());
@@ -34,6 +34,7 @@ public abstract class AbstractTransport<T> extends SimpleChannelInboundHandler<T
 
     private static AtomicInteger acc = new AtomicInteger();
     protected volatile TransportListener<T> listener;
+    private volatile Object attachment;
     private long id;
 
     protected AbstractTransport(AbstractNioBootstrap<T> listener) {
@@ -52,6 +53,16 @@ public abstract class AbstractTransport<T> extends SimpleChannelInboundHandler<T
         return id;
     }
 
+    @Override
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    @Override
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
     @Override
     public synchronized TransportListener<T> setTransportListener(TransportListener<T> listener) {
         TransportListener<T> r = this.listener;
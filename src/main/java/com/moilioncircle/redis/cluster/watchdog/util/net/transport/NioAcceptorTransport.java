@@ -20,6 +20,8 @@ import com.moilioncircle.redis.cluster.watchdog.util.concurrent.future.Completab
 import com.moilioncircle.redis.cluster.watchdog.util.concurrent.future.ListenableChannelFuture;
 import com.moilioncircle.redis.cluster.watchdog.util.net.AbstractNioBootstrap;
 import com.moilioncircle.redis.cluster.watchdog.util.net.ConnectionStatus;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.net.SocketAddress;
@@ -35,8 +37,23 @@ public class NioAcceptorTransport<T> extends AbstractTransport<T> {
 
     private volatile ChannelHandlerContext context;
 
+    /**
+     * Replies flushed while a read batch is being dispatched are only written, and flushed
+     * once in {@link #channelReadComplete} or as soon as {@code flushThreshold} bytes are pending.
+     * These fields are only touched on the I/O thread.
+     */
+    private int pending;
+    private boolean dirty;
+    private boolean reading;
+    private final int flushThreshold;
+
     public NioAcceptorTransport(AbstractNioBootstrap<T> listener) {
+        this(listener, 0);
+    }
+
+    public NioAcceptorTransport(AbstractNioBootstrap<T> listener, int flushThreshold) {
         super(listener);
+        this.flushThreshold = flushThreshold;
     }
 
     @Override
@@ -64,13 +81,60 @@ public class NioAcceptorTransport<T> extends AbstractTransport<T> {
 
     @Override
     public <V> CompletableFuture<Void> write(V message, boolean flush) {
-        if (!flush) {
+        if (flush && context.executor().inEventLoop() && reading) {
+            ChannelFuture future = context.write(message);
+            dirty = true;
+            if (message instanceof byte[]) pending += ((byte[]) message).length;
+            else if (message instanceof ByteBuf) pending += ((ByteBuf) message).readableBytes();
+            if (pending >= flushThreshold) flushPending();
+            return new ListenableChannelFuture<>(future);
+        } else if (!flush) {
             return new ListenableChannelFuture<>(context.write(message));
         } else {
             return new ListenableChannelFuture<>(context.writeAndFlush(message));
         }
     }
 
+    @Override
+    public void execute(Runnable task) {
+        context.executor().execute(() -> {
+            boolean reading = this.reading;
+            this.reading = true;
+            try {
+                task.run();
+            } finally {
+                this.reading = reading;
+                if (!reading) flushPending();
+            }
+        });
+    }
+
+    @Override
+    public void setAutoRead(boolean autoRead) {
+        ChannelHandlerContext context = this.context;
+        if (context != null) context.channel().config().setAutoRead(autoRead);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object message) throws Exception {
+        this.reading = true;
+        super.channelRead(ctx, message);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        this.reading = false;
+        flushPending();
+        super.channelReadComplete(ctx);
+    }
+
+    private void flushPending() {
+        if (!dirty) return;
+        dirty = false;
+        pending = 0;
+        context.flush();
+    }
+
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         super.channelActive(this.context = ctx);
@@ -71,6 +71,17 @@ public class NioInitiatorTransport<T> extends AbstractTransport<T> {
         }
     }
 
+    @Override
+    public void execute(Runnable task) {
+        channel.eventLoop().execute(task);
+    }
+
+    @Override
+    public void setAutoRead(boolean autoRead) {
+        Channel channel = this.channel;
+        if (channel != null) channel.config().setAutoRead(autoRead);
+    }
+
     public void setChannel(Channel channel) {
         this.channel = channel;
     }
@@ -39,5 +39,22 @@ public interface Transport<T> {
     
     <V> CompletableFuture<Void> write(V message, boolean flush);
     
+    /**
+     * Runs the task on the I/O thread of this transport, after every write already submitted to it.
+     */
+    void execute(Runnable task);
+    
+    /**
+     * Stops or resumes reading from the connection, used to push back on a peer that sends faster than it is served.
+     */
+    void setAutoRead(boolean autoRead);
+    
     TransportListener<T> setTransportListener(TransportListener<T> listener);
+    
+    /**
+     * @return the per-connection state set by {@link #setAttachment(Object)}, null if none
+     */
+    Object getAttachment();
+    
+    void setAttachment(Object attachment);
 }
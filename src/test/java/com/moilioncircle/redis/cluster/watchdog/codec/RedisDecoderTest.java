@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RedisDecoderTest {
+    
+    @Test
+    public void testSplitFrame() {
+        RedisDecoder decoder = new RedisDecoder();
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        byte[] frame = "*3\r\n$3\r\nSET\r\n$3\r\nfoo\r\n$5\r\nhello\r\n*1\r\n$4\r\nPING\r\n".getBytes(UTF_8);
+        for (byte b : frame) channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{b}));
+        byte[][] set = channel.readInbound();
+        assertEquals(3, set.length);
+        assertArrayEquals("SET".getBytes(UTF_8), set[0]);
+        assertArrayEquals("foo".getBytes(UTF_8), set[1]);
+        assertArrayEquals("hello".getBytes(UTF_8), set[2]);
+        byte[][] ping = channel.readInbound();
+        assertArrayEquals("PING".getBytes(UTF_8), ping[0]);
+        assertNull(channel.readInbound());
+        assertTrue(channel.isOpen());
+    }
+    
+    @Test
+    public void testEmptyAndNullBulk() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RedisDecoder());
+        channel.writeInbound(Unpooled.wrappedBuffer("*2\r\n$0\r\n\r\n$-1\r\n".getBytes(UTF_8)));
+        byte[][] message = channel.readInbound();
+        assertEquals(2, message.length);
+        assertEquals(0, message[0].length);
+        assertNull(message[1]);
+    }
+    
+    @Test
+    public void testOversizedAnnouncement() throws Exception {
+        RedisDecoder decoder = new RedisDecoder();
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        channel.writeInbound(Unpooled.wrappedBuffer("*1048576\r\n".getBytes(UTF_8)));
+        assertTrue(((byte[][]) field(decoder, "args")).length <= 1024);
+        channel.writeInbound(Unpooled.wrappedBuffer("$536870912\r\nabc".getBytes(UTF_8)));
+        assertTrue(((byte[]) field(decoder, "bulk")).length <= 32 * 1024);
+        assertNull(channel.readInbound());
+        assertTrue(channel.isOpen());
+    }
+    
+    @Test
+    public void testGrowingFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RedisDecoder());
+        int argc = 3000;
+        byte[] big = new byte[100000];
+        for (int i = 0; i < big.length; i++) big[i] = (byte) i;
+        StringBuilder header = new StringBuilder("*" + argc + "\r\n$" + big.length + "\r\n");
+        channel.writeInbound(Unpooled.wrappedBuffer(header.toString().getBytes(UTF_8)));
+        for (int i = 0; i < big.length; i += 1000) channel.writeInbound(Unpooled.wrappedBuffer(big, i, 1000));
+        StringBuilder rest = new StringBuilder("\r\n");
+        for (int i = 1; i < argc; i++) rest.append("$").append(String.valueOf(i).length()).append("\r\n").append(i).append("\r\n");
+        channel.writeInbound(Unpooled.wrappedBuffer(rest.toString().getBytes(UTF_8)));
+        byte[][] message = channel.readInbound();
+        assertEquals(argc, message.length);
+        assertArrayEquals(big, message[0]);
+        for (int i = 1; i < argc; i++) assertArrayEquals(String.valueOf(i).getBytes(UTF_8), message[i]);
+    }
+    
+    @Test
+    public void testTooLarge() {
+        for (String frame : Arrays.asList("*1048577\r\n", "*1\r\n$536870913\r\n", "*1\r\n$abc\r\n", "*1\r\n$3\r\nfooXX")) {
+            EmbeddedChannel channel = new EmbeddedChannel(new RedisDecoder());
+            channel.writeInbound(Unpooled.wrappedBuffer(frame.getBytes(UTF_8)));
+            assertNull(channel.readInbound());
+            byte[] reply = channel.readOutbound();
+            assertTrue(new String(reply, UTF_8).startsWith("-ERR Protocol error"));
+            assertFalse(channel.isOpen());
+        }
+    }
+    
+    private static Object field(Object target, String name) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.codec.rdb;
+
+import com.moilioncircle.redis.cluster.watchdog.util.CRC64;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RdbValueCodecTest {
+    
+    @Test
+    public void testRoundTrip() {
+        for (String value : new String[]{"", "abc", "0", "-1", "127", "128", "-129", "32767", "-32768", "65536",
+                "2147483647", "-2147483648", "2147483648", "-2147483649", "9223372036854775807",
+                "007", "-0", "-", "+1", "1.5", "12345678901", "\u00e9t\u00e9"}) {
+            assertArrayEquals(value, value.getBytes(UTF_8), (byte[]) roundTrip(value.getBytes(UTF_8)));
+        }
+        assertArrayEquals(fill(100, 'a'), (byte[]) roundTrip(fill(100, 'a')));
+        assertArrayEquals(fill(20000, 'b'), (byte[]) roundTrip(fill(20000, 'b')));
+        
+        List<byte[]> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) list.add(Integer.toString(i * 1000 - 50000).getBytes(UTF_8));
+        list.add(new byte[0]);
+        list.add(fill(300, 'c'));
+        list.add("x".getBytes(UTF_8));
+        list.add("x".getBytes(UTF_8));
+        @SuppressWarnings("unchecked")
+        List<byte[]> decodedList = (List<byte[]>) roundTrip(list);
+        assertEquals(list.size(), decodedList.size());
+        for (int i = 0; i < list.size(); i++) assertArrayEquals(list.get(i), decodedList.get(i));
+        
+        Set<Bytes> set = new LinkedHashSet<>();
+        for (int i = 0; i < 100; i++) set.add(new Bytes(("m" + i).getBytes(UTF_8)));
+        set.add(new Bytes("42".getBytes(UTF_8)));
+        set.add(new Bytes(new byte[0]));
+        assertEquals(set, roundTrip(set));
+        
+        Map<Bytes, byte[]> hash = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) hash.put(new Bytes(("f" + i).getBytes(UTF_8)), Integer.toString(-i).getBytes(UTF_8));
+        hash.put(new Bytes("empty".getBytes(UTF_8)), new byte[0]);
+        @SuppressWarnings("unchecked")
+        Map<Bytes, byte[]> decodedHash = (Map<Bytes, byte[]>) roundTrip(hash);
+        assertEquals(hash.keySet(), decodedHash.keySet());
+        for (Map.Entry<Bytes, byte[]> e : hash.entrySet()) assertArrayEquals(e.getValue(), decodedHash.get(e.getKey()));
+        
+        SortedSet<ZSetEntry> zset = new TreeSet<>();
+        double[] scores = {0, -0.25, 1.5, 3, -7, 1e300, 4.9e-324, 9007199254740993d, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < scores.length; i++) zset.add(new ZSetEntry(("z" + i).getBytes(UTF_8), scores[i]));
+        @SuppressWarnings("unchecked")
+        SortedSet<ZSetEntry> decodedZSet = (SortedSet<ZSetEntry>) roundTrip(zset);
+        assertEquals(zset, decodedZSet);
+        Iterator<ZSetEntry> it = decodedZSet.iterator();
+        for (ZSetEntry entry : zset) assertEquals(0, Double.compare(entry.getScore(), it.next().getScore()));
+        
+        // elements may be CharSequences
+        assertArrayEquals("abc".getBytes(UTF_8), (byte[]) roundTrip("abc"));
+        assertList(roundTrip(Arrays.asList("a", "1", "")), "a", "1", "");
+    }
+    
+    @Test
+    public void testRedisPayload() {
+        // DUMP of "10" by a redis of RDB version 9
+        byte[] payload = {0x00, (byte) 0xC0, 0x0A, 0x09, 0x00, (byte) 0xBE, 0x6D, 0x06, (byte) 0x89, 0x5A, 0x28, 0x00, 0x0A};
+        assertTrue(RdbValueCodec.verify(payload));
+        assertArrayEquals("10".getBytes(UTF_8), (byte[]) RdbValueCodec.decode(payload));
+        payload[1] = (byte) 0xC1;
+        assertFalse(RdbValueCodec.verify(payload));
+    }
+    
+    @Test
+    public void testLzfString() {
+        // literal "a" then a back reference of 9 bytes at distance 1
+        assertArrayEquals(fill(10, 'a'), (byte[]) decode(payload(0x00, 0xC3, 0x05, 0x0A, 0x00, 'a', 0xE0, 0x00, 0x00)));
+    }
+    
+    @Test
+    public void testZSet2() {
+        // scores are little endian binary doubles
+        assertZSet(decode(payload(0x05, 0x02,
+                0x01, 'a', 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0xF8, 0x3F,
+                0x01, 'b', 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0xF0, 0xFF)),
+                "b", Double.NEGATIVE_INFINITY, "a", 1.5);
+    }
+    
+    @Test
+    public void testZipmap() {
+        // zmlen 2, "f1" => "v1", "k" => "abc" with 2 free bytes
+        assertHash(decode(payload(0x09, 0x12,
+                0x02,
+                0x02, 'f', '1', 0x02, 0x00, 'v', '1',
+                0x01, 'k', 0x03, 0x02, 'a', 'b', 'c', 0x00, 0x00,
+                0xFF)),
+                "f1", "v1", "k", "abc");
+    }
+    
+    @Test
+    public void testZiplist() {
+        // every integer encoding: 4 bit immediate, int8, int16, int24, int32 and int64
+        assertList(decode(payload(0x0A, 0x2C,
+                0x2C, 0x00, 0x00, 0x00, 0x21, 0x00, 0x00, 0x00, 0x07, 0x00,
+                0x00, 0x01, 'a',
+                0x03, 0xF8,
+                0x02, 0xFE, 0x9C,
+                0x03, 0xC0, 0xE8, 0x03,
+                0x04, 0xF0, 0xA0, 0x86, 0x01,
+                0x05, 0xD0, 0x00, 0xE1, 0xF5, 0x05,
+                0x06, 0xE0, 0x00, 0xE4, 0x0B, 0x54, 0x02, 0x00, 0x00, 0x00,
+                0xFF)),
+                "a", "7", "-100", "1000", "100000", "100000000", "10000000000");
+        
+        assertZSet(decode(payload(0x0C, 0x18,
+                0x18, 0x00, 0x00, 0x00, 0x12, 0x00, 0x00, 0x00, 0x04, 0x00,
+                0x00, 0x01, 'a',
+                0x03, 0xF2,
+                0x02, 0x01, 'b',
+                0x03, 0x03, '2', '.', '5',
+                0xFF)),
+                "a", 1d, "b", 2.5);
+        
+        assertHash(decode(payload(0x0D, 0x17,
+                0x17, 0x00, 0x00, 0x00, 0x13, 0x00, 0x00, 0x00, 0x04, 0x00,
+                0x00, 0x01, 'f',
+                0x03, 0x01, 'v',
+                0x03, 0x01, 'n',
+                0x03, 0xFE, 0x9C,
+                0xFF)),
+                "f", "v", "n", "-100");
+    }
+    
+    @Test
+    public void testIntset() {
+        assertSet(decode(payload(0x0B, 0x0E,
+                0x02, 0x00, 0x00, 0x00, 0x03, 0x00, 0x00, 0x00,
+                0xFE, 0xFF, 0x05, 0x00, 0x2C, 0x01)),
+                "-2", "5", "300");
+        assertSet(decode(payload(0x0B, 0x0C,
+                0x04, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00,
+                0x70, 0x11, 0x01, 0x00)),
+                "70000");
+        assertSet(decode(payload(0x0B, 0x10,
+                0x08, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00,
+                0x00, 0xF2, 0x05, 0x2A, 0x01, 0x00, 0x00, 0x00)),
+                "5000000000");
+    }
+    
+    @Test
+    public void testListpack() {
+        // 6 bit strings, 7 bit, 13 bit and 24 bit integers, every entry followed by its back length
+        assertHash(decode(payload(0x10, 0x1F,
+                0x1F, 0x00, 0x00, 0x00, 0x06, 0x00,
+                0x82, 'f', '1', 0x03,
+                0x82, 'v', '1', 0x03,
+                0x81, 'n', 0x02,
+                0xDF, 0x9C, 0x02,
+                0x83, 'b', 'i', 'g', 0x04,
+                0xF2, 0x40, 0x42, 0x0F, 0x04,
+                0xFF)),
+                "f1", "v1", "n", "-100", "big", "1000000");
+        
+        assertZSet(decode(payload(0x11, 0x1B,
+                0x1B, 0x00, 0x00, 0x00, 0x06, 0x00,
+                0x81, 'a', 0x02,
+                0x01, 0x01,
+                0x81, 'b', 0x02,
+                0x83, '2', '.', '5', 0x04,
+                0x81, 'c', 0x02,
+                0xF1, 0x88, 0x13, 0x03,
+                0xFF)),
+                "a", 1d, "b", 2.5, "c", 5000d);
+        
+        // 32 bit, 64 bit, negative 13 bit and 16 bit integers
+        assertSet(decode(payload(0x14, 0x21,
+                0x21, 0x00, 0x00, 0x00, 0x05, 0x00,
+                0x81, 'x', 0x02,
+                0xF3, 0x00, 0xE1, 0xF5, 0x05, 0x05,
+                0xF4, 0x00, 0xE4, 0x0B, 0x54, 0x02, 0x00, 0x00, 0x00, 0x09,
+                0xDF, 0xFF, 0x02,
+                0xF1, 0xD0, 0x8A, 0x03,
+                0xFF)),
+                "x", "100000000", "10000000000", "-1", "-30000");
+    }
+    
+    @Test
+    public void testQuickList() {
+        List<String> expected = new ArrayList<>(Arrays.asList("a", "7", new String(fill(300, 'z'), UTF_8), "b"));
+        int[] first = {
+                0x10, 0x00, 0x00, 0x00, 0x0D, 0x00, 0x00, 0x00, 0x02, 0x00,
+                0x00, 0x01, 'a',
+                0x03, 0xF8,
+                0xFF};
+        // a 14 bit string, then an entry whose previous entry length takes 5 bytes
+        int[] second = join(new int[]{
+                0x41, 0x01, 0x00, 0x00, 0x39, 0x01, 0x00, 0x00, 0x02, 0x00,
+                0x00, 0x41, 0x2C}, ints(fill(300, 'z')), new int[]{
+                0xFE, 0x2F, 0x01, 0x00, 0x00, 0x01, 'b',
+                0xFF});
+        assertList(decode(payload(join(new int[]{0x0E, 0x02, 0x10}, first, new int[]{0x41, 0x41}, second))), expected.toArray(new String[0]));
+        // the first node LZF compressed as a single literal run
+        assertList(decode(payload(join(new int[]{0x0E, 0x02, 0xC3, 0x11, 0x10, 0x0F}, first, new int[]{0x41, 0x41}, second))), expected.toArray(new String[0]));
+    }
+    
+    @Test
+    public void testQuickList2() {
+        // a plain node, then a packed node starting with a 12 bit string of 2 bytes back length
+        assertList(decode(payload(join(new int[]{
+                0x12, 0x02,
+                0x01, 0x05, 'p', 'l', 'a', 'i', 'n',
+                0x02, 0x40, 0xD8,
+                0xD8, 0x00, 0x00, 0x00, 0x03, 0x00,
+                0xE0, 0xC8}, ints(fill(200, 'x')), new int[]{0x01, 0xCA,
+                0x81, 'y', 0x02,
+                0x07, 0x01,
+                0xFF}))),
+                "plain", new String(fill(200, 'x'), UTF_8), "y", "7");
+    }
+    
+    @Test
+    public void testForgedLengths() {
+        // string of 2GB - 1
+        assertRejected(payload(0x00, 0x80, 0x7F, 0xFF, 0xFF, 0xFF, 'a'));
+        // lzf string, clen 2, ulen 512MB
+        assertRejected(payload(0x00, 0xC3, 0x02, 0x80, 0x20, 0x00, 0x00, 0x00, 0x00, 'a'));
+        // lzf string, clen 2GB - 1
+        assertRejected(payload(0x00, 0xC3, 0x80, 0x7F, 0xFF, 0xFF, 0xFF, 0x01, 0x00, 'a'));
+        // list of 2GB - 1 strings
+        assertRejected(payload(0x01, 0x80, 0x7F, 0xFF, 0xFF, 0xFF, 0x01, 'a'));
+        // ziplist entry of 2GB - 1 bytes
+        assertRejected(payload(0x0A, 0x10, 0x10, 0, 0, 0, 0x0F, 0, 0, 0, 0x01, 0, 0, 0xC0, 0x00, 0x80, 0x7F, 0xFF, 0xFF, 0xFF));
+        // truncated
+        assertRejected(payload(0x04, 0x02, 0x01, 'a'));
+    }
+    
+    private static Object roundTrip(Object value) {
+        byte[] payload = RdbValueCodec.encode(value);
+        assertTrue(RdbValueCodec.verify(payload));
+        return RdbValueCodec.decode(payload);
+    }
+    
+    /**
+     * Decodes a payload, and checks the value survives a round trip through the plain types.
+     */
+    private static Object decode(byte[] payload) {
+        assertTrue(RdbValueCodec.verify(payload));
+        Object value = RdbValueCodec.decode(payload);
+        Object again = roundTrip(value);
+        if (value instanceof byte[]) {
+            assertArrayEquals((byte[]) value, (byte[]) again);
+        } else if (value instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<byte[]> expected = (List<byte[]>) value;
+            assertList(again, expected.stream().map(e -> new String(e, UTF_8)).toArray(String[]::new));
+        } else if (value instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<Bytes, byte[]> expected = (Map<Bytes, byte[]>) value;
+            List<String> fields = new ArrayList<>();
+            for (Map.Entry<Bytes, byte[]> e : expected.entrySet()) {
+                fields.add(e.getKey().toString());
+                fields.add(new String(e.getValue(), UTF_8));
+            }
+            assertHash(again, fields.toArray(new String[0]));
+        } else {
+            assertEquals(value, again);
+        }
+        return value;
+    }
+    
+    private static void assertList(Object value, String... expected) {
+        @SuppressWarnings("unchecked")
+        List<byte[]> list = (List<byte[]>) value;
+        assertEquals(expected.length, list.size());
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], new String(list.get(i), UTF_8));
+    }
+    
+    private static void assertSet(Object value, String... expected) {
+        Set<Bytes> set = new LinkedHashSet<>();
+        for (String member : expected) set.add(new Bytes(member.getBytes(UTF_8)));
+        assertEquals(set, value);
+    }
+    
+    private static void assertHash(Object value, String... expected) {
+        @SuppressWarnings("unchecked")
+        Map<Bytes, byte[]> hash = (Map<Bytes, byte[]>) value;
+        assertEquals(expected.length / 2, hash.size());
+        for (int i = 0; i < expected.length; i += 2) {
+            byte[] v = hash.get(new Bytes(expected[i].getBytes(UTF_8)));
+            assertEquals(expected[i + 1], v == null ? null : new String(v, UTF_8));
+        }
+    }
+    
+    private static void assertZSet(Object value, Object... expected) {
+        @SuppressWarnings("unchecked")
+        SortedSet<ZSetEntry> zset = (SortedSet<ZSetEntry>) value;
+        assertEquals(expected.length / 2, zset.size());
+        Iterator<ZSetEntry> it = zset.iterator();
+        for (int i = 0; i < expected.length; i += 2) {
+            ZSetEntry entry = it.next();
+            assertEquals(expected[i], new String(entry.getMember(), UTF_8));
+            assertEquals(0, Double.compare((Double) expected[i + 1], entry.getScore()));
+        }
+    }
+    
+    private static byte[] fill(int len, char c) {
+        byte[] bytes = new byte[len];
+        Arrays.fill(bytes, (byte) c);
+        return bytes;
+    }
+    
+    private static int[] ints(byte[] bytes) {
+        int[] ints = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) ints[i] = bytes[i] & 0xFF;
+        return ints;
+    }
+    
+    private static int[] join(int[]... parts) {
+        return Arrays.stream(parts).flatMapToInt(Arrays::stream).toArray();
+    }
+    
+    static byte[] payload(int... bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int b : bytes) out.write(b);
+        out.write(9);
+        out.write(0);
+        byte[] body = out.toByteArray();
+        long crc = CRC64.crc64(body);
+        for (int i = 0; i < 8; i++) out.write((int) (crc >>> (i * 8)));
+        return out.toByteArray();
+    }
+    
+    private static void assertRejected(byte[] payload) {
+        assertTrue(RdbValueCodec.verify(payload));
+        try {
+            RdbValueCodec.decode(payload);
+            fail();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.KEY_INDEX_SCAN_BATCH;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class KeyIndexTest {
+    
+    private static final int STABLE = KEY_INDEX_SCAN_BATCH * 8 + 3;
+    
+    private static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return a.length - b.length;
+    }
+    
+    @Test
+    public void testOperations() {
+        testOperations(KeyIndex.hash());
+        testOperations(KeyIndex.radix());
+    }
+    
+    @Test
+    public void testIterateWhileWriting() {
+        testIterateWhileWriting(KeyIndex.hash(), false);
+        testIterateWhileWriting(KeyIndex.radix(), true);
+    }
+    
+    @Test
+    public void testIterateWhileWritingConcurrently() throws Exception {
+        testIterateWhileWritingConcurrently(KeyIndex.hash(), false);
+        testIterateWhileWritingConcurrently(KeyIndex.radix(), true);
+    }
+    
+    @Test
+    public void testSeek() {
+        assertNull(KeyIndex.hash().keys(new byte[0]));
+        KeyIndex<Integer> index = KeyIndex.radix();
+        for (int i = 0; i < 10; i++) index.compute(("k" + i).getBytes(), (k, v) -> 0);
+        index.compute(new byte[0], (k, v) -> 0);
+        Iterator<byte[]> it = index.keys("k5".getBytes());
+        for (int i = 5; i < 10; i++) assertArrayEquals(("k" + i).getBytes(), it.next());
+        assertFalse(it.hasNext());
+        assertArrayEquals(new byte[0], index.keys(new byte[0]).next());
+        assertArrayEquals("k0".getBytes(), index.keys(new byte[1]).next());
+        assertFalse(index.keys("l".getBytes()).hasNext());
+    }
+    
+    /**
+     * resumes after the last key of every short walk, the way SCAN resumes a slot
+     */
+    @Test
+    public void testResumeWhileWriting() {
+        Random random = new Random(2);
+        KeyIndex<Integer> index = KeyIndex.radix();
+        Set<Bytes> stable = new HashSet<>(), written = new HashSet<>();
+        for (int i = 0; i < STABLE; i++) {
+            byte[] key = stable(i);
+            index.compute(key, (k, v) -> 0);
+            stable.add(new Bytes(key));
+        }
+        List<byte[]> seen = new ArrayList<>();
+        byte[] from = new byte[0];
+        while (true) {
+            Iterator<byte[]> it = index.keys(from);
+            if (!it.hasNext()) break;
+            for (int n = 1 + random.nextInt(5); n > 0 && it.hasNext(); n--) seen.add(it.next());
+            byte[] last = seen.get(seen.size() - 1);
+            from = Arrays.copyOf(last, last.length + 1);
+            for (int n = random.nextInt(4); n > 0; n--) {
+                byte[] key = around(last, random);
+                if (stable.contains(new Bytes(key))) continue;
+                if (random.nextBoolean()) {
+                    index.compute(key, (k, v) -> 1);
+                    written.add(new Bytes(key));
+                } else {
+                    index.remove(key);
+                }
+            }
+            // a stable key before the cursor is removed and added back
+            Bytes moved = new Bytes(last);
+            if (stable.contains(moved) && random.nextInt(8) == 0) {
+                index.remove(last);
+                index.compute(last, (k, v) -> 0);
+            }
+        }
+        verify(seen, stable, written, true);
+    }
+    
+    private void testOperations(KeyIndex<Integer> index) {
+        for (int i = 0; i < 1000; i++) index.compute(("k" + i).getBytes(), (k, v) -> 0);
+        assertEquals(1000, index.size());
+        assertEquals(Integer.valueOf(1), index.compute("k1".getBytes(), (k, v) -> v + 1));
+        assertEquals(Integer.valueOf(1), index.get("k1".getBytes()));
+        assertNull(index.compute("k1".getBytes(), (k, v) -> null));
+        assertNull(index.get("k1".getBytes()));
+        assertEquals(Integer.valueOf(0), index.remove("k2".getBytes()));
+        assertNull(index.remove("k2".getBytes()));
+        // k1 and k2 are gone, k10..k19, k100..k199 remain
+        assertEquals(110, index.removePrefix("k1".getBytes()));
+        assertEquals(888, index.size());
+        index.clear();
+        assertEquals(0, index.size());
+        assertFalse(index.keys().hasNext());
+    }
+    
+    /**
+     * every writer step lands between two reads of the cursor, so writes hit every batch boundary
+     */
+    private void testIterateWhileWriting(KeyIndex<Integer> index, boolean sorted) {
+        Random random = new Random(0);
+        Set<Bytes> stable = new HashSet<>(), written = new HashSet<>();
+        List<byte[]> volatiles = new ArrayList<>();
+        for (int i = 0; i < STABLE; i++) {
+            byte[] key = stable(i);
+            index.compute(key, (k, v) -> 0);
+            stable.add(new Bytes(key));
+        }
+        List<byte[]> seen = new ArrayList<>();
+        for (Iterator<byte[]> it = index.keys(); it.hasNext(); ) {
+            byte[] key = it.next();
+            seen.add(key);
+            for (int n = random.nextInt(4); n > 0; n--) {
+                if (!volatiles.isEmpty() && random.nextBoolean()) {
+                    byte[] removed = volatiles.remove(random.nextInt(volatiles.size()));
+                    index.remove(removed);
+                } else {
+                    byte[] added = around(key, random);
+                    if (stable.contains(new Bytes(added))) continue;
+                    index.compute(added, (k, v) -> 1);
+                    volatiles.add(added);
+                    written.add(new Bytes(added));
+                }
+            }
+        }
+        verify(seen, stable, written, sorted);
+    }
+    
+    private void testIterateWhileWritingConcurrently(KeyIndex<Integer> index, boolean sorted) throws Exception {
+        Set<Bytes> stable = new HashSet<>();
+        for (int i = 0; i < STABLE; i++) {
+            byte[] key = stable(i);
+            index.compute(key, (k, v) -> 0);
+            stable.add(new Bytes(key));
+        }
+        // only the writer thread reads and writes this set until it is joined
+        Set<Bytes> written = new HashSet<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(1);
+            while (!done.get()) {
+                byte[] key = around(stable(random.nextInt(STABLE)), random);
+                if (stable.contains(new Bytes(key))) continue;
+                if (random.nextBoolean()) {
+                    index.compute(key, (k, v) -> 1);
+                    written.add(new Bytes(key));
+                } else {
+                    index.remove(key);
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<byte[]> seen = new ArrayList<>();
+                for (Iterator<byte[]> it = index.keys(); it.hasNext(); ) seen.add(it.next());
+                assertTrue(seen.size() >= STABLE);
+                // wait for the writer before reading the keys it wrote
+                if (round == 19) {
+                    done.set(true);
+                    writer.join();
+                    verify(seen, stable, written, sorted);
+                } else {
+                    verify(seen, stable, null, sorted);
+                }
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+    
+    private static void verify(List<byte[]> seen, Set<Bytes> stable, Set<Bytes> written, boolean sorted) {
+        Set<Bytes> distinct = new HashSet<>();
+        for (int i = 0; i < seen.size(); i++) {
+            Bytes key = new Bytes(seen.get(i));
+            assertTrue("repeated " + key, distinct.add(key));
+            if (written != null) assertTrue("unknown " + key, stable.contains(key) || written.contains(key));
+            if (sorted && i > 0) assertTrue(compare(seen.get(i - 1), seen.get(i)) < 0);
+        }
+        for (Bytes key : stable) assertTrue("skipped " + key, distinct.contains(key));
+    }
+    
+    private static byte[] stable(int i) {
+        return ("key:" + i).getBytes();
+    }
+    
+    /**
+     * a key next to {@code key} in order, the key itself extended, or a prefix of it, so writes land on
+     * the seek position of the cursor
+     */
+    private static byte[] around(byte[] key, Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return Arrays.copyOf(key, key.length + 1);
+            case 1:
+                byte[] extended = Arrays.copyOf(key, key.length + 2);
+                extended[key.length] = (byte) random.nextInt(256);
+                extended[key.length + 1] = (byte) random.nextInt(256);
+                return extended;
+            case 2:
+                return Arrays.copyOf(key, random.nextInt(key.length));
+            default:
+                byte[] sibling = key.clone();
+                sibling[sibling.length - 1] = (byte) (sibling[sibling.length - 1] + (random.nextBoolean() ? 1 : -1));
+                return sibling;
+        }
+    }
+    
+    @Test
+    public void testSeekPastZeroByteSuccessor() {
+        KeyIndex<Integer> index = KeyIndex.radix();
+        // the batch ends exactly on key:0 when the successor key:0\0 is present
+        byte[] last = null;
+        for (int i = 0; i < KEY_INDEX_SCAN_BATCH; i++) {
+            last = String.format("k%05d", i).getBytes();
+            index.compute(last, (k, v) -> 0);
+        }
+        byte[] successor = Arrays.copyOf(last, last.length + 1);
+        index.compute(successor, (k, v) -> 0);
+        List<byte[]> seen = new ArrayList<>();
+        for (Iterator<byte[]> it = index.keys(); it.hasNext(); ) seen.add(it.next());
+        assertEquals(KEY_INDEX_SCAN_BATCH + 1, seen.size());
+        assertArrayEquals(last, seen.get(KEY_INDEX_SCAN_BATCH - 1));
+        assertArrayEquals(successor, seen.get(KEY_INDEX_SCAN_BATCH));
+    }
+}
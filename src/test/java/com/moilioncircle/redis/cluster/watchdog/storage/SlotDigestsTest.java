@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.moilioncircle.redis.cluster.watchdog.ClusterConstants.CLUSTER_SLOTS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class SlotDigestsTest {
+    
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        SlotDigests digests = new SlotDigests();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int j = 0; j < 200000; j++) {
+                    // sibling slots, so that updates collide on the whole path
+                    int slot = random.nextInt(4);
+                    if (random.nextInt(8) == 0) digests.remove(slot, random.nextLong());
+                    else digests.add(slot, random.nextLong());
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        for (int node = CLUSTER_SLOTS - 1; node > 0; node--) {
+            assertEquals(SlotDigests.digest(digests.node(node << 1), digests.node((node << 1) + 1)), digests.node(node));
+        }
+    }
+    
+    @Test
+    public void testOrderIndependence() {
+        RedisStorageEngine e1 = new RedisStorageEngine(), e2 = new RedisStorageEngine(true);
+        for (int i = 0; i < 1000; i++) e1.save(("k" + i).getBytes(), "v" + i, 0, true);
+        for (int i = 999; i >= 0; i--) e2.save(("k" + i).getBytes(), ("v" + i).getBytes(), 0, true);
+        assertEquals(e1.digests().root(), e2.digests().root());
+        long root = e1.digests().root();
+        e1.save("k1".getBytes(), "other", 0, true);
+        e1.save("k1".getBytes(), "v1", 0, true);
+        e1.save("extra".getBytes(), "v", 0, true);
+        e1.delete("extra".getBytes());
+        assertEquals(root, e1.digests().root());
+        e1.clear();
+        assertEquals(0L, e1.digests().root());
+    }
+    
+    @Test
+    public void testExpire() {
+        long now = System.currentTimeMillis();
+        byte[] key = "k".getBytes();
+        assertEquals(SlotDigests.digest(key, "v", now + 1000), SlotDigests.digest(key, "v", now + 1003));
+        assertNotEquals(SlotDigests.digest(key, "v", 0), SlotDigests.digest(key, "v", now + 1000));
+    }
+}
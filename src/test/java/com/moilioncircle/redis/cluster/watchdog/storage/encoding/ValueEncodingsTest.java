@@ -0,0 +1,382 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.storage.encoding;
+
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.Bytes;
+import com.moilioncircle.redis.cluster.watchdog.codec.rdb.ZSetEntry;
+import com.moilioncircle.redis.cluster.watchdog.storage.RedisStorageEngine;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ValueEncodingsTest {
+    
+    @Test
+    public void testListPackVarint() {
+        int[] lengths = {0, 1, 127, 128, 16383, 16384, 70000};
+        // header bytes of each length
+        int[] headers = {1, 1, 1, 2, 2, 3, 3};
+        ListPack.Builder builder = ListPack.builder(0);
+        int expected = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            builder.add(fill(lengths[i], i));
+            expected += headers[i] + lengths[i];
+        }
+        builder.add(0x0102030405060708L).add(-1L);
+        expected += 2 * 9;
+        ListPack pack = builder.build();
+        assertEquals(lengths.length + 2, pack.size());
+        assertEquals(expected, pack.length());
+        ListPack.Cursor cursor = pack.cursor();
+        for (int i = 0; i < lengths.length; i++) {
+            assertTrue(cursor.next());
+            assertEquals(lengths[i], cursor.length());
+            assertArrayEquals(fill(lengths[i], i), cursor.get());
+            assertTrue(cursor.matches(fill(lengths[i], i)));
+            assertFalse(cursor.matches(fill(lengths[i] + 1, i)));
+        }
+        assertTrue(cursor.next());
+        assertEquals(0x0102030405060708L, cursor.getLong());
+        assertTrue(cursor.next());
+        assertEquals(-1L, cursor.getLong());
+        assertFalse(cursor.next());
+    }
+    
+    @Test
+    public void testIntSetWidth() {
+        assertWidth(2, -32768, 32767, 0);
+        assertWidth(4, -32769, 0);
+        assertWidth(4, 32768, 0);
+        assertWidth(4, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertWidth(8, Integer.MIN_VALUE - 1L, 0);
+        assertWidth(8, Integer.MAX_VALUE + 1L, 0);
+        assertWidth(8, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertWidth(2);
+    }
+    
+    @Test
+    public void testIntSetCanonical() {
+        String[] canonical = {"0", "-1", "7", "-9223372036854775808", "9223372036854775807"};
+        for (String s : canonical) assertTrue(s, IntSet.isInteger(s.getBytes()));
+        String[] rejected = {"", "-", "-0", "01", "-01", "+1", " 1", "1 ", "1a", "0x1",
+                "99999999999999999999", "-9223372036854775809", "9223372036854775808", "123456789012345678901"};
+        for (String s : rejected) {
+            assertFalse(s, IntSet.isInteger(s.getBytes()));
+            assertNull(s, IntSet.of(Arrays.asList(bytes("1"), bytes(s))));
+        }
+        IntSet set = IntSet.of(Arrays.asList(bytes("1"), bytes("-2"), bytes("1")));
+        assertEquals(2, set.size());
+        assertTrue(set.contains("1"));
+        assertTrue(set.contains("1".getBytes()));
+        assertFalse(set.contains("01"));
+        assertFalse(set.contains("-0"));
+        assertFalse(set.contains("3"));
+        assertFalse(set.contains(1L));
+        // out of the range of the narrowed contents
+        assertFalse(set.contains("32768"));
+        assertFalse(set.contains("-9223372036854775808"));
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        ValueEncodings encodings = new ValueEncodings();
+        
+        List<byte[]> list = new ArrayList<>(Arrays.asList(fill(0, 0), fill(128, 1), "a".getBytes()));
+        Object encoded = encodings.encode(list);
+        assertTrue(encoded instanceof PackedList);
+        assertEquals(list.size(), ((List<?>) encoded).size());
+        assertArrayEquals(list.get(1), ((PackedList) encoded).get(1));
+        @SuppressWarnings("unchecked")
+        List<byte[]> decodedList = (List<byte[]>) encodings.decode(encoded);
+        assertListEquals(list, decodedList);
+        decodedList.add("b".getBytes());
+        
+        Set<Bytes> intset = new LinkedHashSet<>(Arrays.asList(bytes("3"), bytes("-40000"), bytes("1")));
+        encoded = encodings.encode(intset);
+        assertTrue(encoded instanceof IntSet);
+        assertEquals(intset, encoded);
+        @SuppressWarnings("unchecked")
+        Set<Bytes> decodedIntset = (Set<Bytes>) encodings.decode(encoded);
+        assertEquals(intset, decodedIntset);
+        assertTrue(decodedIntset.add(bytes("x")));
+        
+        Set<Bytes> set = new LinkedHashSet<>(Arrays.asList(bytes("a"), bytes("1"), bytes("")));
+        encoded = encodings.encode(set);
+        assertTrue(encoded instanceof PackedSet);
+        assertEquals(set, encoded);
+        assertTrue(((Set<?>) encoded).contains("a"));
+        @SuppressWarnings("unchecked")
+        Set<Bytes> decodedSet = (Set<Bytes>) encodings.decode(encoded);
+        assertEquals(set, decodedSet);
+        assertTrue(decodedSet.remove(bytes("a")));
+        
+        Map<Bytes, byte[]> hash = new LinkedHashMap<>();
+        hash.put(bytes("f1"), "v1".getBytes());
+        hash.put(bytes("f2"), new byte[0]);
+        encoded = encodings.encode(hash);
+        assertTrue(encoded instanceof PackedHash);
+        assertArrayEquals("v1".getBytes(), ((PackedHash) encoded).get("f1"));
+        assertNull(((PackedHash) encoded).get("f3"));
+        @SuppressWarnings("unchecked")
+        Map<Bytes, byte[]> decodedHash = (Map<Bytes, byte[]>) encodings.decode(encoded);
+        assertEquals(hash.keySet(), decodedHash.keySet());
+        for (Map.Entry<Bytes, byte[]> e : hash.entrySet()) assertArrayEquals(e.getValue(), decodedHash.get(e.getKey()));
+        decodedHash.put(bytes("f3"), "v3".getBytes());
+        
+        SortedSet<ZSetEntry> zset = new TreeSet<>();
+        zset.add(new ZSetEntry("b".getBytes(), 2d));
+        zset.add(new ZSetEntry("a".getBytes(), 2d));
+        zset.add(new ZSetEntry("c".getBytes(), -1.5d));
+        encoded = encodings.encode(zset);
+        assertTrue(encoded instanceof PackedZSet);
+        assertEquals(new ArrayList<>(zset), new ArrayList<>((PackedZSet) encoded));
+        assertEquals(zset.first(), ((PackedZSet) encoded).first());
+        assertEquals(zset.last(), ((PackedZSet) encoded).last());
+        @SuppressWarnings("unchecked")
+        SortedSet<ZSetEntry> decodedZSet = (SortedSet<ZSetEntry>) encodings.decode(encoded);
+        assertEquals(new ArrayList<>(zset), new ArrayList<>(decodedZSet));
+        assertTrue(decodedZSet.add(new ZSetEntry("d".getBytes(), 0d)));
+        
+        assertSame(list, encodings.decode(list));
+    }
+    
+    @Test
+    public void testZSetComparator() {
+        ValueEncodings encodings = new ValueEncodings();
+        Comparator<ZSetEntry> byMember = (a, b) -> Bytes.compare(b.getMember(), a.getMember());
+        SortedSet<ZSetEntry> zset = new TreeSet<>(byMember);
+        zset.add(new ZSetEntry("a".getBytes(), 3d));
+        zset.add(new ZSetEntry("b".getBytes(), 1d));
+        zset.add(new ZSetEntry("c".getBytes(), 2d));
+        Object encoded = encodings.encode(zset);
+        assertTrue(encoded instanceof PackedZSet);
+        // packed in score order
+        Iterator<ZSetEntry> it = ((PackedZSet) encoded).iterator();
+        assertArrayEquals("b".getBytes(), it.next().getMember());
+        assertArrayEquals("c".getBytes(), it.next().getMember());
+        assertArrayEquals("a".getBytes(), it.next().getMember());
+        assertFalse(it.hasNext());
+        @SuppressWarnings("unchecked")
+        SortedSet<ZSetEntry> decoded = (SortedSet<ZSetEntry>) encodings.decode(encoded);
+        assertSame(byMember, decoded.comparator());
+        assertEquals(new ArrayList<>(zset), new ArrayList<>(decoded));
+    }
+    
+    @Test
+    public void testPromotion() {
+        ValueEncodings encodings = new ValueEncodings()
+                .setListMaxListpackSize(10)
+                .setSetMaxIntsetEntries(4).setSetMaxListpackEntries(3).setSetMaxListpackValue(2)
+                .setHashMaxListpackEntries(2).setHashMaxListpackValue(2)
+                .setZsetMaxListpackEntries(2).setZsetMaxListpackValue(2);
+        
+        List<byte[]> list = new ArrayList<>(Arrays.asList(fill(5, 0), fill(5, 1)));
+        assertTrue(encodings.encode(list) instanceof PackedList);
+        list.add(new byte[0]);
+        assertTrue(encodings.encode(list) instanceof PackedList);
+        list.add(fill(1, 2));
+        assertSame(list, encodings.encode(list));
+        
+        Set<Bytes> intset = new LinkedHashSet<>(Arrays.asList(bytes("1"), bytes("2"), bytes("3"), bytes("4")));
+        assertTrue(encodings.encode(intset) instanceof IntSet);
+        intset.add(bytes("5"));
+        // past the intset and the listpack entries
+        assertSame(intset, encodings.encode(intset));
+        
+        Set<Bytes> set = new LinkedHashSet<>(Arrays.asList(bytes("a"), bytes("bb"), bytes("1")));
+        assertTrue(encodings.encode(set) instanceof PackedSet);
+        set.add(bytes("c"));
+        assertSame(set, encodings.encode(set));
+        set = new LinkedHashSet<>(Arrays.asList(bytes("a"), bytes("ccc")));
+        assertSame(set, encodings.encode(set));
+        
+        Map<Bytes, byte[]> hash = new LinkedHashMap<>();
+        hash.put(bytes("f1"), "v1".getBytes());
+        hash.put(bytes("f2"), "v2".getBytes());
+        assertTrue(encodings.encode(hash) instanceof PackedHash);
+        hash.put(bytes("f3"), "v3".getBytes());
+        assertSame(hash, encodings.encode(hash));
+        hash.remove(bytes("f3"));
+        hash.put(bytes("f2"), "v22".getBytes());
+        assertSame(hash, encodings.encode(hash));
+        hash.remove(bytes("f2"));
+        hash.put(bytes("fff"), "v".getBytes());
+        assertSame(hash, encodings.encode(hash));
+        
+        SortedSet<ZSetEntry> zset = new TreeSet<>();
+        zset.add(new ZSetEntry("a".getBytes(), 1d));
+        zset.add(new ZSetEntry("bb".getBytes(), 2d));
+        assertTrue(encodings.encode(zset) instanceof PackedZSet);
+        zset.add(new ZSetEntry("c".getBytes(), 3d));
+        assertSame(zset, encodings.encode(zset));
+        zset.remove(zset.last());
+        zset.add(new ZSetEntry("ccc".getBytes(), 0d));
+        zset.remove(zset.last());
+        assertEquals(2, zset.size());
+        assertSame(zset, encodings.encode(zset));
+    }
+    
+    @Test
+    public void testElementKinds() {
+        ValueEncodings encodings = new ValueEncodings();
+        List<String> strings = Arrays.asList("a", "b");
+        PackedList list = (PackedList) encodings.encode(strings);
+        assertEquals(ElementKind.STRING, list.kind());
+        assertEquals(strings, encodings.decode(list));
+        Set<String> numbers = new LinkedHashSet<>(Arrays.asList("1", "2"));
+        IntSet intset = (IntSet) encodings.encode(numbers);
+        assertEquals(ElementKind.STRING, intset.kind());
+        assertEquals(numbers, encodings.decode(intset));
+        Set<String> members = new LinkedHashSet<>(Arrays.asList("a", "b"));
+        assertEquals(members, encodings.decode(encodings.encode(members)));
+        Map<String, String> hash = Collections.singletonMap("f", "v");
+        PackedHash packed = (PackedHash) encodings.encode(hash);
+        assertEquals(ElementKind.STRING, packed.fieldKind());
+        assertEquals(ElementKind.STRING, packed.valueKind());
+        assertEquals(hash, encodings.decode(packed));
+        
+        // byte[] members and fields come back as byte[]
+        Set<byte[]> bytes = new HashSet<>(Collections.singleton("1".getBytes()));
+        Set<?> decoded = (Set<?>) encodings.decode(encodings.encode(bytes));
+        assertArrayEquals("1".getBytes(), (byte[]) decoded.iterator().next());
+        Map<byte[], byte[]> raw = new LinkedHashMap<>();
+        raw.put("f".getBytes(), "v".getBytes());
+        Map<?, ?> map = (Map<?, ?>) encodings.decode(encodings.encode(raw));
+        Map.Entry<?, ?> entry = map.entrySet().iterator().next();
+        assertArrayEquals("f".getBytes(), (byte[]) entry.getKey());
+        assertArrayEquals("v".getBytes(), (byte[]) entry.getValue());
+    }
+    
+    @Test
+    public void testIneligibleTypes() {
+        ValueEncodings encodings = new ValueEncodings();
+        List<Object> mixed = Arrays.asList("a", "b".getBytes());
+        assertSame(mixed, encodings.encode(mixed));
+        List<Integer> integers = Arrays.asList(1, 2);
+        assertSame(integers, encodings.encode(integers));
+        // a lone surrogate does not survive utf-8
+        List<String> surrogate = Collections.singletonList("\ud800");
+        assertSame(surrogate, encodings.encode(surrogate));
+        // byte[] members are distinct by identity, packing would merge them
+        Set<byte[]> same = new HashSet<>(Arrays.asList("1".getBytes(), "1".getBytes()));
+        assertSame(same, encodings.encode(same));
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("f", "v");
+        values.put("g", bytes("v"));
+        assertSame(values, encodings.encode(values));
+        assertSame("v", encodings.encode("v"));
+    }
+    
+    /**
+     * the value types of redis-replicator, saved by {@code SimpleReplicationListener}
+     */
+    @Test
+    public void testReplicationTypes() {
+        RedisStorageEngine engine = new RedisStorageEngine();
+        ValueEncodings encodings = new ValueEncodings();
+        Map<String, String> hash = new LinkedHashMap<>();
+        hash.put("f1", "v1");
+        hash.put("f2", "\u4e2d\ud83d\ude00");
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b", "a"));
+        Set<String> set = new LinkedHashSet<>(Arrays.asList("x", "y"));
+        Set<String> numbers = new LinkedHashSet<>(Arrays.asList("3", "-1"));
+        for (Object value : Arrays.asList(hash, list, set, numbers)) {
+            assertTrue(encodings.encode(value) != value);
+            byte[] key = value.toString().getBytes();
+            assertTrue(engine.save(key, value, 0, true));
+            Object loaded = engine.load(key);
+            assertEquals(value.getClass().getSimpleName(), value, loaded);
+            Iterable<?> elements = loaded instanceof Map ? ((Map<?, ?>) loaded).values() : (Iterable<?>) loaded;
+            for (Object element : elements) assertTrue(element instanceof String);
+        }
+    }
+    
+    @Test
+    public void testLoadModifySave() {
+        RedisStorageEngine engine = new RedisStorageEngine();
+        byte[] key = "k".getBytes();
+        Set<Bytes> set = new LinkedHashSet<>(Arrays.asList(bytes("1"), bytes("2")));
+        assertTrue(engine.save(key, set, 0, true));
+        @SuppressWarnings("unchecked")
+        Set<Bytes> loaded = (Set<Bytes>) engine.load(key);
+        assertEquals(set, loaded);
+        loaded.add(bytes("x"));
+        assertTrue(engine.save(key, loaded, 0, true));
+        assertEquals(loaded, engine.load(key));
+        
+        List<byte[]> list = new ArrayList<>(Collections.singletonList("a".getBytes()));
+        assertTrue(engine.save(key, list, 0, true));
+        @SuppressWarnings("unchecked")
+        List<byte[]> loadedList = (List<byte[]>) engine.load(key);
+        loadedList.add("b".getBytes());
+        assertTrue(engine.save(key, loadedList, 0, true));
+        assertEquals(2, ((List<?>) engine.load(key)).size());
+    }
+    
+    private static void assertWidth(int width, long... values) {
+        List<Bytes> members = new ArrayList<>();
+        for (long value : values) members.add(bytes(Long.toString(value)));
+        IntSet set = IntSet.of(members);
+        assertEquals(width, set.width());
+        assertEquals(new HashSet<>(members), set);
+        long previous = Long.MIN_VALUE;
+        for (Bytes member : set) {
+            long value = Long.parseLong(new String(member.getBytes()));
+            assertTrue(value >= previous);
+            previous = value;
+            assertTrue(set.contains(member));
+        }
+    }
+    
+    private static void assertListEquals(List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) assertArrayEquals(expected.get(i), actual.get(i));
+    }
+    
+    private static Bytes bytes(String s) {
+        return new Bytes(s.getBytes());
+    }
+    
+    private static byte[] fill(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = (byte) (i * 31 + seed);
+        return bytes;
+    }
+}
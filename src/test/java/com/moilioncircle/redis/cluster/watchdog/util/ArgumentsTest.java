@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class ArgumentsTest {
+    
+    private static boolean match(String pattern, String string) {
+        return Arguments.match(pattern.getBytes(), string.getBytes());
+    }
+    
+    @Test
+    public void testMatch() {
+        assertTrue(match("*", ""));
+        assertTrue(match("*", "abc"));
+        assertTrue(match("a*", "a"));
+        assertTrue(match("*c", "abc"));
+        assertTrue(match("a*b*c", "aXbYc"));
+        assertTrue(match("a**c", "ac"));
+        assertFalse(match("a*b", "acbc"));
+        assertTrue(match("a*b", "acbcb"));
+        assertTrue(match("h?llo", "hello"));
+        assertFalse(match("h?llo", "hllo"));
+        assertTrue(match("h[ae]llo", "hallo"));
+        assertFalse(match("h[^e]llo", "hello"));
+        assertTrue(match("h[a-b]llo", "hbllo"));
+        assertTrue(match("h[b-a]llo", "hallo"));
+        assertTrue(match("h\\*llo", "h*llo"));
+        assertFalse(match("h\\*llo", "hello"));
+        assertTrue(match("user:*:name", "user:1:2:name"));
+        assertFalse(match("user:*:name", "user:1:2:nam"));
+    }
+    
+    /**
+     * CVE-2022-36021, backtracks exponentially without the early exit
+     */
+    @Test(timeout = 5000)
+    public void testMatchManyStars() {
+        byte[] key = new byte[4096];
+        Arrays.fill(key, (byte) 'a');
+        assertFalse(Arguments.match("*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*b".getBytes(), key));
+        assertTrue(Arguments.match("*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a*a".getBytes(), key));
+    }
+}
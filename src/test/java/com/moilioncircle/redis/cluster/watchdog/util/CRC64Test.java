@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class CRC64Test {
+    
+    /**
+     * bit by bit reference, independent of the lookup tables
+     */
+    private static long reference(byte[] bytes, int start, int length) {
+        long crc = 0;
+        for (int i = start; i < start + length; i++) {
+            crc ^= bytes[i] & 0xFFL;
+            for (int k = 0; k < 8; k++) crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x95AC9329AC4BC9B5L : crc >>> 1;
+        }
+        return crc;
+    }
+    
+    @Test
+    public void testCheck() {
+        assertEquals(0xe9c6d914c4b8d9caL, CRC64.crc64("123456789".getBytes(US_ASCII)));
+        assertEquals(0L, CRC64.crc64(new byte[0]));
+    }
+    
+    @Test
+    public void testUpdate() {
+        Random random = new Random(0);
+        for (int n = 0; n < 500; n++) {
+            byte[] bytes = new byte[random.nextInt(300)];
+            random.nextBytes(bytes);
+            int start = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+            int length = bytes.length - start;
+            long expected = reference(bytes, start, length);
+            
+            assertEquals(expected, CRC64.crc64(bytes, start, length));
+            
+            ByteBuf heap = Unpooled.wrappedBuffer(bytes);
+            assertEquals(expected, CRC64.update(0, heap, start, length));
+            
+            ByteBuf direct = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+            assertEquals(expected, CRC64.update(0, direct, start, length));
+            assertEquals(0, direct.readerIndex());
+            direct.release();
+            
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).position(start);
+            assertEquals(expected, CRC64.update(0, buffer));
+            assertEquals(bytes.length, buffer.position());
+            
+            ByteBuffer array = ByteBuffer.wrap(bytes);
+            array.position(start);
+            assertEquals(expected, CRC64.update(0, array));
+            
+            // chunk by chunk
+            int split = start + (length == 0 ? 0 : random.nextInt(length));
+            long crc = CRC64.update(0, bytes, start, split - start);
+            assertEquals(expected, CRC64.update(crc, bytes, split, start + length - split));
+        }
+    }
+    
+    @Test
+    public void testCombine() {
+        Random random = new Random(1);
+        for (int n = 0; n < 200; n++) {
+            byte[] bytes = new byte[random.nextInt(2000)];
+            random.nextBytes(bytes);
+            int split = random.nextInt(bytes.length + 1);
+            long crc1 = CRC64.crc64(bytes, 0, split);
+            long crc2 = CRC64.crc64(bytes, split, bytes.length - split);
+            assertEquals(reference(bytes, 0, bytes.length), CRC64.combine(crc1, crc2, bytes.length - split));
+        }
+    }
+}
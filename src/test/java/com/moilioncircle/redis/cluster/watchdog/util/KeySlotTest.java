@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class KeySlotTest {
+    
+    /**
+     * bit by bit CRC16-XMODEM, independent of the lookup tables
+     */
+    private static int crc16(byte[] bytes, int start, int length) {
+        int crc = 0;
+        for (int i = start; i < start + length; i++) {
+            crc ^= (bytes[i] & 0xFF) << 8;
+            for (int k = 0; k < 8; k++) crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+        }
+        return crc & 0xFFFF;
+    }
+    
+    /**
+     * keyHashSlot of redis cluster.c
+     */
+    private static int slot(byte[] key) {
+        int s = 0;
+        while (s < key.length && key[s] != '{') s++;
+        if (s == key.length) return crc16(key, 0, key.length) & 16383;
+        int e = s + 1;
+        while (e < key.length && key[e] != '}') e++;
+        if (e == key.length || e == s + 1) return crc16(key, 0, key.length) & 16383;
+        return crc16(key, s + 1, e - s - 1) & 16383;
+    }
+    
+    private static int slot(String key) {
+        return KeySlot.calcSlot(key.getBytes(UTF_8));
+    }
+    
+    @Test
+    public void testKnownSlots() {
+        assertEquals(0x31C3, CRC16.crc16("123456789".getBytes(US_ASCII)));
+        assertEquals(12182, slot("foo"));
+        assertEquals(5061, slot("bar"));
+        assertEquals(0, slot(""));
+        assertEquals(slot("a"), slot("{a}b"));
+        assertEquals(slot("bar"), slot("foo{bar}{zap}"));
+        assertEquals(slot("{bar"), slot("foo{{bar}}zap"));
+        assertEquals(slot("user1000"), slot("{user1000}.following"));
+        assertEquals(crc16("{}".getBytes(US_ASCII), 0, 2) & 16383, slot("{}"));
+        assertEquals(crc16("a{}{b}".getBytes(US_ASCII), 0, 6) & 16383, slot("a{}{b}"));
+        assertEquals(crc16("foo{}{bar}".getBytes(US_ASCII), 0, 10) & 16383, slot("foo{}{bar}"));
+        assertEquals(crc16("{a".getBytes(US_ASCII), 0, 2) & 16383, slot("{a"));
+        assertEquals(crc16("a}b{".getBytes(US_ASCII), 0, 4) & 16383, slot("a}b{"));
+    }
+    
+    @Test
+    public void testRandomKeys() {
+        Random random = new Random(0);
+        byte[] alphabet = "ab{}".getBytes(US_ASCII);
+        for (int n = 0; n < 20000; n++) {
+            byte[] key = new byte[random.nextInt(80)];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = random.nextInt(3) == 0 ? alphabet[random.nextInt(alphabet.length)] : (byte) random.nextInt(256);
+            }
+            int expected = slot(key);
+            assertEquals(expected, KeySlot.calcSlot(key));
+            assertEquals(crc16(key, 0, key.length), CRC16.crc16(key));
+            
+            // the key in the middle of a larger array
+            byte[] padded = new byte[key.length + 10];
+            System.arraycopy(key, 0, padded, 3, key.length);
+            padded[2] = '{';
+            padded[key.length + 3] = '}';
+            assertEquals(expected, KeySlot.calcSlot(padded, 3, key.length));
+            assertEquals(crc16(key, 0, key.length), CRC16.crc16(padded, 3, key.length));
+            
+            // a readable region that does not start at index 0
+            ByteBuf heap = Unpooled.wrappedBuffer(padded);
+            heap.readerIndex(3).writerIndex(3 + key.length);
+            assertEquals(expected, KeySlot.calcSlot(heap));
+            assertEquals(3, heap.readerIndex());
+            assertEquals(expected, KeySlot.calcSlot(heap, 3, key.length));
+            
+            ByteBuf direct = Unpooled.directBuffer(padded.length).writeBytes(padded);
+            direct.readerIndex(3).writerIndex(3 + key.length);
+            assertEquals(expected, KeySlot.calcSlot(direct));
+            assertEquals(expected, KeySlot.calcSlot(direct, 3, key.length));
+            assertEquals(crc16(key, 0, key.length), CRC16.crc16(direct, 3, key.length));
+            direct.release();
+        }
+    }
+    
+    @Test
+    public void testCalcSlots() {
+        byte[][] keys = {"foo".getBytes(US_ASCII), "{a}b".getBytes(US_ASCII), new byte[0], "{}".getBytes(US_ASCII)};
+        int[] slots = new int[keys.length];
+        KeySlot.calcSlots(keys, slots);
+        for (int i = 0; i < keys.length; i++) assertEquals(slot(keys[i]), slots[i]);
+    }
+}
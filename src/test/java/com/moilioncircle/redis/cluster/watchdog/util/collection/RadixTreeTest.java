@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016-2018 Leon Chen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.moilioncircle.redis.cluster.watchdog.util.collection;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Leon Chen
+ * @since 1.0.0
+ */
+public class RadixTreeTest {
+    
+    private static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return a.length - b.length;
+    }
+    
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(0);
+        RadixTree<Integer> tree = new RadixTree<>();
+        NavigableMap<byte[], Integer> expected = new TreeMap<>(RadixTreeTest::compare);
+        for (int n = 0; n < 100000; n++) {
+            byte[] key = key(random);
+            int op = random.nextInt(100);
+            if (op < 55) {
+                assertEquals(expected.put(key, n), tree.put(key, n));
+            } else if (op < 90) {
+                assertEquals(expected.remove(key), tree.remove(key));
+            } else if (op < 98) {
+                assertEquals(expected.get(key), tree.get(key));
+            } else {
+                byte[] prefix = Arrays.copyOf(key, random.nextInt(key.length + 1));
+                assertEquals(removePrefix(expected, prefix), tree.removePrefix(prefix));
+            }
+            assertEquals(expected.size(), tree.size());
+            if (n % 5000 == 0) {
+                assertSame(expected, tree);
+                for (int i = 0; i < 20; i++) {
+                    byte[] from = key(random);
+                    assertIterator(expected.tailMap(from, true), tree.iterator(from));
+                }
+            }
+        }
+        assertSame(expected, tree);
+    }
+    
+    /**
+     * One inner node with every child count, grown from 4 to 16, 48 and 256 children and shrunk back.
+     */
+    @Test
+    public void testGrowAndShrink() {
+        Random random = new Random(1);
+        RadixTree<Integer> tree = new RadixTree<>();
+        NavigableMap<byte[], Integer> expected = new TreeMap<>(RadixTreeTest::compare);
+        byte[] prefix = "prefix:".getBytes();
+        expected.put(prefix, -1);
+        tree.put(prefix, -1);
+        int[] order = shuffle(random);
+        for (int i = 0; i < 256; i++) {
+            byte[] key = Arrays.copyOf(prefix, prefix.length + 2);
+            key[prefix.length] = (byte) order[i];
+            key[prefix.length + 1] = (byte) i;
+            assertEquals(expected.put(key, i), tree.put(key, i));
+            assertSame(expected, tree);
+            byte[] from = Arrays.copyOf(prefix, prefix.length + 1);
+            from[prefix.length] = (byte) random.nextInt(256);
+            assertIterator(expected.tailMap(from, true), tree.iterator(from));
+        }
+        order = shuffle(random);
+        for (int i = 0; i < 256; i++) {
+            byte[] key = Arrays.copyOf(prefix, prefix.length + 1);
+            key[prefix.length] = (byte) order[i];
+            if ((i & 1) == 0) {
+                byte[] child = expected.ceilingKey(key);
+                assertEquals(expected.remove(child), tree.remove(child));
+            } else {
+                assertEquals(removePrefix(expected, key), tree.removePrefix(key));
+            }
+            assertSame(expected, tree);
+        }
+        assertEquals(Integer.valueOf(-1), tree.remove(prefix));
+        assertEquals(0, tree.size());
+        assertFalse(tree.iterator().hasNext());
+    }
+    
+    /**
+     * short keys over a small alphabet, so keys share prefixes and are prefixes of each other
+     */
+    private static byte[] key(Random random) {
+        byte[] key = new byte[random.nextInt(7)];
+        for (int i = 0; i < key.length; i++) key[i] = random.nextInt(4) == 0 ? (byte) random.nextInt(256) : new byte[]{'a', 'b', (byte) 0xFF}[random.nextInt(3)];
+        return key;
+    }
+    
+    private static int removePrefix(NavigableMap<byte[], Integer> map, byte[] prefix) {
+        int removed = 0;
+        for (Iterator<byte[]> it = map.tailMap(prefix, true).keySet().iterator(); it.hasNext(); removed++) {
+            byte[] key = it.next();
+            if (key.length < prefix.length || compare(Arrays.copyOf(key, prefix.length), prefix) != 0) break;
+            it.remove();
+        }
+        return removed;
+    }
+    
+    private static int[] shuffle(Random random) {
+        int[] order = new int[256];
+        for (int i = 0; i < 256; i++) order[i] = i;
+        for (int i = 255; i > 0; i--) {
+            int j = random.nextInt(i + 1), t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+    
+    private static void assertSame(NavigableMap<byte[], Integer> expected, RadixTree<Integer> tree) {
+        assertEquals(expected.size(), tree.size());
+        assertIterator(expected, tree.iterator());
+        for (Map.Entry<byte[], Integer> e : expected.entrySet()) assertEquals(e.getValue(), tree.get(e.getKey()));
+    }
+    
+    private static void assertIterator(Map<byte[], Integer> expected, Iterator<Map.Entry<byte[], Integer>> it) {
+        for (Map.Entry<byte[], Integer> e : expected.entrySet()) {
+            Map.Entry<byte[], Integer> actual = it.next();
+            assertArrayEquals(e.getKey(), actual.getKey());
+            assertEquals(e.getValue(), actual.getValue());
+        }
+        assertFalse(it.hasNext());
+    }
+}